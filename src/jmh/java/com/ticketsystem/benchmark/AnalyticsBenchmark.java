@@ -0,0 +1,91 @@
+package com.ticketsystem.benchmark;
+
+import com.ticketsystem.analytics.TicketAnalytics;
+import com.ticketsystem.model.ActivityReport;
+import com.ticketsystem.model.DepartmentThroughput;
+import com.ticketsystem.model.ResolutionTimeReport;
+import com.ticketsystem.model.Ticket;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Reports over millions of tickets spread over a year, two thirds of them resolved, assigned
+// across 20 departments of 50 agents. scanTickets computes the resolution-time percentiles the
+// ad-hoc way, sorting the durations collected from the Ticket objects, for comparison.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+@State(Scope.Benchmark)
+public class AnalyticsBenchmark {
+    private static final long YEAR_MILLIS = TimeUnit.DAYS.toMillis(365);
+    private static final long NOW = 1_700_000_000_000L;
+    private static final long MONTH_FROM = NOW - TimeUnit.DAYS.toMillis(30);
+
+    @Param({"1000000", "10000000"})
+    public int rows;
+
+    private TicketAnalytics analytics;
+    private List<Ticket> tickets;
+
+    @Setup(Level.Trial)
+    public void populate() {
+        analytics = new TicketAnalytics(null, null);
+        tickets = new ArrayList<>(rows);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < rows; i++) {
+            Ticket ticket = new Ticket();
+            ticket.setId("ticket-" + i);
+            ticket.setVersion(1);
+            ticket.createdAtMillis(NOW - YEAR_MILLIS + random.nextLong(YEAR_MILLIS));
+            ticket.setAssignedTo(random.nextInt(10) == 0 ? null
+                    : "dept" + random.nextInt(20) + ".agent" + random.nextInt(50));
+            if (random.nextInt(3) > 0) {
+                ticket.setStatus("RESOLVED");
+                ticket.resolvedAtMillis(ticket.createdAtMillis() + random.nextLong(TimeUnit.DAYS.toMillis(14)));
+            } else {
+                ticket.setStatus("OPEN");
+            }
+            analytics.update(ticket);
+            tickets.add(ticket);
+        }
+    }
+
+    @Benchmark
+    public ActivityReport hourlyActivityLastMonth() {
+        return analytics.activity(MONTH_FROM, NOW, TimeUnit.HOURS.toMillis(1), null);
+    }
+
+    @Benchmark
+    public ActivityReport dailyActivityOfOneDepartment() {
+        return analytics.activity(NOW - YEAR_MILLIS, NOW, TimeUnit.DAYS.toMillis(1), "dept7");
+    }
+
+    @Benchmark
+    public ResolutionTimeReport resolutionTimes() {
+        return analytics.resolutionTimes(NOW - YEAR_MILLIS, NOW, null);
+    }
+
+    @Benchmark
+    public List<DepartmentThroughput> throughput() {
+        return analytics.throughput(MONTH_FROM, NOW);
+    }
+
+    @Benchmark
+    public long scanTickets() {
+        long[] durations = new long[tickets.size()];
+        int count = 0;
+        for (Ticket ticket : tickets) {
+            if (ticket.getResolvedAt() != null && ticket.getCreatedAt() != null) {
+                durations[count++] = ticket.getResolvedAt().getTime() - ticket.getCreatedAt().getTime();
+            }
+        }
+        Arrays.sort(durations, 0, count);
+        return count > 0 ? durations[(int) Math.ceil(0.99 * count) - 1] : 0;
+    }
+}
@@ -0,0 +1,82 @@
+package com.ticketsystem.benchmark;
+
+import com.ticketsystem.assignment.AutoAssignmentEngine;
+import com.ticketsystem.events.TicketChangeBus;
+import com.ticketsystem.model.User;
+import com.ticketsystem.persistence.TicketEventLog;
+import com.ticketsystem.service.impl.TicketServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Tickets auto-assigned per millisecond with 10K registered agents: each invocation routes one
+// batch of fresh tickets, as the engine's background thread does, including the bulk assignment
+// itself. The engine's change-feed thread runs alongside, as in the application. Every iteration
+// starts from an empty store so the agents' loads do not grow without bound.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class AutoAssignmentBenchmark {
+    private static final int BATCH = 256;
+
+    @Param({"10000"})
+    public int agents;
+
+    @Param({"20"})
+    public int departments;
+
+    private TicketServiceImpl service;
+    private AutoAssignmentEngine engine;
+    private List<AutoAssignmentEngine.Request> byDepartment;
+    private List<AutoAssignmentEngine.Request> anyAgent;
+    private int batches;
+
+    @Setup(Level.Iteration)
+    public void registerAgents() {
+        TicketChangeBus changes = new TicketChangeBus(65536);
+        service = new TicketServiceImpl(24, TicketEventLog.DISABLED, changes);
+        engine = new AutoAssignmentEngine(service, changes, true, BATCH, 100_000);
+        engine.start();
+        for (int i = 0; i < agents; i++) {
+            User agent = new User();
+            agent.setId("dept" + (i % departments) + ".agent" + i);
+            agent.setRole("AGENT");
+            agent.setDepartment("dept" + (i % departments));
+            engine.addAgent(agent);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void stopEngine() {
+        engine.stop();
+    }
+
+    @Setup(Level.Invocation)
+    public void createBatch() {
+        byDepartment = new ArrayList<>(BATCH);
+        anyAgent = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            String id = service.createTicket("Printer not working", "Paper jam on the third floor").getId();
+            byDepartment.add(new AutoAssignmentEngine.Request(id, "dept" + (batches + i) % departments));
+            anyAgent.add(new AutoAssignmentEngine.Request(id, null));
+        }
+        batches++;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int assignByDepartment() {
+        return engine.assign(byDepartment);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int assignToAnyAgent() {
+        return engine.assign(anyAgent);
+    }
+}
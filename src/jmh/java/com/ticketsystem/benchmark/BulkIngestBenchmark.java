@@ -0,0 +1,86 @@
+package com.ticketsystem.benchmark;
+
+import com.ticketsystem.model.BulkItem;
+import com.ticketsystem.model.BulkResult;
+import com.ticketsystem.model.Ticket;
+import com.ticketsystem.persistence.FileTicketEventLog;
+import com.ticketsystem.persistence.FsyncPolicy;
+import com.ticketsystem.persistence.TicketEventLog;
+import com.ticketsystem.service.impl.TicketServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Ticket creation one request at a time versus the bulk path, per ticket. With an fsync-always
+// event log the single path waits for the disk once per ticket, the bulk path once per chunk.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class BulkIngestBenchmark {
+    private static final int BATCH = 1000;
+
+    @Param({"none", "fsync"})
+    public String eventLog;
+
+    private Path directory;
+    private TicketEventLog log;
+    private TicketServiceImpl service;
+    private List<BulkItem> items;
+
+    @Setup(Level.Trial)
+    public void prepareItems() {
+        SplittableRandom random = new SplittableRandom(7);
+        items = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            BulkItem item = new BulkItem();
+            item.setTitle(TicketFixtures.title(random));
+            item.setDescription(TicketFixtures.description(random));
+            items.add(item);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void openStore() throws IOException {
+        if ("fsync".equals(eventLog)) {
+            directory = Files.createTempDirectory("ticket-bulk-bench");
+            log = new FileTicketEventLog(directory, FsyncPolicy.ALWAYS, 50, 256L * 1024 * 1024);
+        } else {
+            log = TicketEventLog.DISABLED;
+        }
+        service = new TicketServiceImpl(24, log);
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeStore() throws IOException {
+        log.close();
+        if (directory != null) {
+            WalReplayBenchmark.deleteRecursively(directory);
+            directory = null;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void singleCreate(Blackhole blackhole) {
+        for (BulkItem item : items) {
+            Ticket ticket = service.createTicket(item.getTitle(), item.getDescription());
+            blackhole.consume(ticket);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<BulkResult<Ticket>> bulkCreate() {
+        return service.createTickets(items);
+    }
+}
@@ -0,0 +1,125 @@
+package com.ticketsystem.benchmark;
+
+import com.ticketsystem.cluster.ClusterNode;
+import com.ticketsystem.cluster.ClusterTransport;
+import com.ticketsystem.cluster.ClusteredTicketService;
+import com.ticketsystem.cluster.LoopbackClusterTransport;
+import com.ticketsystem.cluster.TcpClusterTransport;
+import com.ticketsystem.events.TicketChangeBus;
+import com.ticketsystem.model.Ticket;
+import com.ticketsystem.persistence.TicketEventLog;
+import com.ticketsystem.service.impl.TicketServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Writes on node 0 of an in-JVM cluster, to tickets node 0 owns and to tickets it forwards to node 1,
+// and the time until the last node has applied a write. Over TCP the nodes talk through localhost
+// sockets, so this measures the protocol and the replication path rather than a network.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClusterReplicationBenchmark {
+    @Param({"loopback", "tcp"})
+    public String transport;
+
+    @Param({"2", "3"})
+    public int nodes;
+
+    @Param({"10000"})
+    public int tickets;
+
+    private TicketServiceImpl[] stores;
+    private ClusterNode[] cluster;
+    private ClusteredTicketService entry;
+    private String[] ownedByEntry;
+    private String[] ownedByOther;
+
+    @Setup(Level.Trial)
+    public void startCluster() throws Exception {
+        LoopbackClusterTransport.Network network = new LoopbackClusterTransport.Network(nodes);
+        List<InetSocketAddress> addresses = freeAddresses(nodes);
+        stores = new TicketServiceImpl[nodes];
+        cluster = new ClusterNode[nodes];
+        for (int i = 0; i < nodes; i++) {
+            ClusterTransport nodeTransport = transport.equals("tcp")
+                    ? new TcpClusterTransport(addresses, i)
+                    : network.node(i);
+            stores[i] = new TicketServiceImpl(24, TicketEventLog.DISABLED, new TicketChangeBus(65536));
+            cluster[i] = new ClusterNode(stores[i], nodeTransport, 65536, 5000);
+            cluster[i].start();
+        }
+        entry = new ClusteredTicketService(cluster[0]);
+        ClusteredTicketService other = new ClusteredTicketService(cluster[1]);
+
+        ownedByEntry = new String[tickets / 2];
+        ownedByOther = new String[tickets / 2];
+        for (int i = 0; i < tickets / 2; i++) {
+            ownedByEntry[i] = entry.createTicket("Printer not working", "Paper jam on the third floor").getId();
+            ownedByOther[i] = other.createTicket("VPN drops", "Disconnects every few minutes").getId();
+        }
+        for (TicketServiceImpl store : stores) {
+            while (store.getAllTickets().size() < tickets / 2 * 2) {
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopCluster() throws IOException {
+        for (ClusterNode node : cluster) {
+            node.close();
+        }
+    }
+
+    @Benchmark
+    public Ticket ownerWrite() {
+        return entry.assignTicket(random(ownedByEntry), agent());
+    }
+
+    @Benchmark
+    public Ticket forwardedWrite() {
+        return entry.assignTicket(random(ownedByOther), agent());
+    }
+
+    // From the owner's write until the last node serves the new version
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long replicationLag() {
+        Ticket written = entry.assignTicket(random(ownedByEntry), agent());
+        TicketServiceImpl replica = stores[nodes - 1];
+        long version;
+        while ((version = replica.getTicket(written.getId()).getVersion()) < written.getVersion()) {
+            Thread.onSpinWait();
+        }
+        return version;
+    }
+
+    private static String random(String[] ids) {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    private static String agent() {
+        return "support.agent" + ThreadLocalRandom.current().nextInt(50);
+    }
+
+    private static List<InetSocketAddress> freeAddresses(int count) throws IOException {
+        List<InetSocketAddress> addresses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            try (ServerSocket probe = new ServerSocket(0)) {
+                addresses.add(new InetSocketAddress("127.0.0.1", probe.getLocalPort()));
+            }
+        }
+        return addresses;
+    }
+}
@@ -0,0 +1,56 @@
+package com.ticketsystem.benchmark;
+
+import com.ticketsystem.model.Reply;
+import com.ticketsystem.model.Ticket;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+
+// The TicketServiceBenchmark methods with eight threads hitting one shared store, plus a "mixed"
+// group where writers and readers run against each other as they do under real traffic.
+@Threads(8)
+public class ContendedTicketServiceBenchmark extends TicketServiceBenchmark {
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public Ticket mixedCreateTicket(WriteState state) {
+        return state.store.service().createTicket("Vpn keeps disconnecting", "Drops every few minutes");
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public Reply mixedAddReply(WriteState state) {
+        return state.store.service().addReply(state.store.randomTicketId(), "Any update on this?", null);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public List<Ticket> mixedSearchTickets(WriteState state) {
+        return state.store.service().searchTickets(TicketFixtures.SEARCH_TERM, false, 0, 20);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public List<Reply> mixedGetTicketRepliesTree(WriteState state) {
+        return state.store.service().getTicketRepliesTree(state.store.hotTicketId());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public Map<String, Integer> mixedGetTicketStatistics(WriteState state) {
+        return state.store.service().getTicketStatistics();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public List<Ticket> mixedGetRecentTickets(WriteState state) {
+        return state.store.service().getRecentTickets(10);
+    }
+}
@@ -0,0 +1,138 @@
+package com.ticketsystem.benchmark;
+
+import com.ticketsystem.model.Reply;
+import com.ticketsystem.model.Ticket;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Retained heap per ticket, measured as used heap after a full GC. "legacy" and "compact" build
+// the same tickets and replies as bare model objects, in the old layout (Date fields, String
+// status, an ArrayList per reply) and in the current one; "store" is a whole TicketServiceImpl
+// with its indexes, search index and reply threads. Read the bytesPerTicket counter, not the time.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx16g", "-XX:+UseParallelGC"})
+@State(Scope.Benchmark)
+public class HeapFootprintBenchmark {
+    @Param({"100000", "1000000"})
+    public int tickets;
+
+    @Param({"legacy", "compact", "store"})
+    public String layout;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public double bytesPerTicket;
+    }
+
+    @Benchmark
+    public Object retain(Footprint footprint) {
+        long before = usedHeap();
+        Object retained = switch (layout) {
+            case "legacy" -> legacyTickets(tickets);
+            case "compact" -> compactTickets(tickets);
+            default -> TicketFixtures.populate(tickets, 42);
+        };
+        footprint.bytesPerTicket = (double) (usedHeap() - before) / tickets;
+        return retained;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static List<LegacyTicket> legacyTickets(int count) {
+        SplittableRandom random = new SplittableRandom(42);
+        long now = System.currentTimeMillis();
+        List<LegacyTicket> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LegacyTicket ticket = new LegacyTicket();
+            ticket.id = TicketFixtures.id(random);
+            ticket.title = TicketFixtures.title(random);
+            ticket.description = TicketFixtures.description(random);
+            ticket.status = "OPEN";
+            ticket.assignedTo = TicketFixtures.userId(random);
+            ticket.replies = new ArrayList<>();
+            ticket.createdAt = new Date(now);
+            ticket.lastUpdatedAt = new Date(now);
+            if (i % 10 == 0) {
+                for (int r = 0; r < 2; r++) {
+                    LegacyReply reply = new LegacyReply();
+                    reply.id = TicketFixtures.id(random);
+                    reply.content = "Thanks, that fixed it";
+                    reply.timestamp = new Date(now);
+                    reply.children = new ArrayList<>();
+                    ticket.replies.add(reply);
+                }
+            }
+            result.add(ticket);
+        }
+        return result;
+    }
+
+    private static List<Ticket> compactTickets(int count) {
+        SplittableRandom random = new SplittableRandom(42);
+        Date now = new Date();
+        List<Ticket> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Ticket ticket = new Ticket();
+            ticket.setId(TicketFixtures.id(random));
+            ticket.setTitle(TicketFixtures.title(random));
+            ticket.setDescription(TicketFixtures.description(random));
+            ticket.setStatus("OPEN");
+            ticket.setAssignedTo(TicketFixtures.userId(random));
+            ticket.setReplies(List.of());
+            ticket.setCreatedAt(now);
+            ticket.setLastUpdatedAt(now);
+            if (i % 10 == 0) {
+                List<Reply> replies = new ArrayList<>(2);
+                for (int r = 0; r < 2; r++) {
+                    Reply reply = new Reply();
+                    reply.setId(TicketFixtures.id(random));
+                    reply.setContent("Thanks, that fixed it");
+                    reply.setTimestamp(now);
+                    reply.setChildren(List.of());
+                    replies.add(reply);
+                }
+                ticket.setReplies(replies);
+            }
+            result.add(ticket);
+        }
+        return result;
+    }
+
+    // The model layout before tickets were stored compactly
+    private static final class LegacyTicket {
+        String id;
+        String title;
+        String description;
+        String status;
+        String assignedTo;
+        List<LegacyReply> replies;
+        Date createdAt;
+        Date lastUpdatedAt;
+        Date resolvedAt;
+        long version;
+    }
+
+    private static final class LegacyReply {
+        String id;
+        String content;
+        String parentId;
+        Date timestamp;
+        Date lastEditedAt;
+        List<LegacyReply> children;
+    }
+}
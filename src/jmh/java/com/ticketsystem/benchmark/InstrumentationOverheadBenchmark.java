@@ -0,0 +1,66 @@
+package com.ticketsystem.benchmark;
+
+import com.ticketsystem.metrics.MetricsRegistry;
+import com.ticketsystem.metrics.OperationMetrics;
+import com.ticketsystem.model.Ticket;
+import com.ticketsystem.service.impl.InstrumentedTicketService;
+import com.ticketsystem.service.impl.TicketServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Cost of the metrics decorator: getTicket (a cheap call, so the overhead stands out) with and
+// without instrumentation, and the bare recording step on one and on eight threads
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InstrumentationOverheadBenchmark {
+    private TicketServiceImpl plain;
+    private InstrumentedTicketService instrumented;
+    private OperationMetrics metrics;
+    private String ticketId;
+
+    @Setup
+    public void setup() {
+        TicketFixtures.Store store = TicketFixtures.populate(10_000, 42);
+        plain = store.service();
+        instrumented = new InstrumentedTicketService(plain, new MetricsRegistry());
+        metrics = new MetricsRegistry().operation("benchmark");
+        ticketId = store.ticketIds().get(store.ticketIds().size() / 2);
+    }
+
+    @Benchmark
+    public Ticket getTicketPlain() {
+        return plain.getTicket(ticketId);
+    }
+
+    @Benchmark
+    public Ticket getTicketInstrumented() {
+        return instrumented.getTicket(ticketId);
+    }
+
+    @Benchmark
+    public List<Ticket> getRecentTicketsInstrumented() {
+        return instrumented.getRecentTickets(10);
+    }
+
+    @Benchmark
+    public List<Ticket> getRecentTicketsPlain() {
+        return plain.getRecentTickets(10);
+    }
+
+    @Benchmark
+    public void record() {
+        metrics.recordSuccess(System.nanoTime(), 10);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void recordContended() {
+        metrics.recordSuccess(System.nanoTime(), 10);
+    }
+}
@@ -0,0 +1,69 @@
+package com.ticketsystem.benchmark;
+
+import com.ticketsystem.events.TicketChangeBus;
+import com.ticketsystem.model.Ticket;
+import com.ticketsystem.persistence.TicketEventLog;
+import com.ticketsystem.service.impl.TicketServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Store throughput as threads are added, for a single shard (the unpartitioned layout) and for
+// many. JMH takes the thread count per run, so sweep it from the command line, pinning the JVM to
+// as many processors as threads:
+//   for t in 1 2 4 8 16 32; do
+//     mvn -Pjmh compile exec:exec -Djmh.args="ShardScalingBenchmark -t $t -jvmArgsAppend -XX:ActiveProcessorCount=$t"
+//   done
+// Writes grow the store, so it is rebuilt before every iteration and iterations are kept short.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx16g")
+@State(Scope.Benchmark)
+public class ShardScalingBenchmark {
+    @Param({"1", "32"})
+    public int shards;
+
+    @Param({"100000"})
+    public int tickets;
+
+    private TicketFixtures.Store store;
+
+    @Setup(Level.Iteration)
+    public void populate() {
+        TicketServiceImpl service = new TicketServiceImpl(24, TicketEventLog.DISABLED, new TicketChangeBus(65536), shards);
+        store = TicketFixtures.populate(service, tickets, 42);
+    }
+
+    @Benchmark
+    public Ticket createTicket() {
+        return store.service().createTicket("Printer not working", "Paper jam on the third floor");
+    }
+
+    @Benchmark
+    public Ticket assignTicket() {
+        return store.service().assignTicket(store.randomTicketId(),
+                "support.agent" + ThreadLocalRandom.current().nextInt(50));
+    }
+
+    // Scatter-gather: every shard scores its own candidates, the pages are merged
+    @Benchmark
+    public List<Ticket> searchTickets() {
+        return store.service().searchTickets(TicketFixtures.SEARCH_TERM, false, 0, 20);
+    }
+
+    // k-way merge of the shards' newest-first indexes
+    @Benchmark
+    public List<Ticket> getRecentTickets() {
+        return store.service().getRecentTickets(10);
+    }
+
+    @Benchmark
+    public Map<String, Integer> getTicketStatistics() {
+        return store.service().getTicketStatistics();
+    }
+}
@@ -0,0 +1,67 @@
+package com.ticketsystem.benchmark;
+
+import com.ticketsystem.sla.TimerWheel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Deadline operations on a timer wheel holding millions of pending SLA deadlines, spread over the
+// next week with the scheduler's default one-second tick. Scheduling moves a ticket's deadline, as
+// a status change does; cancelling and scheduling again is a resolve followed by a new ticket.
+// advanceOneTick expires what came due in one second and schedules those tickets a week out again,
+// so the number pending stays the same.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class SlaSchedulerBenchmark {
+    private static final long TICK_MILLIS = 1000;
+    private static final long WEEK_MILLIS = TimeUnit.DAYS.toMillis(7);
+
+    @Param({"1000000", "4000000"})
+    public int pending;
+
+    private TimerWheel<String> wheel;
+    private String[] ticketIds;
+    private long now;
+
+    @Setup(Level.Trial)
+    public void scheduleDeadlines() {
+        wheel = new TimerWheel<>(TICK_MILLIS, 65536, 0);
+        ticketIds = new String[pending];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < pending; i++) {
+            ticketIds[i] = "ticket-" + i;
+            wheel.schedule(ticketIds[i], 1 + random.nextLong(WEEK_MILLIS));
+        }
+    }
+
+    @Benchmark
+    public void reschedule() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        wheel.schedule(ticketIds[random.nextInt(pending)], now + 1 + random.nextLong(WEEK_MILLIS));
+    }
+
+    @Benchmark
+    public boolean cancelAndSchedule() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String ticketId = ticketIds[random.nextInt(pending)];
+        boolean cancelled = wheel.cancel(ticketId);
+        wheel.schedule(ticketId, now + 1 + random.nextLong(WEEK_MILLIS));
+        return cancelled;
+    }
+
+    @Benchmark
+    public int advanceOneTick() {
+        now += TICK_MILLIS;
+        List<String> expired = wheel.expire(now);
+        for (String ticketId : expired) {
+            wheel.schedule(ticketId, now + WEEK_MILLIS);
+        }
+        return expired.size();
+    }
+}
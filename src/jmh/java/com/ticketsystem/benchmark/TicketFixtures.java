@@ -0,0 +1,106 @@
+package com.ticketsystem.benchmark;
+
+import com.ticketsystem.model.Reply;
+import com.ticketsystem.model.Ticket;
+import com.ticketsystem.service.impl.TicketServiceImpl;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Deterministic store contents shared by the benchmarks: a status and department mix close to a
+// real help desk, creation times spread over the last 25 hours (so about one open ticket in 25 is
+// past the default 24 hour SLA) and one large reply thread for the tree benchmarks.
+final class TicketFixtures {
+    static final String SEARCH_TERM = "printer";
+    static final int HOT_THREAD_REPLIES = 500;
+
+    private static final String[] SUBJECTS = {
+            "printer", "vpn", "laptop", "password", "email", "monitor", "badge", "wifi",
+            "payroll", "invoice", "database", "backup", "license", "keyboard", "phone", "calendar"
+    };
+    private static final String[] PROBLEMS = {
+            "not working", "keeps disconnecting", "needs replacement", "access denied",
+            "very slow", "shows an error", "cannot be found", "stopped syncing"
+    };
+    private static final String[] DEPARTMENTS = {"support", "network", "hr", "finance", "facilities", "it"};
+    private static final long SPREAD_MILLIS = TimeUnit.HOURS.toMillis(25);
+
+    private TicketFixtures() {
+    }
+
+    static Store populate(int ticketCount, long seed) {
+        return populate(new TicketServiceImpl(), ticketCount, seed);
+    }
+
+    static Store populate(TicketServiceImpl service, int ticketCount, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        long now = System.currentTimeMillis();
+        List<String> ids = new ArrayList<>(ticketCount);
+
+        for (int i = 0; i < ticketCount; i++) {
+            Ticket created = service.createTicket(title(random), description(random));
+            ids.add(created.getId());
+
+            Ticket ticket = new Ticket(created);
+            ticket.setCreatedAt(new Date(now - random.nextLong(SPREAD_MILLIS)));
+            int roll = random.nextInt(100);
+            if (roll >= 40) {
+                ticket.setAssignedTo(userId(random));
+                ticket.setStatus(roll < 65 ? "IN_PROGRESS" : roll < 90 ? "RESOLVED" : "CLOSED");
+                if (roll >= 65) {
+                    ticket.setResolvedAt(new Date(now));
+                }
+            }
+            service.updateTicket(ticket);
+
+            if (i % 10 == 0) {
+                Reply first = service.addReply(created.getId(), "Looking into the " + title(random), null);
+                service.addReply(created.getId(), "Thanks, that fixed it", first.getId());
+            }
+        }
+
+        String hotTicketId = service.createTicket("Outage: " + title(random), description(random)).getId();
+        ids.add(hotTicketId);
+        List<String> replyIds = new ArrayList<>(HOT_THREAD_REPLIES);
+        for (int i = 0; i < HOT_THREAD_REPLIES; i++) {
+            // Roughly a third of replies start a new branch, the rest answer an earlier reply
+            String parentId = replyIds.isEmpty() || random.nextInt(3) == 0
+                    ? null : replyIds.get(random.nextInt(replyIds.size()));
+            replyIds.add(service.addReply(hotTicketId, "Update " + i + ": " + description(random), parentId).getId());
+        }
+        return new Store(service, ids, hotTicketId);
+    }
+
+    static String title(SplittableRandom random) {
+        return capitalize(SUBJECTS[random.nextInt(SUBJECTS.length)]) + " " + PROBLEMS[random.nextInt(PROBLEMS.length)];
+    }
+
+    static String description(SplittableRandom random) {
+        return "User reports the " + SUBJECTS[random.nextInt(SUBJECTS.length)] + " "
+                + PROBLEMS[random.nextInt(PROBLEMS.length)] + " since " + (1 + random.nextInt(28))
+                + " days, affecting the " + DEPARTMENTS[random.nextInt(DEPARTMENTS.length)] + " team";
+    }
+
+    static String id(SplittableRandom random) {
+        return new UUID(random.nextLong(), random.nextLong()).toString();
+    }
+
+    static String userId(SplittableRandom random) {
+        return DEPARTMENTS[random.nextInt(DEPARTMENTS.length)] + ".agent" + random.nextInt(50);
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+
+    record Store(TicketServiceImpl service, List<String> ticketIds, String hotTicketId) {
+        String randomTicketId() {
+            return ticketIds.get(ThreadLocalRandom.current().nextInt(ticketIds.size()));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.ticketsystem.benchmark;
+
+import com.ticketsystem.model.Reply;
+import com.ticketsystem.model.ReplyTreePage;
+import com.ticketsystem.model.Ticket;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Single-threaded cost of the TicketServiceImpl hot paths at increasing store sizes.
+// ContendedTicketServiceBenchmark runs the same methods from several threads at once.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx16g")
+public class TicketServiceBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class ReadState {
+        @Param({"10000", "100000", "1000000"})
+        public int tickets;
+
+        TicketFixtures.Store store;
+
+        @Setup(Level.Trial)
+        public void populate() {
+            store = TicketFixtures.populate(tickets, 42);
+        }
+    }
+
+    // Writes grow the store, so it is rebuilt before every iteration and iterations are kept
+    // short; the parameter is the size each iteration starts from
+    @State(Scope.Benchmark)
+    public static class WriteState {
+        @Param({"10000", "100000", "1000000"})
+        public int tickets;
+
+        TicketFixtures.Store store;
+
+        @Setup(Level.Iteration)
+        public void populate() {
+            store = TicketFixtures.populate(tickets, 42);
+        }
+    }
+
+    @Benchmark
+    @Warmup(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 10, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+    public Ticket createTicket(WriteState state) {
+        return state.store.service().createTicket("Printer not working", "Paper jam on the third floor");
+    }
+
+    @Benchmark
+    @Warmup(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 10, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+    public Reply addReply(WriteState state) {
+        return state.store.service().addReply(state.store.randomTicketId(), "Restarted the spooler", null);
+    }
+
+    @Benchmark
+    public List<Reply> getTicketRepliesTree(ReadState state) {
+        return state.store.service().getTicketRepliesTree(state.store.hotTicketId());
+    }
+
+    @Benchmark
+    public ReplyTreePage getTicketRepliesTreePage(ReadState state) {
+        return state.store.service().getTicketRepliesTree(state.store.hotTicketId(), null, null, 3, 50);
+    }
+
+    @Benchmark
+    public Ticket getTicket(ReadState state) {
+        return state.store.service().getTicket(state.store.hotTicketId());
+    }
+
+    @Benchmark
+    public Ticket getTicketWithoutReplies(ReadState state) {
+        return state.store.service().getTicket(state.store.hotTicketId(), false);
+    }
+
+    @Benchmark
+    public List<Ticket> searchTickets(ReadState state) {
+        return state.store.service().searchTickets(TicketFixtures.SEARCH_TERM, false, 0, 20);
+    }
+
+    @Benchmark
+    public Map<String, Integer> getTicketStatistics(ReadState state) {
+        return state.store.service().getTicketStatistics();
+    }
+
+    @Benchmark
+    public List<Ticket> getRecentTickets(ReadState state) {
+        return state.store.service().getRecentTickets(10);
+    }
+
+    @Benchmark
+    public List<Ticket> getOverdueTickets(ReadState state) {
+        return state.store.service().getOverdueTickets();
+    }
+}
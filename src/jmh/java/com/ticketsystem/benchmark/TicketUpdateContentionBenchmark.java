@@ -0,0 +1,102 @@
+package com.ticketsystem.benchmark;
+
+import com.ticketsystem.model.Ticket;
+import com.ticketsystem.model.TicketPatch;
+import com.ticketsystem.service.TicketService;
+import com.ticketsystem.service.TicketVersionConflictException;
+import com.ticketsystem.service.impl.TicketServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Sixteen threads updating a handful of hot tickets. Every successful change moves a ticket
+// exactly one version forward, so after each iteration the versions gained must equal the
+// changes that reported success; a lost update fails the run.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class TicketUpdateContentionBenchmark {
+    @Param({"1", "8"})
+    public int hotTickets;
+
+    private TicketServiceImpl service;
+    private List<String> ids;
+    private final LongAdder changes = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private long versionsBefore;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        service = new TicketServiceImpl();
+        ids = new ArrayList<>(hotTickets);
+        for (int i = 0; i < hotTickets; i++) {
+            ids.add(service.createTicket("Hot ticket " + i, "Everyone is working on this one").getId());
+        }
+        changes.reset();
+        conflicts.reset();
+        versionsBefore = totalVersion();
+    }
+
+    @TearDown(Level.Iteration)
+    public void checkNoLostUpdates() {
+        long gained = totalVersion() - versionsBefore;
+        if (gained != changes.sum()) {
+            throw new IllegalStateException("Lost updates: " + changes.sum() + " changes but versions moved by " + gained);
+        }
+    }
+
+    // Same path as before versioning: an unconditional single-field change
+    @Benchmark
+    public Ticket assign() {
+        Ticket ticket = service.assignTicket(hotTicket(), "support.agent" + ThreadLocalRandom.current().nextInt(50));
+        changes.increment();
+        return ticket;
+    }
+
+    @Benchmark
+    public Ticket patchUnconditional() {
+        TicketPatch patch = new TicketPatch();
+        patch.setAssignedTo("network.agent" + ThreadLocalRandom.current().nextInt(50));
+        Ticket ticket = service.patchTicket(hotTicket(), patch, TicketService.ANY_VERSION);
+        changes.increment();
+        return ticket;
+    }
+
+    // Read, modify, write with the version read; retried on conflict like an If-Match client
+    @Benchmark
+    public Ticket readModifyWrite() {
+        String id = hotTicket();
+        while (true) {
+            Ticket current = service.getTicket(id);
+            Ticket changed = new Ticket(current);
+            changed.setDescription(current.getDescription().length() > 200 ? "Reset" : current.getDescription() + ".");
+            try {
+                Ticket ticket = service.updateTicket(changed, current.getVersion());
+                changes.increment();
+                return ticket;
+            } catch (TicketVersionConflictException e) {
+                conflicts.increment();
+            }
+        }
+    }
+
+    private String hotTicket() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+
+    private long totalVersion() {
+        long total = 0;
+        for (String id : ids) {
+            total += service.getTicket(id).getVersion();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,114 @@
+package com.ticketsystem.benchmark;
+
+import com.ticketsystem.events.TicketChangeBus;
+import com.ticketsystem.model.Ticket;
+import com.ticketsystem.persistence.SegmentTicketArchive;
+import com.ticketsystem.persistence.TicketArchive;
+import com.ticketsystem.persistence.TicketEventLog;
+import com.ticketsystem.service.impl.TicketServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Heap and GC cost of a store in which nine tickets in ten are resolved, a third of those with
+// two replies, kept entirely on the heap ("heap") or with the resolved tickets archived ("archive").
+// An iteration reads 200K random tickets by id, most of them archived, and creates 100K more.
+// Read the counters, not the time: usedHeapMb after a full GC, fullGcMillis for that collection,
+// which grows with the live heap, and gcMillis for the collections during the reads and creates.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx16g", "-XX:+UseG1GC"})
+@State(Scope.Benchmark)
+public class TieredStorageBenchmark {
+    private static final int READS = 200_000;
+    private static final int CREATES = 100_000;
+    private static final double MB = 1024 * 1024;
+
+    @Param({"1000000", "5000000"})
+    public int tickets;
+
+    @Param({"heap", "archive"})
+    public String tier;
+
+    private TicketServiceImpl service;
+    private TicketArchive archive = TicketArchive.DISABLED;
+    private String[] ids;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class GcCounters {
+        public double usedHeapMb;
+        public double fullGcMillis;
+        public double gcMillis;
+    }
+
+    @Setup(Level.Trial)
+    public void populate() throws IOException {
+        if ("archive".equals(tier)) {
+            Path directory = Files.createTempDirectory("ticket-archive");
+            archive = new SegmentTicketArchive(directory, 64L * 1024 * 1024);
+        }
+        // Tickets are archived as soon as they are resolved
+        service = new TicketServiceImpl(24, TicketEventLog.DISABLED, new TicketChangeBus(1024), 0, archive, 0, 10_000);
+        SplittableRandom random = new SplittableRandom(42);
+        ids = new String[tickets];
+        for (int i = 0; i < tickets; i++) {
+            Ticket ticket = service.createTicket(TicketFixtures.title(random), TicketFixtures.description(random));
+            ids[i] = ticket.getId();
+            if (random.nextInt(10) == 0) {
+                service.assignTicket(ticket.getId(), TicketFixtures.userId(random));
+                continue;
+            }
+            if (random.nextInt(3) == 0) {
+                service.addReply(ticket.getId(), "Could you attach a screenshot?", null);
+                service.addReply(ticket.getId(), "Thanks, that fixed it", null);
+            }
+            service.resolveTicket(ticket.getId());
+        }
+        service.archiveResolved();
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        archive.close();
+    }
+
+    @Benchmark
+    public int readAndCreate(GcCounters counters) {
+        long gcBefore = gcMillis();
+        SplittableRandom random = new SplittableRandom(7);
+        int found = 0;
+        for (int i = 0; i < READS; i++) {
+            if (service.getTicket(ids[random.nextInt(ids.length)]) != null) {
+                found++;
+            }
+        }
+        for (int i = 0; i < CREATES; i++) {
+            service.createTicket("Printer offline", "The printer on the third floor is offline");
+        }
+        counters.gcMillis = gcMillis() - gcBefore;
+
+        long fullGcBefore = gcMillis();
+        System.gc();
+        counters.fullGcMillis = gcMillis() - fullGcBefore;
+        Runtime runtime = Runtime.getRuntime();
+        counters.usedHeapMb = (runtime.totalMemory() - runtime.freeMemory()) / MB;
+        return found;
+    }
+
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, collector.getCollectionTime());
+        }
+        return total;
+    }
+}
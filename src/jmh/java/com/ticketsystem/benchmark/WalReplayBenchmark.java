@@ -0,0 +1,67 @@
+package com.ticketsystem.benchmark;
+
+import com.ticketsystem.persistence.FileTicketEventLog;
+import com.ticketsystem.persistence.FsyncPolicy;
+import com.ticketsystem.service.impl.TicketServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Startup recovery time: rebuilding the store, its indexes and reply threads from the event log,
+// either from the raw mutation history or from a snapshot of the same state
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx16g")
+@State(Scope.Benchmark)
+public class WalReplayBenchmark {
+    private static final long SEGMENT_BYTES = 256L * 1024 * 1024;
+
+    @Param({"100000", "1000000"})
+    public int tickets;
+
+    @Param({"log", "snapshot"})
+    public String source;
+
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void writeLog() throws IOException {
+        directory = Files.createTempDirectory("ticket-replay-bench");
+        try (FileTicketEventLog log = new FileTicketEventLog(directory, FsyncPolicy.NEVER, 50, SEGMENT_BYTES)) {
+            TicketServiceImpl service = new TicketServiceImpl(24, log);
+            TicketFixtures.populate(service, tickets, 42);
+            if ("snapshot".equals(source)) {
+                service.snapshot();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteLog() throws IOException {
+        deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public TicketServiceImpl recover() throws IOException {
+        try (FileTicketEventLog log = new FileTicketEventLog(directory, FsyncPolicy.NEVER, 50, SEGMENT_BYTES)) {
+            TicketServiceImpl service = new TicketServiceImpl(24, log);
+            service.recover();
+            return service;
+        }
+    }
+
+    static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.ticketsystem.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.cbor.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileMapper;
+import com.ticketsystem.controller.TicketController;
+import com.ticketsystem.model.Reply;
+import com.ticketsystem.model.Ticket;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Encoding a Result of 10K tickets, or of the 500-reply tree, as the server does, and decoding it
+// as a client does, in each wire format, optionally gzipped as server.compression sends it. Read
+// the payloadBytes counter for the size on the wire.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class WireFormatBenchmark {
+    @Param({"tickets", "replies"})
+    public String payload;
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    @Param({"none", "gzip"})
+    public String compression;
+
+    private ObjectMapper mapper;
+    private ObjectReader clientReader;
+    private TicketController.Result<?> response;
+    private byte[] encoded;
+
+    // What a client maps the response into
+    public static class TicketsResponse {
+        public List<Ticket> data;
+        public String message;
+        public boolean success;
+        public String operation;
+        public long timestamp;
+    }
+
+    public static class RepliesResponse {
+        public List<Reply> data;
+        public String message;
+        public boolean success;
+        public String operation;
+        public long timestamp;
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Size {
+        public long payloadBytes;
+    }
+
+    @Setup(Level.Trial)
+    public void encodeResponse() throws IOException {
+        mapper = switch (format) {
+            case "cbor" -> new CBORMapper();
+            case "smile" -> new SmileMapper();
+            default -> new ObjectMapper();
+        };
+        TicketFixtures.Store store = TicketFixtures.populate(10_000, 42);
+        if (payload.equals("replies")) {
+            response = TicketController.Result.success(
+                    store.service().getTicketRepliesTree(store.hotTicketId()), "GET_TICKET_REPLIES");
+            clientReader = mapper.readerFor(RepliesResponse.class);
+        } else {
+            response = TicketController.Result.success(store.service().getAllTickets(), "GET_ALL_TICKETS");
+            clientReader = mapper.readerFor(TicketsResponse.class);
+        }
+        encoded = serialize(new Size());
+    }
+
+    @Benchmark
+    public byte[] serialize(Size size) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(encoded != null ? encoded.length : 1 << 20);
+        try (OutputStream out = compressed(bytes)) {
+            mapper.writeValue(out, response);
+        }
+        size.payloadBytes = bytes.size();
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public Object deserialize() throws IOException {
+        try (InputStream in = decompressed(new ByteArrayInputStream(encoded))) {
+            return clientReader.readValue(in);
+        }
+    }
+
+    private OutputStream compressed(OutputStream out) throws IOException {
+        return compression.equals("gzip") ? new GZIPOutputStream(out, 1 << 16) : out;
+    }
+
+    private InputStream decompressed(InputStream in) throws IOException {
+        return compression.equals("gzip") ? new GZIPInputStream(in, 1 << 16) : in;
+    }
+}
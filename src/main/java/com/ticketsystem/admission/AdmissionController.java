@@ -0,0 +1,140 @@
+package com.ticketsystem.admission;
+
+import com.ticketsystem.metrics.AdmissionMetrics;
+import com.ticketsystem.metrics.MetricsRegistry;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Bounds the requests handled at once. Reads may take any of the slots; writes and bulk writes
+// may each hold only their own smaller share, so a write flood leaves the rest of the slots to
+// reads. A share of 0 scales with the processors, as writes mostly compete with reads for CPU.
+// A request that finds no slot waits in a bounded queue of its priority, and no request is let
+// in while one of a higher priority waits. A request that finds its queue full, or is still
+// waiting when the timeout passes, is shed.
+final class AdmissionController {
+    private static final Priority[] PRIORITIES = Priority.values();
+    private static final int WRITES_PER_PROCESSOR = 4;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition[] admittable = new Condition[PRIORITIES.length];
+    private final int maxConcurrent;
+    private final int[] limits = new int[PRIORITIES.length];
+    private final int queueCapacity;
+    private final long queueTimeoutNanos;
+    private final AdmissionMetrics[] metrics = new AdmissionMetrics[PRIORITIES.length];
+    // Guarded by lock
+    private final int[] running = new int[PRIORITIES.length];
+    private final int[] waiting = new int[PRIORITIES.length];
+    private int runningTotal;
+
+    AdmissionController(int maxConcurrent, int maxWrites, int maxBulk, int queueCapacity, long queueTimeoutMillis,
+                        MetricsRegistry metricsRegistry) {
+        if (maxConcurrent < 1 || maxWrites < 0 || maxBulk < 0 || queueCapacity < 0 || queueTimeoutMillis < 0) {
+            throw new IllegalArgumentException("Admission limits must be positive");
+        }
+        int processors = Runtime.getRuntime().availableProcessors();
+        this.maxConcurrent = maxConcurrent;
+        this.limits[Priority.READ.ordinal()] = maxConcurrent;
+        this.limits[Priority.WRITE.ordinal()] = Math.min(maxWrites > 0 ? maxWrites : WRITES_PER_PROCESSOR * processors, maxConcurrent);
+        this.limits[Priority.BULK.ordinal()] = Math.min(maxBulk > 0 ? maxBulk : processors, maxConcurrent);
+        this.queueCapacity = queueCapacity;
+        this.queueTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(queueTimeoutMillis);
+        for (Priority priority : PRIORITIES) {
+            admittable[priority.ordinal()] = lock.newCondition();
+            metrics[priority.ordinal()] = metricsRegistry.admission(priority.label());
+        }
+    }
+
+    // True when the request holds a slot and must release it; false when it was shed
+    boolean acquire(Priority priority) {
+        int p = priority.ordinal();
+        long start = System.nanoTime();
+        lock.lock();
+        try {
+            if (waitingFrom(p) == 0 && hasSlot(p)) {
+                admit(p, 0);
+                return true;
+            }
+            if (waiting[p] >= queueCapacity) {
+                metrics[p].recordQueueFull();
+                return false;
+            }
+            waiting[p]++;
+            metrics[p].setQueued(waiting[p]);
+            try {
+                long remaining = queueTimeoutNanos;
+                while (waitingFrom(p - 1) > 0 || !hasSlot(p)) {
+                    if (remaining <= 0) {
+                        metrics[p].recordTimedOut();
+                        return false;
+                    }
+                    remaining = admittable[p].awaitNanos(remaining);
+                }
+                admit(p, System.nanoTime() - start);
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                metrics[p].recordTimedOut();
+                return false;
+            } finally {
+                waiting[p]--;
+                metrics[p].setQueued(waiting[p]);
+                // Leaving the queue may let a lower priority in, or pass a slot on
+                signalNext();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void release(Priority priority) {
+        int p = priority.ordinal();
+        lock.lock();
+        try {
+            running[p]--;
+            runningTotal--;
+            metrics[p].setInFlight(running[p]);
+            signalNext();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long queueTimeoutNanos() {
+        return queueTimeoutNanos;
+    }
+
+    private void admit(int p, long waitNanos) {
+        running[p]++;
+        runningTotal++;
+        metrics[p].setInFlight(running[p]);
+        metrics[p].recordAdmitted(waitNanos);
+    }
+
+    private boolean hasSlot(int p) {
+        return runningTotal < maxConcurrent && running[p] < limits[p];
+    }
+
+    // Requests waiting at this priority and above
+    private int waitingFrom(int p) {
+        int total = 0;
+        for (int i = 0; i <= p; i++) {
+            total += waiting[i];
+        }
+        return total;
+    }
+
+    // Wakes one waiter of the highest priority that waits, if it can be let in now
+    private void signalNext() {
+        for (int p = 0; p < PRIORITIES.length; p++) {
+            if (waiting[p] > 0) {
+                if (hasSlot(p)) {
+                    admittable[p].signal();
+                }
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.ticketsystem.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticketsystem.controller.TicketController.Result;
+import com.ticketsystem.metrics.AdmissionMetrics;
+import com.ticketsystem.metrics.MetricsRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Turns away write floods before they reach the controllers. Writes are rate limited per client,
+// keyed by the client header or else the remote address, then every request passes admission
+// control; a request turned away by either gets 429 with a Retry-After. The metrics endpoint is
+// let through so overload stays observable. Long polls and streams hold their slot only until
+// they go async.
+@Component
+public class AdmissionFilter extends OncePerRequestFilter {
+    private static final String METRICS_PATH = "/api/tickets/metrics";
+
+    private final ObjectMapper objectMapper;
+    private final AdmissionMetrics[] metrics = new AdmissionMetrics[Priority.values().length];
+    private final RateLimiter rateLimiter;
+    private final AdmissionController admission;
+    private final String clientHeader;
+
+    @Autowired
+    public AdmissionFilter(ObjectMapper objectMapper, MetricsRegistry metricsRegistry,
+                           @Value("${ticket.ratelimit.enabled:false}") boolean rateLimitEnabled,
+                           @Value("${ticket.ratelimit.writes-per-second:50}") double writesPerSecond,
+                           @Value("${ticket.ratelimit.burst:100}") int burst,
+                           @Value("${ticket.ratelimit.max-clients:100000}") int maxClients,
+                           @Value("${ticket.ratelimit.client-header:X-Client-Id}") String clientHeader,
+                           @Value("${ticket.admission.enabled:true}") boolean admissionEnabled,
+                           @Value("${ticket.admission.max-concurrent:256}") int maxConcurrent,
+                           @Value("${ticket.admission.max-concurrent-writes:0}") int maxWrites,
+                           @Value("${ticket.admission.max-concurrent-bulk:0}") int maxBulk,
+                           @Value("${ticket.admission.queue-capacity:32}") int queueCapacity,
+                           @Value("${ticket.admission.queue-timeout-ms:500}") long queueTimeoutMillis) {
+        this.objectMapper = objectMapper;
+        for (Priority priority : Priority.values()) {
+            metrics[priority.ordinal()] = metricsRegistry.admission(priority.label());
+        }
+        this.rateLimiter = rateLimitEnabled ? new RateLimiter(writesPerSecond, burst, maxClients, System.nanoTime()) : null;
+        this.admission = admissionEnabled
+                ? new AdmissionController(maxConcurrent, maxWrites, maxBulk, queueCapacity, queueTimeoutMillis, metricsRegistry)
+                : null;
+        this.clientHeader = clientHeader;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().equals(METRICS_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Priority priority = Priority.of(request.getMethod(), request.getRequestURI());
+        if (rateLimiter != null && priority != Priority.READ) {
+            long waitNanos = rateLimiter.tryAcquire(client(request), System.nanoTime());
+            if (waitNanos > 0) {
+                metrics[priority.ordinal()].recordRateLimited();
+                reject(response, waitNanos, "Rate limit exceeded", "RATE_LIMIT");
+                return;
+            }
+        }
+        if (admission == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (!admission.acquire(priority)) {
+            reject(response, admission.queueTimeoutNanos(), "Server is busy", "ADMISSION");
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            admission.release(priority);
+        }
+    }
+
+    private String client(HttpServletRequest request) {
+        String client = request.getHeader(clientHeader);
+        return client != null && !client.isBlank() ? client : request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletResponse response, long retryAfterNanos, String message, String operation) throws IOException {
+        long seconds = Math.max(1, (retryAfterNanos + 999_999_999L) / 1_000_000_000L);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), Result.error(message, operation));
+    }
+}
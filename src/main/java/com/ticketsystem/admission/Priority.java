@@ -0,0 +1,21 @@
+package com.ticketsystem.admission;
+
+import java.util.Locale;
+
+// Request classes in the order they are served under overload: reads first, bulk writes last
+enum Priority {
+    READ,
+    WRITE,
+    BULK;
+
+    static Priority of(String method, String path) {
+        if (method.equals("GET") || method.equals("HEAD") || method.equals("OPTIONS")) {
+            return READ;
+        }
+        return path.contains("/bulk") ? BULK : WRITE;
+    }
+
+    String label() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,55 @@
+package com.ticketsystem.admission;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// A token bucket per client key. The map is bounded: when it is full, buckets that have filled up
+// again are dropped, at most once a second, since a full bucket is the same as a new one. Clients
+// that still find no room share one overflow bucket until some does, so a flood of new keys is
+// limited as a whole instead of growing the map.
+final class RateLimiter {
+    private static final long SWEEP_INTERVAL_NANOS = 1_000_000_000L;
+
+    private final long intervalNanos;
+    private final int burst;
+    private final int maxClients;
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final TokenBucket overflow;
+    private final AtomicLong nextSweep;
+
+    RateLimiter(double perSecond, int burst, int maxClients, long now) {
+        if (perSecond <= 0 || burst < 1 || maxClients < 1) {
+            throw new IllegalArgumentException("Rate, burst and client limit must be positive");
+        }
+        this.intervalNanos = Math.max(1, (long) (1e9 / perSecond));
+        this.burst = burst;
+        this.maxClients = maxClients;
+        this.overflow = new TokenBucket(intervalNanos, burst, now);
+        this.nextSweep = new AtomicLong(now);
+    }
+
+    // 0 when the client may go ahead, otherwise the nanoseconds until it may
+    long tryAcquire(String client, long now) {
+        TokenBucket bucket = buckets.get(client);
+        if (bucket == null) {
+            if (buckets.size() >= maxClients && !sweep(now)) {
+                return overflow.tryAcquire(now);
+            }
+            bucket = buckets.computeIfAbsent(client, key -> new TokenBucket(intervalNanos, burst, now));
+        }
+        return bucket.tryAcquire(now);
+    }
+
+    int clients() {
+        return buckets.size();
+    }
+
+    // True when there is room for another client afterwards
+    private boolean sweep(long now) {
+        long due = nextSweep.get();
+        if (now - due >= 0 && nextSweep.compareAndSet(due, now + SWEEP_INTERVAL_NANOS)) {
+            buckets.values().removeIf(bucket -> bucket.isFull(now));
+        }
+        return buckets.size() < maxClients;
+    }
+}
@@ -0,0 +1,39 @@
+package com.ticketsystem.admission;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// A token bucket that refills by one token every interval up to its capacity. It is kept as the
+// one time at which it will be full again, so taking a token is a single compare-and-set and an
+// idle bucket needs no refilling. Times are System.nanoTime values.
+final class TokenBucket {
+    private final long intervalNanos;
+    // How far past now the full time may be while at least one token is left
+    private final long slackNanos;
+    private final AtomicLong fullAt;
+
+    TokenBucket(long intervalNanos, int capacity, long now) {
+        this.intervalNanos = intervalNanos;
+        this.slackNanos = (capacity - 1) * intervalNanos;
+        this.fullAt = new AtomicLong(now);
+    }
+
+    // 0 when a token was taken, otherwise the nanoseconds until the next one
+    long tryAcquire(long now) {
+        while (true) {
+            long full = fullAt.get();
+            long wait = full - now - slackNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            long from = full - now > 0 ? full : now;
+            if (fullAt.compareAndSet(full, from + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    // A full bucket behaves exactly like a new one
+    boolean isFull(long now) {
+        return fullAt.get() - now <= 0;
+    }
+}
@@ -0,0 +1,312 @@
+package com.ticketsystem.analytics;
+
+import com.ticketsystem.events.TicketChangeBus;
+import com.ticketsystem.metrics.Histogram;
+import com.ticketsystem.model.ActivityReport;
+import com.ticketsystem.model.DepartmentThroughput;
+import com.ticketsystem.model.ResolutionTimeReport;
+import com.ticketsystem.model.Ticket;
+import com.ticketsystem.model.TicketChange;
+import com.ticketsystem.model.TicketChangeBatch;
+import com.ticketsystem.model.TicketPage;
+import com.ticketsystem.service.TicketService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+
+// Resolution-time, activity and department reports over a columnar copy of the ticket store. A
+// background thread loads the columns from the store and then keeps them current from the change
+// feed, so reports trail writes by a feed poll and never touch Ticket objects. A report splits the
+// rows into chunks scanned in parallel, each a tight loop over primitive arrays into counters of
+// its own that are added up at the end.
+@Service
+public class TicketAnalytics {
+    public static final int MAX_BUCKETS = 10_000;
+    private static final int FEED_BATCH = 4096;
+    private static final long FEED_POLL_SECONDS = 1;
+    private static final int LOAD_PAGE = 10_000;
+    // Large enough that forking costs nothing next to the scan, small enough to spread 1M rows
+    private static final int CHUNK_ROWS = 1 << 16;
+    private static final byte RESOLVED = Ticket.statusCode("RESOLVED");
+    private static final byte CLOSED = Ticket.statusCode("CLOSED");
+    private static final int ALL_DEPARTMENTS = -2;
+
+    private final TicketService ticketService;
+    private final TicketChangeBus changes;
+    private final TicketColumns columns = new TicketColumns();
+    private volatile boolean running;
+    private Thread follower;
+
+    @Autowired
+    public TicketAnalytics(TicketService ticketService, TicketChangeBus changes) {
+        this.ticketService = ticketService;
+        this.changes = changes;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        // Subscribe before loading, so no change in between is missed
+        TicketChangeBus.Subscription subscription = changes.subscribe(-1, TicketAnalytics::affectsColumns);
+        follower = Thread.ofVirtual().name("analytics-feed").start(() -> {
+            load();
+            follow(subscription);
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (follower != null) {
+            follower.interrupt();
+        }
+    }
+
+    // Records a ticket's current state directly, for callers that fill the columns themselves
+    public void update(Ticket ticket) {
+        columns.update(ticket);
+    }
+
+    public int size() {
+        return columns.size();
+    }
+
+    // Tickets created and resolved per bucket between from and to, of one department or of all
+    // when department is null
+    public ActivityReport activity(long from, long to, long bucketMillis, String department) {
+        if (bucketMillis <= 0) {
+            throw new IllegalArgumentException("Bucket must be positive: " + bucketMillis);
+        }
+        checkRange(from, to);
+        long buckets = (to - from - 1) / bucketMillis + 1;
+        if (buckets > MAX_BUCKETS) {
+            throw new IllegalArgumentException("More than " + MAX_BUCKETS + " buckets: " + buckets);
+        }
+        int bucketCount = (int) buckets;
+        TicketColumns.View view = columns.view();
+        int departmentOrdinal = departmentOrdinal(view, department);
+        long[] created = new long[bucketCount];
+        long[] resolved = new long[bucketCount];
+        for (long[] counts : scan(view, departmentOrdinal, (start, end) -> {
+            long[] chunk = new long[bucketCount * 2];
+            long[] createdAt = view.createdAt();
+            long[] resolvedAt = view.resolvedAt();
+            for (int row = start; row < end; row++) {
+                if (departmentOrdinal != ALL_DEPARTMENTS && view.department(row) != departmentOrdinal) {
+                    continue;
+                }
+                long createdTime = createdAt[row];
+                if (createdTime >= from && createdTime < to) {
+                    chunk[(int) ((createdTime - from) / bucketMillis)]++;
+                }
+                long resolvedTime = resolvedAt[row];
+                if (resolvedTime >= from && resolvedTime < to) {
+                    chunk[bucketCount + (int) ((resolvedTime - from) / bucketMillis)]++;
+                }
+            }
+            return chunk;
+        })) {
+            for (int i = 0; i < bucketCount; i++) {
+                created[i] += counts[i];
+                resolved[i] += counts[bucketCount + i];
+            }
+        }
+        return new ActivityReport(from, to, bucketMillis, department, created, resolved);
+    }
+
+    // Resolution times of the tickets resolved between from and to
+    public ResolutionTimeReport resolutionTimes(long from, long to, String department) {
+        checkRange(from, to);
+        TicketColumns.View view = columns.view();
+        int departmentOrdinal = departmentOrdinal(view, department);
+        long[] histogram = new long[Histogram.BUCKETS];
+        long count = 0;
+        long sum = 0;
+        long min = Long.MAX_VALUE;
+        long max = 0;
+        for (ResolutionTimes chunk : scan(view, departmentOrdinal, (start, end) -> {
+            ResolutionTimes times = new ResolutionTimes();
+            long[] createdAt = view.createdAt();
+            long[] resolvedAt = view.resolvedAt();
+            for (int row = start; row < end; row++) {
+                long resolvedTime = resolvedAt[row];
+                long createdTime = createdAt[row];
+                if (resolvedTime < from || resolvedTime >= to || createdTime == Ticket.NO_TIME
+                        || (departmentOrdinal != ALL_DEPARTMENTS && view.department(row) != departmentOrdinal)) {
+                    continue;
+                }
+                times.record(Math.max(0, resolvedTime - createdTime));
+            }
+            return times;
+        })) {
+            for (int i = 0; i < Histogram.BUCKETS; i++) {
+                histogram[i] += chunk.histogram[i];
+            }
+            count += chunk.count;
+            sum += chunk.sum;
+            min = Math.min(min, chunk.min);
+            max = Math.max(max, chunk.max);
+        }
+
+        ResolutionTimeReport report = new ResolutionTimeReport();
+        report.setFrom(from);
+        report.setTo(to);
+        report.setDepartment(department);
+        report.setCount(count);
+        if (count > 0) {
+            report.setMeanMillis(sum / count);
+            report.setMinMillis(min);
+            report.setMaxMillis(max);
+            // A bucket's upper bound can pass the largest value in it
+            report.setMedianMillis(Math.min(max, Histogram.valueAt(histogram, count, 0.5)));
+            report.setP90Millis(Math.min(max, Histogram.valueAt(histogram, count, 0.9)));
+            report.setP99Millis(Math.min(max, Histogram.valueAt(histogram, count, 0.99)));
+        }
+        return report;
+    }
+
+    // Per department, in order of first appearance, with unassigned tickets last
+    public List<DepartmentThroughput> throughput(long from, long to) {
+        checkRange(from, to);
+        TicketColumns.View view = columns.view();
+        int departments = view.departments().size();
+        // created, resolved, resolution time sum and open, each per department plus unassigned
+        int stride = departments + 1;
+        long[] totals = new long[stride * 4];
+        for (long[] chunk : scan(view, ALL_DEPARTMENTS, (start, end) -> {
+            long[] counts = new long[stride * 4];
+            long[] createdAt = view.createdAt();
+            long[] resolvedAt = view.resolvedAt();
+            byte[] status = view.status();
+            for (int row = start; row < end; row++) {
+                int department = view.department(row);
+                int slot = department == TicketColumns.UNASSIGNED ? departments : department;
+                long createdTime = createdAt[row];
+                long resolvedTime = resolvedAt[row];
+                if (createdTime >= from && createdTime < to) {
+                    counts[slot]++;
+                }
+                if (resolvedTime >= from && resolvedTime < to) {
+                    counts[stride + slot]++;
+                    if (createdTime != Ticket.NO_TIME) {
+                        counts[2 * stride + slot] += Math.max(0, resolvedTime - createdTime);
+                    }
+                }
+                if (status[row] != RESOLVED && status[row] != CLOSED) {
+                    counts[3 * stride + slot]++;
+                }
+            }
+            return counts;
+        })) {
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] += chunk[i];
+            }
+        }
+
+        List<DepartmentThroughput> result = new ArrayList<>(stride);
+        for (int slot = 0; slot < stride; slot++) {
+            long created = totals[slot];
+            long resolved = totals[stride + slot];
+            long open = totals[3 * stride + slot];
+            if (created == 0 && resolved == 0 && open == 0) {
+                continue;
+            }
+            long meanResolution = resolved > 0 ? totals[2 * stride + slot] / resolved : 0;
+            String department = slot < departments ? view.departments().get(slot) : null;
+            result.add(new DepartmentThroughput(department, created, resolved, meanResolution, open));
+        }
+        return result;
+    }
+
+    private static final class ResolutionTimes {
+        private final long[] histogram = new long[Histogram.BUCKETS];
+        private long count;
+        private long sum;
+        private long min = Long.MAX_VALUE;
+        private long max;
+
+        private void record(long millis) {
+            histogram[Histogram.bucketOf(millis)]++;
+            count++;
+            sum += millis;
+            min = Math.min(min, millis);
+            max = Math.max(max, millis);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowScan<R> {
+        R scan(int start, int end);
+    }
+
+    // Scans the rows in chunks forked into the common pool, as the store scatters over its shards;
+    // a department with no tickets scans nothing
+    private static <R> List<R> scan(TicketColumns.View view, int departmentOrdinal, RowScan<R> scan) {
+        int rows = departmentOrdinal == TicketColumns.UNASSIGNED ? 0 : view.rows();
+        int chunks = Math.max(1, (rows + CHUNK_ROWS - 1) / CHUNK_ROWS);
+        List<ForkJoinTask<R>> tasks = new ArrayList<>(chunks - 1);
+        for (int i = 1; i < chunks; i++) {
+            int start = i * CHUNK_ROWS;
+            int end = Math.min(rows, start + CHUNK_ROWS);
+            tasks.add(ForkJoinTask.adapt(() -> scan.scan(start, end)).fork());
+        }
+        List<R> results = new ArrayList<>(chunks);
+        results.add(scan.scan(0, Math.min(rows, CHUNK_ROWS)));
+        for (ForkJoinTask<R> task : tasks) {
+            results.add(task.join());
+        }
+        return results;
+    }
+
+    // ALL_DEPARTMENTS for null, UNASSIGNED for a department no ticket is assigned in
+    private static int departmentOrdinal(TicketColumns.View view, String department) {
+        return department != null ? view.departments().indexOf(department) : ALL_DEPARTMENTS;
+    }
+
+    private static void checkRange(long from, long to) {
+        if (from >= to) {
+            throw new IllegalArgumentException("Empty time range: " + from + " to " + to);
+        }
+    }
+
+    private void load() {
+        String cursor = null;
+        do {
+            TicketPage page = ticketService.getAllTickets(cursor, LOAD_PAGE);
+            for (Ticket ticket : page.getItems()) {
+                columns.update(ticket);
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null && running);
+    }
+
+    private void follow(TicketChangeBus.Subscription subscription) {
+        while (running) {
+            try {
+                TicketChangeBatch batch = subscription.poll(FEED_BATCH, FEED_POLL_SECONDS, TimeUnit.SECONDS);
+                if (batch.isTruncated()) {
+                    // Changes were dropped; loading again brings every row up to date
+                    load();
+                    continue;
+                }
+                for (TicketChange change : batch.getChanges()) {
+                    columns.update(change.getTicket());
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                // The rows catch up with the next changes to their tickets
+            }
+        }
+    }
+
+    private static boolean affectsColumns(TicketChange change) {
+        return change.getType() != TicketChange.Type.REPLY_ADDED && change.getType() != TicketChange.Type.REPLY_EDITED;
+    }
+}
@@ -0,0 +1,166 @@
+package com.ticketsystem.analytics;
+
+import com.ticketsystem.model.Ticket;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+// The ticket fields the reports read, one primitive array per field and one row per ticket, in
+// the order tickets were first seen. Assignees are ordinals into a dictionary that also maps each
+// to its department, so a row costs 29 bytes plus its id reference and index slots. Rows are only
+// added: readers take a View under the lock and scan it without, so a row updated during a scan
+// may be read partly before and partly after the update, and an assignee first seen after the
+// View was taken counts as unassigned in it.
+final class TicketColumns {
+    static final int UNASSIGNED = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private String[] ids = new String[INITIAL_CAPACITY];
+    private long[] versions = new long[INITIAL_CAPACITY];
+    private long[] createdAt = new long[INITIAL_CAPACITY];
+    private long[] resolvedAt = new long[INITIAL_CAPACITY];
+    private byte[] status = new byte[INITIAL_CAPACITY];
+    private int[] assignee = new int[INITIAL_CAPACITY];
+    private int rows;
+    // Open addressing over the ids, row + 1 per slot and 0 when empty; kept at most half full
+    private int[] slots = new int[INITIAL_CAPACITY * 2];
+
+    private final Map<String, Integer> assigneeOrdinals = new HashMap<>();
+    // Copied on every new assignee, so a View's copy never changes; there are few of them
+    private int[] assigneeDepartments = new int[0];
+    private final Map<String, Integer> departmentOrdinals = new HashMap<>();
+    private final List<String> departments = new ArrayList<>();
+
+    record View(int rows, long[] createdAt, long[] resolvedAt, byte[] status, int[] assignee,
+                int[] assigneeDepartments, List<String> departments) {
+
+        int department(int row) {
+            int ordinal = assignee[row];
+            return ordinal >= 0 && ordinal < assigneeDepartments.length ? assigneeDepartments[ordinal] : UNASSIGNED;
+        }
+    }
+
+    // Records the ticket's state unless its row already holds a later version; changes can arrive
+    // out of order while the columns are loaded from the store and the change feed at once
+    void update(Ticket ticket) {
+        lock.lock();
+        try {
+            int row = rowOf(ticket.getId());
+            if (row < 0) {
+                row = append(ticket.getId());
+            } else if (ticket.getVersion() < versions[row]) {
+                return;
+            }
+            versions[row] = ticket.getVersion();
+            createdAt[row] = ticket.createdAtMillis();
+            resolvedAt[row] = ticket.resolvedAtMillis();
+            status[row] = ticket.statusCode();
+            assignee[row] = assigneeOrdinal(ticket.getAssignedTo());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    View view() {
+        lock.lock();
+        try {
+            return new View(rows, createdAt, resolvedAt, status, assignee, assigneeDepartments,
+                    List.copyOf(departments));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return rows;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int rowOf(String id) {
+        int mask = slots.length - 1;
+        for (int slot = hash(id) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int row = slots[slot] - 1;
+            if (ids[row].equals(id)) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    private int append(String id) {
+        if (rows == ids.length) {
+            // New arrays, so views taken before keep reading the old ones
+            int capacity = rows * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+            createdAt = Arrays.copyOf(createdAt, capacity);
+            resolvedAt = Arrays.copyOf(resolvedAt, capacity);
+            status = Arrays.copyOf(status, capacity);
+            assignee = Arrays.copyOf(assignee, capacity);
+        }
+        if ((rows + 1) * 2 > slots.length) {
+            slots = new int[slots.length * 2];
+            for (int row = 0; row < rows; row++) {
+                index(ids[row], row);
+            }
+        }
+        int row = rows++;
+        ids[row] = id;
+        index(id, row);
+        return row;
+    }
+
+    private void index(String id, int row) {
+        int mask = slots.length - 1;
+        int slot = hash(id) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = row + 1;
+    }
+
+    private static int hash(String id) {
+        int h = id.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private int assigneeOrdinal(String assignedTo) {
+        if (assignedTo == null || assignedTo.isEmpty()) {
+            return UNASSIGNED;
+        }
+        Integer ordinal = assigneeOrdinals.get(assignedTo);
+        if (ordinal != null) {
+            return ordinal;
+        }
+        int next = assigneeOrdinals.size();
+        assigneeDepartments = Arrays.copyOf(assigneeDepartments, next + 1);
+        assigneeDepartments[next] = departmentOrdinal(departmentOf(assignedTo));
+        assigneeOrdinals.put(assignedTo, next);
+        return next;
+    }
+
+    private int departmentOrdinal(String department) {
+        Integer ordinal = departmentOrdinals.get(department);
+        if (ordinal == null) {
+            ordinal = departments.size();
+            departments.add(department);
+            departmentOrdinals.put(department, ordinal);
+        }
+        return ordinal;
+    }
+
+    // The prefix of the assignee id up to the first dot, as /departments groups tickets
+    private static String departmentOf(String assignedTo) {
+        int dot = assignedTo.indexOf('.');
+        return dot >= 0 ? assignedTo.substring(0, dot) : assignedTo;
+    }
+}
@@ -0,0 +1,183 @@
+package com.ticketsystem.assignment;
+
+import com.ticketsystem.model.AgentLoad;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Open-ticket counts of the registered agents, kept in sorted sets per department and overall so
+// the least-loaded agent is the first entry: picking one and moving it to its new count is
+// O(log agents). counted records the agent each open ticket is counted against, so a change
+// reported twice, once by a pick and again by the change feed, is counted once.
+final class AgentWorkloads {
+    private static final Comparator<Agent> LEAST_LOADED =
+            Comparator.comparingInt((Agent agent) -> agent.tickets.size()).thenComparing(agent -> agent.id);
+
+    private final Map<String, Agent> agents = new HashMap<>();
+    private final Map<String, TreeSet<Agent>> byDepartment = new HashMap<>();
+    private final TreeSet<Agent> all = new TreeSet<>(LEAST_LOADED);
+    private final Map<String, String> counted = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private static final class Agent {
+        private final String id;
+        private final String department;
+        // Open tickets counted against the agent; only changed while it is out of the sorted sets
+        private final Set<String> tickets = new HashSet<>();
+
+        private Agent(String id, String department) {
+            this.id = id;
+            this.department = department;
+        }
+    }
+
+    // Adds the agent, or re-counts one already registered, with the open tickets assigned to it
+    void addAgent(String id, String department, Collection<String> openTicketIds) {
+        lock.lock();
+        try {
+            removeAgent(id);
+            Agent agent = new Agent(id, department);
+            agents.put(id, agent);
+            for (String ticketId : openTicketIds) {
+                move(counted.put(ticketId, id), ticketId, false);
+                agent.tickets.add(ticketId);
+            }
+            all.add(agent);
+            if (department != null) {
+                byDepartment.computeIfAbsent(department, k -> new TreeSet<>(LEAST_LOADED)).add(agent);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void removeAgent(String id) {
+        lock.lock();
+        try {
+            Agent agent = agents.remove(id);
+            if (agent == null) {
+                return;
+            }
+            for (String ticketId : agent.tickets) {
+                counted.remove(ticketId);
+            }
+            all.remove(agent);
+            if (agent.department != null) {
+                TreeSet<Agent> department = byDepartment.get(agent.department);
+                department.remove(agent);
+                if (department.isEmpty()) {
+                    byDepartment.remove(agent.department);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Agent id to department
+    Map<String, String> departments() {
+        lock.lock();
+        try {
+            Map<String, String> departments = new HashMap<>(agents.size() * 2);
+            for (Agent agent : agents.values()) {
+                departments.put(agent.id, agent.department);
+            }
+            return departments;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Counts the ticket against the least-loaded agent of the department, or of all agents when
+    // department is null; null when there is no such agent
+    String pick(String ticketId, String department) {
+        lock.lock();
+        try {
+            TreeSet<Agent> candidates = department != null ? byDepartment.get(department) : all;
+            if (candidates == null || candidates.isEmpty()) {
+                return null;
+            }
+            String agentId = candidates.first().id;
+            count(ticketId, agentId);
+            return agentId;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The ticket's current state: it counts against its assignee while open
+    void update(String ticketId, String assignee, boolean open) {
+        lock.lock();
+        try {
+            count(ticketId, open && assignee != null && agents.containsKey(assignee) ? assignee : null);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int openTickets(String agentId) {
+        lock.lock();
+        try {
+            Agent agent = agents.get(agentId);
+            return agent != null ? agent.tickets.size() : 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Least loaded first
+    List<AgentLoad> loads(String department) {
+        lock.lock();
+        try {
+            TreeSet<Agent> agentsInOrder = department != null ? byDepartment.get(department) : all;
+            List<AgentLoad> loads = new ArrayList<>(agentsInOrder != null ? agentsInOrder.size() : 0);
+            if (agentsInOrder != null) {
+                for (Agent agent : agentsInOrder) {
+                    loads.add(new AgentLoad(agent.id, agent.department, agent.tickets.size()));
+                }
+            }
+            return loads;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void count(String ticketId, String agentId) {
+        String previous = agentId != null ? counted.put(ticketId, agentId) : counted.remove(ticketId);
+        if (!Objects.equals(previous, agentId)) {
+            move(previous, ticketId, false);
+            move(agentId, ticketId, true);
+        }
+    }
+
+    // Re-inserts the agent so the sets stay ordered by its new count
+    private void move(String agentId, String ticketId, boolean add) {
+        Agent agent = agentId != null ? agents.get(agentId) : null;
+        if (agent == null) {
+            return;
+        }
+        TreeSet<Agent> department = agent.department != null ? byDepartment.get(agent.department) : null;
+        all.remove(agent);
+        if (department != null) {
+            department.remove(agent);
+        }
+        if (add) {
+            agent.tickets.add(ticketId);
+        } else {
+            agent.tickets.remove(ticketId);
+        }
+        all.add(agent);
+        if (department != null) {
+            department.add(agent);
+        }
+    }
+}
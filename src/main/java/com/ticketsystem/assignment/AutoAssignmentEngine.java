@@ -0,0 +1,229 @@
+package com.ticketsystem.assignment;
+
+import com.ticketsystem.events.TicketChangeBus;
+import com.ticketsystem.model.AgentLoad;
+import com.ticketsystem.model.BulkItem;
+import com.ticketsystem.model.BulkResult;
+import com.ticketsystem.model.Ticket;
+import com.ticketsystem.model.TicketChange;
+import com.ticketsystem.model.TicketChangeBatch;
+import com.ticketsystem.model.User;
+import com.ticketsystem.service.TicketService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Routes submitted tickets to the least-loaded agent of their department. Submitting only queues
+// the ticket; a background thread takes whatever has queued up, up to batchSize at a time, picks
+// the agents and assigns the whole batch in one bulk call. A second thread follows the change
+// feed so the agents' open-ticket counts also reflect manual assignments and resolved tickets.
+@Service
+public class AutoAssignmentEngine {
+    private static final int FEED_BATCH = 1024;
+    private static final long FEED_POLL_SECONDS = 1;
+
+    private final TicketService ticketService;
+    private final TicketChangeBus changes;
+    private final boolean assignNewTickets;
+    private final int batchSize;
+    private final BlockingQueue<Request> pending;
+    private final AgentWorkloads workloads = new AgentWorkloads();
+    private volatile boolean running;
+    private Thread assigner;
+    private Thread follower;
+
+    public record Request(String ticketId, String department) {
+    }
+
+    @Autowired
+    public AutoAssignmentEngine(TicketService ticketService, TicketChangeBus changes,
+                                @Value("${ticket.assignment.auto-assign-new:true}") boolean assignNewTickets,
+                                @Value("${ticket.assignment.batch-size:256}") int batchSize,
+                                @Value("${ticket.assignment.queue-capacity:100000}") int queueCapacity) {
+        this.ticketService = ticketService;
+        this.changes = changes;
+        this.assignNewTickets = assignNewTickets;
+        this.batchSize = batchSize;
+        this.pending = new LinkedBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        // Subscribe before any agent is counted, so no change in between is missed
+        TicketChangeBus.Subscription subscription = changes.subscribe(-1, AutoAssignmentEngine::affectsWorkload);
+        follower = Thread.ofVirtual().name("auto-assign-feed").start(() -> follow(subscription));
+        assigner = Thread.ofVirtual().name("auto-assign").start(this::assignQueued);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (assigner != null) {
+            assigner.interrupt();
+        }
+        if (follower != null) {
+            follower.interrupt();
+        }
+    }
+
+    // Queues the ticket for assignment; a null department routes it to the least-loaded agent overall
+    public void submit(String ticketId, String department) {
+        if (!pending.offer(new Request(ticketId, department))) {
+            throw new IllegalStateException("Auto-assignment queue is full");
+        }
+    }
+
+    // A ticket created through the API; when the queue is full it simply stays unassigned
+    public void ticketCreated(String ticketId, String department) {
+        if (assignNewTickets) {
+            pending.offer(new Request(ticketId, department));
+        }
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    // Agents are users with the AGENT role; others are ignored
+    public void addAgent(User user) {
+        if (!isAgent(user)) {
+            workloads.removeAgent(user.getId());
+            return;
+        }
+        workloads.addAgent(user.getId(), user.getDepartment(), openTicketIds(user.getId()));
+    }
+
+    public void removeAgent(String userId) {
+        workloads.removeAgent(userId);
+    }
+
+    public static boolean isAgent(User user) {
+        return "AGENT".equalsIgnoreCase(user.getRole());
+    }
+
+    public int openTickets(String agentId) {
+        return workloads.openTickets(agentId);
+    }
+
+    // Least loaded first; all agents when department is null
+    public List<AgentLoad> workloads(String department) {
+        return workloads.loads(department);
+    }
+
+    // Assigns one batch on the calling thread and returns how many tickets were assigned. Tickets
+    // that are gone, closed or assigned since they were submitted are skipped, as are tickets
+    // whose department has no agents; those stay unassigned. Each assignment is conditional on the
+    // version checked here, so a ticket assigned or resolved by hand in between is left as it is.
+    public int assign(List<Request> batch) {
+        List<BulkItem> items = new ArrayList<>(batch.size());
+        for (Request request : batch) {
+            Ticket ticket = ticketService.getTicket(request.ticketId(), false);
+            if (ticket == null || !isUnassigned(ticket.getAssignedTo()) || !isOpen(ticket.getStatus())) {
+                continue;
+            }
+            String agentId = workloads.pick(request.ticketId(), request.department());
+            if (agentId == null) {
+                continue;
+            }
+            BulkItem item = new BulkItem();
+            item.setTicketId(request.ticketId());
+            item.setUserId(agentId);
+            item.setExpectedVersion(ticket.getVersion());
+            items.add(item);
+        }
+        if (items.isEmpty()) {
+            return 0;
+        }
+
+        int assigned = 0;
+        for (BulkResult<Ticket> result : ticketService.assignTickets(items)) {
+            if (result.isSuccess()) {
+                assigned++;
+            } else {
+                // Replace the count the pick added with whatever the ticket is now; the change
+                // feed may already have counted a manual assignment that beat this one
+                String ticketId = items.get(result.getIndex()).getTicketId();
+                Ticket ticket = ticketService.getTicket(ticketId, false);
+                workloads.update(ticketId, ticket != null ? ticket.getAssignedTo() : null,
+                        ticket != null && isOpen(ticket.getStatus()));
+            }
+        }
+        return assigned;
+    }
+
+    private void assignQueued() {
+        List<Request> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                batch.add(pending.take());
+                pending.drainTo(batch, batchSize - 1);
+                assign(batch);
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                // The batch is dropped; its tickets stay unassigned and can be submitted again
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void follow(TicketChangeBus.Subscription subscription) {
+        while (running) {
+            try {
+                TicketChangeBatch batch = subscription.poll(FEED_BATCH, FEED_POLL_SECONDS, TimeUnit.SECONDS);
+                if (batch.isTruncated()) {
+                    recount();
+                    continue;
+                }
+                for (TicketChange change : batch.getChanges()) {
+                    Ticket ticket = change.getTicket();
+                    workloads.update(ticket.getId(), ticket.getAssignedTo(), isOpen(ticket.getStatus()));
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                // Counts catch up with the next changes
+            }
+        }
+    }
+
+    // The feed dropped changes this engine had not seen yet; count every agent's tickets afresh
+    private void recount() {
+        for (Map.Entry<String, String> agent : workloads.departments().entrySet()) {
+            workloads.addAgent(agent.getKey(), agent.getValue(), openTicketIds(agent.getKey()));
+        }
+    }
+
+    private List<String> openTicketIds(String agentId) {
+        List<String> ids = new ArrayList<>();
+        for (Ticket ticket : ticketService.getTicketsByAssignee(agentId)) {
+            if (isOpen(ticket.getStatus())) {
+                ids.add(ticket.getId());
+            }
+        }
+        return ids;
+    }
+
+    private static boolean affectsWorkload(TicketChange change) {
+        return change.getType() != TicketChange.Type.REPLY_ADDED && change.getType() != TicketChange.Type.REPLY_EDITED;
+    }
+
+    private static boolean isOpen(String status) {
+        return !"RESOLVED".equals(status) && !"CLOSED".equals(status);
+    }
+
+    private static boolean isUnassigned(String assignee) {
+        return assignee == null || assignee.isEmpty();
+    }
+}
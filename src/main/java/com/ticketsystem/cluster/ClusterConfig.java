@@ -0,0 +1,51 @@
+package com.ticketsystem.cluster;
+
+import com.ticketsystem.service.impl.TicketServiceImpl;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@ConditionalOnProperty(name = "ticket.cluster.enabled", havingValue = "true")
+public class ClusterConfig {
+
+    // The store has recovered from its log by the time it is injected here, so the node starts
+    // replicating from the recovered state
+    @Bean(destroyMethod = "close")
+    public ClusterNode clusterNode(
+            TicketServiceImpl local,
+            @Value("${ticket.cluster.node-id}") int nodeId,
+            @Value("${ticket.cluster.nodes}") String nodes,
+            @Value("${ticket.cluster.log-capacity:65536}") int logCapacity,
+            @Value("${ticket.cluster.request-timeout-ms:5000}") long requestTimeoutMillis) throws IOException {
+        ClusterNode node = new ClusterNode(local, new TcpClusterTransport(parseNodes(nodes), nodeId),
+                logCapacity, requestTimeoutMillis);
+        node.start();
+        return node;
+    }
+
+    @Bean
+    public ClusteredTicketService clusteredTicketService(ClusterNode node) {
+        return new ClusteredTicketService(node);
+    }
+
+    // host:port,host:port,... in node id order
+    static List<InetSocketAddress> parseNodes(String nodes) {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (String node : nodes.split(",")) {
+            String address = node.trim();
+            int colon = address.lastIndexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("Cluster node address must be host:port: " + address);
+            }
+            addresses.add(new InetSocketAddress(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1))));
+        }
+        return addresses;
+    }
+}
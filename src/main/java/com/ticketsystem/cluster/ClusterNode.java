@@ -0,0 +1,274 @@
+package com.ticketsystem.cluster;
+
+import com.ticketsystem.model.Reply;
+import com.ticketsystem.model.Ticket;
+import com.ticketsystem.model.TicketPage;
+import com.ticketsystem.persistence.TicketEvent;
+import com.ticketsystem.service.TicketVersionConflictException;
+import com.ticketsystem.service.impl.TicketServiceImpl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// One member of the cluster. Every ticket is owned by one node, picked by its id; only the owner
+// changes it, and every other node holds a replica. Each node numbers the mutations of the
+// tickets it owns in its replication log, and pulls the other nodes' logs with long polls,
+// applying their mutations in order. A node that falls further behind than a log holds, or
+// finds the other node restarted, first copies that node's tickets from a snapshot.
+public class ClusterNode implements Closeable {
+    private static final long FETCH_WAIT_MILLIS = 1000;
+    private static final int FETCH_MAX_EVENTS = 1024;
+    private static final int SNAPSHOT_PAGE_SIZE = 512;
+    // Snapshot cursors past the last ticket in the store page through the archive
+    private static final String ARCHIVED_CURSOR = "archived:";
+    private static final long RETRY_DELAY_MILLIS = 200;
+
+    private final TicketServiceImpl local;
+    private final ClusterTransport transport;
+    private final ReplicationLog log;
+    private final long requestTimeoutMillis;
+    // Sequence of each node's log applied here so far, -1 while resyncing
+    private final AtomicLongArray applied;
+    private final List<Thread> pullers = new ArrayList<>();
+    private volatile boolean running;
+
+    public ClusterNode(TicketServiceImpl local, ClusterTransport transport, int logCapacity, long requestTimeoutMillis) {
+        this.local = local;
+        this.transport = transport;
+        this.log = new ReplicationLog(logCapacity);
+        this.requestTimeoutMillis = requestTimeoutMillis;
+        this.applied = new AtomicLongArray(transport.size());
+    }
+
+    public void start() throws IOException {
+        running = true;
+        local.joinCluster(this::owns, log::append);
+        transport.start(this::handle);
+        for (int peer = 0; peer < transport.size(); peer++) {
+            if (peer != nodeId()) {
+                int from = peer;
+                applied.set(from, -1);
+                pullers.add(Thread.ofVirtual().name("cluster-pull-" + from).start(() -> replicateFrom(from)));
+            }
+        }
+    }
+
+    public int nodeId() {
+        return transport.nodeId();
+    }
+
+    public int size() {
+        return transport.size();
+    }
+
+    public int owner(String ticketId) {
+        return Math.floorMod(ticketId.hashCode(), transport.size());
+    }
+
+    public boolean owns(String ticketId) {
+        return owner(ticketId) == nodeId();
+    }
+
+    // Mutations of this node's tickets so far
+    public long lastSequence() {
+        return log.lastSequence();
+    }
+
+    // How far this node has applied the given node's mutations, -1 while copying its snapshot
+    public long appliedSequence(int node) {
+        return node == nodeId() ? log.lastSequence() : applied.get(node);
+    }
+
+    TicketServiceImpl local() {
+        return local;
+    }
+
+    // Sends a request to the given node, turning its error replies back into the exceptions
+    // the node threw
+    ClusterProtocol.Reader call(int node, byte[] request) {
+        byte[] reply;
+        try {
+            reply = transport.call(node, request, requestTimeoutMillis);
+        } catch (IOException e) {
+            throw new IllegalStateException("Node " + node + " is unreachable: " + e.getMessage(), e);
+        }
+        ClusterProtocol.Reader reader = new ClusterProtocol.Reader(reply);
+        try {
+            byte status = reader.code();
+            switch (status) {
+                case ClusterProtocol.OK -> {
+                    return reader;
+                }
+                case ClusterProtocol.NOT_FOUND -> throw new IllegalArgumentException(reader.string());
+                case ClusterProtocol.CONFLICT -> {
+                    String ticketId = reader.string();
+                    long expected = reader.number();
+                    throw new TicketVersionConflictException(ticketId, expected, reader.number());
+                }
+                default -> throw new IllegalStateException("Node " + node + " failed: " + reader.string());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Bad reply from node " + node, e);
+        }
+    }
+
+    private void replicateFrom(int peer) {
+        long epoch = 0;
+        long after = -1;
+        while (running) {
+            try {
+                if (after < 0) {
+                    long[] position = resync(peer);
+                    epoch = position[0];
+                    after = position[1];
+                    applied.set(peer, after);
+                }
+                byte[] request = new ClusterProtocol.Writer(ClusterProtocol.FETCH)
+                        .number(epoch).number(after).number(FETCH_MAX_EVENTS).number(FETCH_WAIT_MILLIS).bytes();
+                ClusterProtocol.Reader reply = new ClusterProtocol.Reader(
+                        transport.call(peer, request, FETCH_WAIT_MILLIS + requestTimeoutMillis));
+                reply.code();
+                boolean truncated = reply.flag();
+                long lastSequence = reply.number();
+                List<TicketEvent> events = reply.events();
+                if (truncated) {
+                    after = -1;
+                    applied.set(peer, -1);
+                    continue;
+                }
+                local.applyReplicated(events);
+                after = lastSequence;
+                applied.set(peer, after);
+            } catch (IOException | RuntimeException e) {
+                // The peer is down or restarting; retry from where this node got to
+                if (!pause()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // Copies the peer's tickets page by page. The snapshot starts at the sequence the peer had
+    // reached when the first page was taken; mutations made while paging are in later pages or
+    // are fetched afterwards, and applying one twice is harmless.
+    private long[] resync(int peer) throws IOException {
+        long epoch = 0;
+        long sequence = 0;
+        String cursor = null;
+        boolean first = true;
+        do {
+            byte[] request = new ClusterProtocol.Writer(ClusterProtocol.SNAPSHOT)
+                    .string(cursor).number(SNAPSHOT_PAGE_SIZE).bytes();
+            ClusterProtocol.Reader page = new ClusterProtocol.Reader(transport.call(peer, request, requestTimeoutMillis));
+            page.code();
+            long pageEpoch = page.number();
+            long pageSequence = page.number();
+            if (first) {
+                epoch = pageEpoch;
+                sequence = pageSequence;
+                first = false;
+            } else if (pageEpoch != epoch) {
+                throw new IOException("Node " + peer + " restarted during resync");
+            }
+            local.applyReplicated(page.events());
+            cursor = page.string();
+        } while (cursor != null && running);
+        return new long[]{epoch, sequence};
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(RETRY_DELAY_MILLIS);
+            return running;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private byte[] handle(byte[] request) throws IOException {
+        ClusterProtocol.Reader in = new ClusterProtocol.Reader(request);
+        byte opcode = in.code();
+        try {
+            return switch (opcode) {
+                case ClusterProtocol.FETCH -> fetch(in);
+                case ClusterProtocol.SNAPSHOT -> snapshot(in);
+                default -> ClusteredTicketService.serve(local, opcode, in);
+            };
+        } catch (IllegalArgumentException e) {
+            return new ClusterProtocol.Writer(ClusterProtocol.NOT_FOUND).string(e.getMessage()).bytes();
+        } catch (TicketVersionConflictException e) {
+            return new ClusterProtocol.Writer(ClusterProtocol.CONFLICT).string(e.getTicketId())
+                    .number(e.getExpectedVersion()).number(e.getCurrentVersion()).bytes();
+        } catch (RuntimeException e) {
+            return new ClusterProtocol.Writer(ClusterProtocol.FAILED).string(String.valueOf(e.getMessage())).bytes();
+        }
+    }
+
+    private byte[] fetch(ClusterProtocol.Reader in) throws IOException {
+        long epoch = in.number();
+        long after = in.number();
+        int max = (int) in.number();
+        long waitMillis = in.number();
+        ReplicationLog.Batch batch;
+        try {
+            batch = log.read(epoch, after, max, waitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        }
+        return new ClusterProtocol.Writer(ClusterProtocol.OK)
+                .flag(batch.truncated()).number(batch.lastSequence()).events(batch.events()).bytes();
+    }
+
+    // A page of the tickets this node owns, with their replies, as creation records. Archived
+    // tickets come after the others, in the records they were archived as; one brought back from
+    // the archive after the pages of its creation time were sent arrives with its next change.
+    private byte[] snapshot(ClusterProtocol.Reader in) throws IOException {
+        String cursor = in.string();
+        int limit = (int) in.number();
+        long sequence = log.lastSequence();
+        List<TicketEvent> events = new ArrayList<>();
+        String next;
+        if (cursor == null || !cursor.startsWith(ARCHIVED_CURSOR)) {
+            TicketPage page = local.getAllTickets(cursor, limit);
+            for (Ticket ticket : page.getItems()) {
+                if (!owns(ticket.getId())) {
+                    continue;
+                }
+                events.add(TicketEvent.created(ticket));
+                Ticket withReplies = local.getTicket(ticket.getId());
+                if (withReplies != null && withReplies.getReplies() != null) {
+                    for (Reply reply : withReplies.getReplies()) {
+                        events.add(TicketEvent.replyRestored(ticket.getId(), reply));
+                    }
+                }
+            }
+            next = page.getNextCursor() != null ? page.getNextCursor()
+                    : local.archivedTicketCount() > 0 ? ARCHIVED_CURSOR : null;
+        } else {
+            String archiveCursor = cursor.length() > ARCHIVED_CURSOR.length() ? cursor.substring(ARCHIVED_CURSOR.length()) : null;
+            String archived = local.archivedTickets(archiveCursor, limit, record -> {
+                if (owns(record.get(0).getTicketId())) {
+                    events.addAll(record);
+                }
+            });
+            next = archived != null ? ARCHIVED_CURSOR + archived : null;
+        }
+        return new ClusterProtocol.Writer(ClusterProtocol.OK).number(log.epoch()).number(sequence)
+                .events(events).string(next).bytes();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        for (Thread puller : pullers) {
+            puller.interrupt();
+        }
+        transport.close();
+    }
+}
@@ -0,0 +1,255 @@
+package com.ticketsystem.cluster;
+
+import com.ticketsystem.model.BulkItem;
+import com.ticketsystem.model.BulkResult;
+import com.ticketsystem.model.Reply;
+import com.ticketsystem.model.Ticket;
+import com.ticketsystem.model.TicketPatch;
+import com.ticketsystem.persistence.TicketEvent;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Messages between nodes: a request is an opcode followed by its fields, a reply a status
+// followed by the result or an error message. Tickets, replies and mutations travel in their
+// event log encoding.
+final class ClusterProtocol {
+    // Requests
+    static final byte FETCH = 1;
+    static final byte SNAPSHOT = 2;
+    static final byte UPDATE = 3;
+    static final byte PATCH = 4;
+    static final byte ASSIGN = 5;
+    static final byte RESOLVE = 6;
+    static final byte ADD_REPLY = 7;
+    static final byte EDIT_REPLY = 8;
+    static final byte ASSIGN_BULK = 9;
+    static final byte RESOLVE_BULK = 10;
+    static final byte ADD_REPLIES = 11;
+
+    // Reply statuses
+    static final byte OK = 0;
+    static final byte NOT_FOUND = 1;
+    static final byte CONFLICT = 2;
+    static final byte FAILED = 3;
+
+    private ClusterProtocol() {
+    }
+
+    @FunctionalInterface
+    interface Encoder<T> {
+        void write(Writer writer, T value);
+    }
+
+    @FunctionalInterface
+    interface Decoder<T> {
+        T read(Reader reader) throws IOException;
+    }
+
+    static final class Writer {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        private final DataOutputStream out = new DataOutputStream(bytes);
+
+        Writer(byte opcodeOrStatus) {
+            code(opcodeOrStatus);
+        }
+
+        Writer code(byte value) {
+            try {
+                out.writeByte(value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return this;
+        }
+
+        Writer number(long value) {
+            try {
+                out.writeLong(value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return this;
+        }
+
+        Writer flag(boolean value) {
+            return code((byte) (value ? 1 : 0));
+        }
+
+        // Length-prefixed UTF-8, -1 for null
+        Writer string(String value) {
+            return value == null ? blob(null) : blob(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        Writer event(TicketEvent event) {
+            return blob(event.encode());
+        }
+
+        Writer events(List<TicketEvent> events) {
+            count(events.size());
+            for (TicketEvent event : events) {
+                event(event);
+            }
+            return this;
+        }
+
+        Writer ticket(Ticket ticket) {
+            return event(TicketEvent.updated(ticket));
+        }
+
+        Writer reply(Reply reply) {
+            return event(TicketEvent.replyRestored(null, reply));
+        }
+
+        Writer patch(TicketPatch patch) {
+            return string(patch.getTitle()).string(patch.getDescription())
+                    .string(patch.getStatus()).string(patch.getAssignedTo());
+        }
+
+        Writer items(List<BulkItem> items) {
+            count(items.size());
+            for (BulkItem item : items) {
+                string(item.getTicketId()).string(item.getUserId())
+                        .string(item.getContent()).string(item.getParentReplyId())
+                        .number(item.getExpectedVersion());
+            }
+            return this;
+        }
+
+        <T> Writer results(List<BulkResult<T>> results, Encoder<T> encoder) {
+            count(results.size());
+            for (BulkResult<T> result : results) {
+                count(result.getIndex()).flag(result.isSuccess());
+                if (result.isSuccess()) {
+                    encoder.write(this, result.getData());
+                } else {
+                    string(result.getMessage());
+                }
+            }
+            return this;
+        }
+
+        byte[] bytes() {
+            return bytes.toByteArray();
+        }
+
+        private Writer count(int value) {
+            try {
+                out.writeInt(value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return this;
+        }
+
+        private Writer blob(byte[] value) {
+            try {
+                if (value == null) {
+                    out.writeInt(-1);
+                } else {
+                    out.writeInt(value.length);
+                    out.write(value);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return this;
+        }
+    }
+
+    static final class Reader {
+        private final DataInputStream in;
+
+        Reader(byte[] message) {
+            this.in = new DataInputStream(new ByteArrayInputStream(message));
+        }
+
+        byte code() throws IOException {
+            return in.readByte();
+        }
+
+        long number() throws IOException {
+            return in.readLong();
+        }
+
+        boolean flag() throws IOException {
+            return in.readByte() != 0;
+        }
+
+        String string() throws IOException {
+            byte[] value = blob();
+            return value != null ? new String(value, StandardCharsets.UTF_8) : null;
+        }
+
+        TicketEvent event() throws IOException {
+            return TicketEvent.decode(blob());
+        }
+
+        List<TicketEvent> events() throws IOException {
+            int count = count();
+            List<TicketEvent> events = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                events.add(event());
+            }
+            return events;
+        }
+
+        Ticket ticket() throws IOException {
+            return event().getTicket();
+        }
+
+        Reply reply() throws IOException {
+            return event().getReply();
+        }
+
+        TicketPatch patch() throws IOException {
+            TicketPatch patch = new TicketPatch();
+            patch.setTitle(string());
+            patch.setDescription(string());
+            patch.setStatus(string());
+            patch.setAssignedTo(string());
+            return patch;
+        }
+
+        List<BulkItem> items() throws IOException {
+            int count = count();
+            List<BulkItem> items = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                BulkItem item = new BulkItem();
+                item.setTicketId(string());
+                item.setUserId(string());
+                item.setContent(string());
+                item.setParentReplyId(string());
+                item.setExpectedVersion(number());
+                items.add(item);
+            }
+            return items;
+        }
+
+        <T> List<BulkResult<T>> results(Decoder<T> decoder) throws IOException {
+            int count = count();
+            List<BulkResult<T>> results = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int index = count();
+                results.add(flag() ? BulkResult.success(index, decoder.read(this)) : BulkResult.failure(index, string()));
+            }
+            return results;
+        }
+
+        private int count() throws IOException {
+            return in.readInt();
+        }
+
+        private byte[] blob() throws IOException {
+            int length = in.readInt();
+            if (length < 0) {
+                return null;
+            }
+            byte[] value = new byte[length];
+            in.readFully(value);
+            return value;
+        }
+    }
+}
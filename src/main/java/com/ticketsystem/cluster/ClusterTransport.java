@@ -0,0 +1,25 @@
+package com.ticketsystem.cluster;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+// Request/response messaging between the nodes of a cluster, numbered 0 to size - 1. Payloads
+// are opaque to the transport; ClusterProtocol encodes them.
+public interface ClusterTransport extends Closeable {
+
+    @FunctionalInterface
+    interface Handler {
+        byte[] handle(byte[] request) throws IOException;
+    }
+
+    int nodeId();
+
+    int size();
+
+    // Starts answering requests from other nodes
+    void start(Handler handler) throws IOException;
+
+    // Sends a request and waits for the reply; throws if the node cannot be reached or does not
+    // answer within the timeout
+    byte[] call(int node, byte[] request, long timeoutMillis) throws IOException;
+}
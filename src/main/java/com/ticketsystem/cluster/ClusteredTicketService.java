@@ -0,0 +1,319 @@
+package com.ticketsystem.cluster;
+
+import com.ticketsystem.model.BulkItem;
+import com.ticketsystem.model.BulkResult;
+import com.ticketsystem.model.Reply;
+import com.ticketsystem.model.ReplyTreePage;
+import com.ticketsystem.model.Ticket;
+import com.ticketsystem.model.TicketPage;
+import com.ticketsystem.model.TicketPatch;
+import com.ticketsystem.service.TicketQuery;
+import com.ticketsystem.service.TicketService;
+import com.ticketsystem.service.impl.TicketServiceImpl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+// The ticket service of a cluster node. Reads and creates are served by the local store; a write
+// to an existing ticket runs on the ticket's owner, locally or forwarded to it. Replicas catch up
+// asynchronously, so a read on another node may briefly miss a write the owner has acknowledged.
+public class ClusteredTicketService implements TicketService {
+    private final ClusterNode node;
+    private final TicketServiceImpl local;
+
+    public ClusteredTicketService(ClusterNode node) {
+        this.node = node;
+        this.local = node.local();
+    }
+
+    @Override
+    public Ticket createTicket(String title, String description) {
+        return local.createTicket(title, description);
+    }
+
+    @Override
+    public Ticket getTicket(String id) {
+        return local.getTicket(id);
+    }
+
+    @Override
+    public Ticket getTicket(String id, boolean includeReplies) {
+        return local.getTicket(id, includeReplies);
+    }
+
+    @Override
+    public Ticket updateTicket(Ticket ticket) {
+        return updateTicket(ticket, ticket.getVersion());
+    }
+
+    @Override
+    public Ticket updateTicket(Ticket ticket, long expectedVersion) {
+        int owner = owner(ticket.getId());
+        if (owner == node.nodeId()) {
+            return local.updateTicket(ticket, expectedVersion);
+        }
+        return ticket(owner, new ClusterProtocol.Writer(ClusterProtocol.UPDATE).ticket(ticket).number(expectedVersion));
+    }
+
+    @Override
+    public Ticket patchTicket(String ticketId, TicketPatch patch, long expectedVersion) {
+        int owner = owner(ticketId);
+        if (owner == node.nodeId()) {
+            return local.patchTicket(ticketId, patch, expectedVersion);
+        }
+        return ticket(owner, new ClusterProtocol.Writer(ClusterProtocol.PATCH)
+                .string(ticketId).number(expectedVersion).patch(patch));
+    }
+
+    @Override
+    public Ticket assignTicket(String ticketId, String userId) {
+        int owner = owner(ticketId);
+        if (owner == node.nodeId()) {
+            return local.assignTicket(ticketId, userId);
+        }
+        return ticket(owner, new ClusterProtocol.Writer(ClusterProtocol.ASSIGN).string(ticketId).string(userId));
+    }
+
+    @Override
+    public Reply addReply(String ticketId, String content, String parentReplyId) {
+        int owner = owner(ticketId);
+        if (owner == node.nodeId()) {
+            return local.addReply(ticketId, content, parentReplyId);
+        }
+        return reply(owner, new ClusterProtocol.Writer(ClusterProtocol.ADD_REPLY)
+                .string(ticketId).string(content).string(parentReplyId));
+    }
+
+    @Override
+    public Reply editReply(String ticketId, String replyId, String newContent) {
+        int owner = owner(ticketId);
+        if (owner == node.nodeId()) {
+            return local.editReply(ticketId, replyId, newContent);
+        }
+        return reply(owner, new ClusterProtocol.Writer(ClusterProtocol.EDIT_REPLY)
+                .string(ticketId).string(replyId).string(newContent));
+    }
+
+    @Override
+    public Ticket resolveTicket(String ticketId) {
+        int owner = owner(ticketId);
+        if (owner == node.nodeId()) {
+            return local.resolveTicket(ticketId);
+        }
+        return ticket(owner, new ClusterProtocol.Writer(ClusterProtocol.RESOLVE).string(ticketId));
+    }
+
+    @Override
+    public List<BulkResult<Ticket>> createTickets(List<BulkItem> items) {
+        return local.createTickets(items);
+    }
+
+    @Override
+    public List<BulkResult<Ticket>> assignTickets(List<BulkItem> items) {
+        return routed(items, local::assignTickets, ClusterProtocol.ASSIGN_BULK, ClusterProtocol.Reader::ticket);
+    }
+
+    @Override
+    public List<BulkResult<Ticket>> resolveTickets(List<BulkItem> items) {
+        return routed(items, local::resolveTickets, ClusterProtocol.RESOLVE_BULK, ClusterProtocol.Reader::ticket);
+    }
+
+    @Override
+    public List<BulkResult<Reply>> addReplies(List<BulkItem> items) {
+        return routed(items, local::addReplies, ClusterProtocol.ADD_REPLIES, ClusterProtocol.Reader::reply);
+    }
+
+    @Override
+    public List<Ticket> getAllTickets() {
+        return local.getAllTickets();
+    }
+
+    @Override
+    public TicketPage getAllTickets(String cursor, int limit) {
+        return local.getAllTickets(cursor, limit);
+    }
+
+    @Override
+    public List<Ticket> getTicketsByStatus(String status) {
+        return local.getTicketsByStatus(status);
+    }
+
+    @Override
+    public TicketPage getTicketsByStatus(String status, String cursor, int limit) {
+        return local.getTicketsByStatus(status, cursor, limit);
+    }
+
+    @Override
+    public List<Ticket> getTicketsByAssignee(String userId) {
+        return local.getTicketsByAssignee(userId);
+    }
+
+    @Override
+    public TicketPage getTicketsByAssignee(String userId, String cursor, int limit) {
+        return local.getTicketsByAssignee(userId, cursor, limit);
+    }
+
+    @Override
+    public Map<String, List<Ticket>> getTicketsByDepartment() {
+        return local.getTicketsByDepartment();
+    }
+
+    @Override
+    public TicketPage getTicketsByDepartment(String department, String cursor, int limit) {
+        return local.getTicketsByDepartment(department, cursor, limit);
+    }
+
+    @Override
+    public List<Ticket> searchTickets(String searchTerm) {
+        return local.searchTickets(searchTerm);
+    }
+
+    @Override
+    public List<Ticket> searchTickets(String searchTerm, boolean includeReplies, int offset, int limit) {
+        return local.searchTickets(searchTerm, includeReplies, offset, limit);
+    }
+
+    @Override
+    public List<Reply> getTicketRepliesTree(String ticketId) {
+        return local.getTicketRepliesTree(ticketId);
+    }
+
+    @Override
+    public ReplyTreePage getTicketRepliesTree(String ticketId, String parentReplyId, String cursor, int depth, int limit) {
+        return local.getTicketRepliesTree(ticketId, parentReplyId, cursor, depth, limit);
+    }
+
+    @Override
+    public Map<String, Integer> getTicketStatistics() {
+        return local.getTicketStatistics();
+    }
+
+    @Override
+    public List<Ticket> getRecentTickets(int limit) {
+        return local.getRecentTickets(limit);
+    }
+
+    @Override
+    public List<Ticket> getUnassignedTickets() {
+        return local.getUnassignedTickets();
+    }
+
+    @Override
+    public List<Ticket> getOverdueTickets() {
+        return local.getOverdueTickets();
+    }
+
+    // Replicated mutations are published to the local store like local ones, so its versions
+    // cover them
+    @Override
+    public long queryVersion(TicketQuery query) {
+        return local.queryVersion(query);
+    }
+
+    // A missing id fails validation locally
+    private int owner(String ticketId) {
+        return ticketId != null ? node.owner(ticketId) : node.nodeId();
+    }
+
+    private Ticket ticket(int owner, ClusterProtocol.Writer request) {
+        try {
+            return node.call(owner, request.bytes()).ticket();
+        } catch (IOException e) {
+            throw new IllegalStateException("Bad reply from node " + owner, e);
+        }
+    }
+
+    private Reply reply(int owner, ClusterProtocol.Writer request) {
+        try {
+            return node.call(owner, request.bytes()).reply();
+        } catch (IOException e) {
+            throw new IllegalStateException("Bad reply from node " + owner, e);
+        }
+    }
+
+    // Splits the items by owner and sends each node its share in one request. Entries keep their
+    // order within a ticket, and results are reported against the caller's indexes. A node that
+    // cannot be reached fails its entries only.
+    private <T> List<BulkResult<T>> routed(List<BulkItem> items, Function<List<BulkItem>, List<BulkResult<T>>> applyLocally,
+                                           byte opcode, ClusterProtocol.Decoder<T> decoder) {
+        List<List<Integer>> indexes = new ArrayList<>(node.size());
+        for (int i = 0; i < node.size(); i++) {
+            indexes.add(new ArrayList<>());
+        }
+        for (int i = 0; i < items.size(); i++) {
+            BulkItem item = items.get(i);
+            indexes.get(owner(item != null ? item.getTicketId() : null)).add(i);
+        }
+
+        List<BulkResult<T>> results = new ArrayList<>(items.size());
+        for (int owner = 0; owner < node.size(); owner++) {
+            List<Integer> share = indexes.get(owner);
+            if (share.isEmpty()) {
+                continue;
+            }
+            List<BulkItem> shareItems = new ArrayList<>(share.size());
+            for (int index : share) {
+                shareItems.add(items.get(index));
+            }
+            List<BulkResult<T>> shareResults;
+            if (owner == node.nodeId()) {
+                shareResults = applyLocally.apply(shareItems);
+            } else {
+                try {
+                    shareResults = node.call(owner, new ClusterProtocol.Writer(opcode).items(shareItems).bytes())
+                            .results(decoder);
+                } catch (IOException | IllegalStateException e) {
+                    shareResults = new ArrayList<>(share.size());
+                    for (int i = 0; i < share.size(); i++) {
+                        shareResults.add(BulkResult.failure(i, e.getMessage()));
+                    }
+                }
+            }
+            for (BulkResult<T> result : shareResults) {
+                result.setIndex(share.get(result.getIndex()));
+                results.add(result);
+            }
+        }
+        results.sort(Comparator.comparingInt(BulkResult::getIndex));
+        return results;
+    }
+
+    // Runs a write forwarded from another node on this node's store
+    static byte[] serve(TicketServiceImpl local, byte opcode, ClusterProtocol.Reader in) throws IOException {
+        ClusterProtocol.Writer ok = new ClusterProtocol.Writer(ClusterProtocol.OK);
+        return switch (opcode) {
+            case ClusterProtocol.UPDATE -> {
+                Ticket ticket = in.ticket();
+                yield ok.ticket(local.updateTicket(ticket, in.number())).bytes();
+            }
+            case ClusterProtocol.PATCH -> {
+                String ticketId = in.string();
+                long expectedVersion = in.number();
+                yield ok.ticket(local.patchTicket(ticketId, in.patch(), expectedVersion)).bytes();
+            }
+            case ClusterProtocol.ASSIGN -> {
+                String ticketId = in.string();
+                yield ok.ticket(local.assignTicket(ticketId, in.string())).bytes();
+            }
+            case ClusterProtocol.RESOLVE -> ok.ticket(local.resolveTicket(in.string())).bytes();
+            case ClusterProtocol.ADD_REPLY -> {
+                String ticketId = in.string();
+                String content = in.string();
+                yield ok.reply(local.addReply(ticketId, content, in.string())).bytes();
+            }
+            case ClusterProtocol.EDIT_REPLY -> {
+                String ticketId = in.string();
+                String replyId = in.string();
+                yield ok.reply(local.editReply(ticketId, replyId, in.string())).bytes();
+            }
+            case ClusterProtocol.ASSIGN_BULK -> ok.results(local.assignTickets(in.items()), ClusterProtocol.Writer::ticket).bytes();
+            case ClusterProtocol.RESOLVE_BULK -> ok.results(local.resolveTickets(in.items()), ClusterProtocol.Writer::ticket).bytes();
+            case ClusterProtocol.ADD_REPLIES -> ok.results(local.addReplies(in.items()), ClusterProtocol.Writer::reply).bytes();
+            default -> throw new IOException("Unknown request: " + opcode);
+        };
+    }
+}
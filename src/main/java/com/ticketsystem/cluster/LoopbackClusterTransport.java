@@ -0,0 +1,78 @@
+package com.ticketsystem.cluster;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Several nodes in one JVM. A call runs the target node's handler on the calling thread with
+// copies of the payloads, so nodes share no objects, just as over a socket. Nodes can be cut off
+// and reconnected to exercise catch-up.
+public class LoopbackClusterTransport implements ClusterTransport {
+    private final Network network;
+    private final int nodeId;
+
+    public static final class Network {
+        private final AtomicReferenceArray<Handler> handlers;
+        private final Set<Integer> unreachable = ConcurrentHashMap.newKeySet();
+
+        public Network(int size) {
+            this.handlers = new AtomicReferenceArray<>(size);
+        }
+
+        public LoopbackClusterTransport node(int nodeId) {
+            return new LoopbackClusterTransport(this, nodeId);
+        }
+
+        // An unreachable node can neither send nor receive
+        public void setReachable(int nodeId, boolean reachable) {
+            if (reachable) {
+                unreachable.remove(nodeId);
+            } else {
+                unreachable.add(nodeId);
+            }
+        }
+
+        private boolean reachable(int from, int to) {
+            return !unreachable.contains(from) && !unreachable.contains(to);
+        }
+    }
+
+    private LoopbackClusterTransport(Network network, int nodeId) {
+        this.network = network;
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public int nodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public int size() {
+        return network.handlers.length();
+    }
+
+    @Override
+    public void start(Handler handler) {
+        network.handlers.set(nodeId, handler);
+    }
+
+    @Override
+    public byte[] call(int node, byte[] request, long timeoutMillis) throws IOException {
+        Handler handler = network.handlers.get(node);
+        if (handler == null || !network.reachable(nodeId, node)) {
+            throw new IOException("Node " + node + " is not reachable from node " + nodeId);
+        }
+        byte[] reply = handler.handle(request.clone());
+        if (!network.reachable(nodeId, node)) {
+            throw new IOException("Node " + node + " became unreachable from node " + nodeId);
+        }
+        return reply.clone();
+    }
+
+    @Override
+    public void close() {
+        network.handlers.set(nodeId, null);
+    }
+}
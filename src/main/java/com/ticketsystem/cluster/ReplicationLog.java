@@ -0,0 +1,84 @@
+package com.ticketsystem.cluster;
+
+import com.ticketsystem.persistence.TicketEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// The mutations this node made to the tickets it owns, numbered in the order they were made, for
+// the other nodes to pull. Only the last capacity mutations are kept; a node further behind than
+// that resyncs from a snapshot. Sequences restart with every process, so each run has a random
+// epoch and a reader holding a sequence from another run resyncs too.
+class ReplicationLog {
+    private final TicketEvent[] ring;
+    private final int mask;
+    private final long epoch = ThreadLocalRandom.current().nextLong();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private long lastSequence;
+
+    record Batch(long epoch, List<TicketEvent> events, long lastSequence, boolean truncated) {
+    }
+
+    ReplicationLog(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.ring = new TicketEvent[size];
+        this.mask = size - 1;
+    }
+
+    long epoch() {
+        return epoch;
+    }
+
+    long lastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Called under the ticket's lock, so mutations of one ticket are numbered in order
+    void append(TicketEvent event) {
+        lock.lock();
+        try {
+            lastSequence++;
+            ring[(int) (lastSequence & mask)] = event;
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Up to max events after the given sequence of the given epoch, waiting up to the timeout for
+    // the first one. The batch is truncated, and empty, when the reader has to resync first.
+    Batch read(long readerEpoch, long after, int max, long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            if (readerEpoch != epoch || after < 0 || after > lastSequence || after < lastSequence - ring.length) {
+                return new Batch(epoch, List.of(), lastSequence, true);
+            }
+            while (after == lastSequence && remaining > 0) {
+                remaining = appended.awaitNanos(remaining);
+            }
+            if (after < lastSequence - ring.length) {
+                // Overrun while waiting
+                return new Batch(epoch, List.of(), lastSequence, true);
+            }
+            int count = (int) Math.min(max, lastSequence - after);
+            List<TicketEvent> events = new ArrayList<>(count);
+            for (long sequence = after + 1; sequence <= after + count; sequence++) {
+                events.add(ring[(int) (sequence & mask)]);
+            }
+            return new Batch(epoch, events, after + count, false);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.ticketsystem.cluster;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Length-prefixed frames over TCP. Every node listens on its own address and serves each
+// connection on a virtual thread, one request at a time. Calls borrow an idle pooled connection
+// to the target or open one, so concurrent calls and long polls never queue behind each other.
+public class TcpClusterTransport implements ClusterTransport {
+    private static final int MAX_FRAME_BYTES = 256 * 1024 * 1024;
+    private static final int CONNECT_TIMEOUT_MILLIS = 2000;
+
+    private final List<InetSocketAddress> nodes;
+    private final int nodeId;
+    private final List<Queue<Connection>> idle;
+    private final Set<Socket> accepted = ConcurrentHashMap.newKeySet();
+    private volatile ServerSocket server;
+    private volatile boolean closed;
+
+    private record Connection(Socket socket, DataInputStream in, DataOutputStream out) {
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already broken
+            }
+        }
+    }
+
+    public TcpClusterTransport(List<InetSocketAddress> nodes, int nodeId) {
+        if (nodeId < 0 || nodeId >= nodes.size()) {
+            throw new IllegalArgumentException("Node id " + nodeId + " is not one of the " + nodes.size() + " cluster nodes");
+        }
+        this.nodes = List.copyOf(nodes);
+        this.nodeId = nodeId;
+        this.idle = new ArrayList<>(nodes.size());
+        for (int i = 0; i < nodes.size(); i++) {
+            idle.add(new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    @Override
+    public int nodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public int size() {
+        return nodes.size();
+    }
+
+    @Override
+    public void start(Handler handler) throws IOException {
+        ServerSocket socket = new ServerSocket();
+        socket.setReuseAddress(true);
+        socket.bind(new InetSocketAddress(nodes.get(nodeId).getPort()));
+        server = socket;
+        Thread.ofVirtual().name("cluster-accept-" + nodeId).start(() -> accept(socket, handler));
+    }
+
+    private void accept(ServerSocket socket, Handler handler) {
+        while (!closed) {
+            try {
+                Socket peer = socket.accept();
+                peer.setTcpNoDelay(true);
+                accepted.add(peer);
+                Thread.ofVirtual().name("cluster-serve-" + nodeId).start(() -> serve(peer, handler));
+            } catch (IOException e) {
+                // The server socket was closed, or one accept failed; keep going unless closing
+            }
+        }
+    }
+
+    private void serve(Socket peer, Handler handler) {
+        try (peer;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(peer.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(peer.getOutputStream()))) {
+            while (true) {
+                writeFrame(out, handler.handle(readFrame(in)));
+            }
+        } catch (IOException e) {
+            // The peer closed the connection, or this transport is closing
+        } finally {
+            accepted.remove(peer);
+        }
+    }
+
+    // A pooled connection the peer has closed since (it restarted, say) fails on first use; the
+    // call is then retried once on a fresh connection, unless it timed out
+    @Override
+    public byte[] call(int node, byte[] request, long timeoutMillis) throws IOException {
+        Connection pooled = idle.get(node).poll();
+        if (pooled != null) {
+            try {
+                return exchange(node, pooled, request, timeoutMillis);
+            } catch (SocketTimeoutException e) {
+                throw e;
+            } catch (IOException e) {
+                // Stale connection; fall through to a fresh one
+            }
+        }
+        return exchange(node, connect(node), request, timeoutMillis);
+    }
+
+    private byte[] exchange(int node, Connection connection, byte[] request, long timeoutMillis) throws IOException {
+        try {
+            connection.socket().setSoTimeout((int) Math.min(Integer.MAX_VALUE, Math.max(1, timeoutMillis)));
+            writeFrame(connection.out(), request);
+            byte[] reply = readFrame(connection.in());
+            idle.get(node).offer(connection);
+            if (closed) {
+                closeIdle();
+            }
+            return reply;
+        } catch (IOException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    private Connection connect(int node) throws IOException {
+        if (closed) {
+            throw new IOException("Cluster transport is closed");
+        }
+        Socket socket = new Socket();
+        try {
+            socket.connect(nodes.get(node), CONNECT_TIMEOUT_MILLIS);
+            socket.setTcpNoDelay(true);
+            return new Connection(socket,
+                    new DataInputStream(new BufferedInputStream(socket.getInputStream())),
+                    new DataOutputStream(new BufferedOutputStream(socket.getOutputStream())));
+        } catch (IOException e) {
+            socket.close();
+            throw new IOException("Cannot connect to node " + node + " at " + nodes.get(node), e);
+        }
+    }
+
+    private static byte[] readFrame(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_FRAME_BYTES) {
+            throw new IOException("Bad frame length: " + length);
+        }
+        byte[] frame = new byte[length];
+        in.readFully(frame);
+        return frame;
+    }
+
+    private static void writeFrame(DataOutputStream out, byte[] frame) throws IOException {
+        out.writeInt(frame.length);
+        out.write(frame);
+        out.flush();
+    }
+
+    private void closeIdle() {
+        for (Queue<Connection> connections : idle) {
+            for (Connection connection; (connection = connections.poll()) != null; ) {
+                connection.close();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        if (server != null) {
+            server.close();
+        }
+        closeIdle();
+        for (Socket peer : accepted) {
+            peer.close();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.ticketsystem.controller;
+
+import com.ticketsystem.analytics.TicketAnalytics;
+import com.ticketsystem.controller.TicketController.Result;
+import com.ticketsystem.model.ActivityReport;
+import com.ticketsystem.model.DepartmentThroughput;
+import com.ticketsystem.model.ResolutionTimeReport;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Reports over a time window given as epoch millis: the last seven days when from and to are left out
+@RestController
+@RequestMapping("/api/analytics")
+public class AnalyticsController {
+    private static final long DEFAULT_WINDOW_MILLIS = TimeUnit.DAYS.toMillis(7);
+
+    private final TicketAnalytics analytics;
+
+    public AnalyticsController(TicketAnalytics analytics) {
+        this.analytics = analytics;
+    }
+
+    @GetMapping("/activity")
+    public ResponseEntity<Result<ActivityReport>> getActivity(
+            @RequestParam(required = false) Long from,
+            @RequestParam(required = false) Long to,
+            @RequestParam(defaultValue = "60") long bucketMinutes,
+            @RequestParam(required = false) String department) {
+        long end = to != null ? to : System.currentTimeMillis();
+        long start = from != null ? from : end - DEFAULT_WINDOW_MILLIS;
+        try {
+            ActivityReport report = analytics.activity(start, end, TimeUnit.MINUTES.toMillis(bucketMinutes), department);
+            return ResponseEntity.ok(Result.success(report, "GET_ACTIVITY"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Result.error(e.getMessage(), "GET_ACTIVITY"));
+        }
+    }
+
+    @GetMapping("/resolution-times")
+    public ResponseEntity<Result<ResolutionTimeReport>> getResolutionTimes(
+            @RequestParam(required = false) Long from,
+            @RequestParam(required = false) Long to,
+            @RequestParam(required = false) String department) {
+        long end = to != null ? to : System.currentTimeMillis();
+        long start = from != null ? from : end - DEFAULT_WINDOW_MILLIS;
+        try {
+            return ResponseEntity.ok(Result.success(analytics.resolutionTimes(start, end, department), "GET_RESOLUTION_TIMES"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Result.error(e.getMessage(), "GET_RESOLUTION_TIMES"));
+        }
+    }
+
+    @GetMapping("/throughput")
+    public ResponseEntity<Result<List<DepartmentThroughput>>> getThroughput(
+            @RequestParam(required = false) Long from,
+            @RequestParam(required = false) Long to) {
+        long end = to != null ? to : System.currentTimeMillis();
+        long start = from != null ? from : end - DEFAULT_WINDOW_MILLIS;
+        try {
+            return ResponseEntity.ok(Result.success(analytics.throughput(start, end), "GET_THROUGHPUT"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Result.error(e.getMessage(), "GET_THROUGHPUT"));
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.ticketsystem.controller;
+
+import com.ticketsystem.metrics.CacheMetrics;
+import com.ticketsystem.metrics.MetricsRegistry;
+import com.ticketsystem.service.TicketQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Serialized responses of the whole-store queries, one per query and wire format, each stamped with
+// the query version it was computed at, so a hit is a map lookup that skips both the query and
+// Jackson. Every entry gets its own ETag, so the formats never share one. The total size is
+// bounded; storing past the bound evicts the least recently used entries first, and a response
+// larger than the bound is served without being cached.
+@Component
+public class ResponseCache {
+    private final long maxBytes;
+    private final CacheMetrics[] metrics = new CacheMetrics[TicketQuery.values().length];
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    // Guards stores and evictions; lookups do not take it
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicLong fills = new AtomicLong();
+    // Keeps ETags from one process run from matching responses of the next
+    private final String eTagPrefix = Long.toString(System.currentTimeMillis(), 36) + "-";
+    private long bytes;
+
+    @Autowired
+    public ResponseCache(@Value("${ticket.cache.max-bytes:67108864}") long maxBytes, MetricsRegistry metricsRegistry) {
+        this.maxBytes = maxBytes;
+        for (TicketQuery query : TicketQuery.values()) {
+            metrics[query.ordinal()] = metricsRegistry.cache(query.name().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    @FunctionalInterface
+    public interface Renderer {
+        byte[] render() throws IOException;
+    }
+
+    private record Key(TicketQuery query, MediaType mediaType) {
+    }
+
+    public static final class Entry {
+        private final Key key;
+        private final long version;
+        private final byte[] body;
+        private final String eTag;
+        private volatile long lastUsed = System.nanoTime();
+
+        private Entry(Key key, long version, byte[] body, String eTag) {
+            this.key = key;
+            this.version = version;
+            this.body = body;
+            this.eTag = eTag;
+        }
+
+        public byte[] body() {
+            return body;
+        }
+
+        public MediaType mediaType() {
+            return key.mediaType();
+        }
+
+        public String eTag() {
+            return eTag;
+        }
+    }
+
+    // The cached response for the query in this format at this version, rendering and storing it
+    // on a miss
+    public Entry get(TicketQuery query, MediaType mediaType, long version, Renderer renderer) throws IOException {
+        CacheMetrics queryMetrics = metrics[query.ordinal()];
+        Key key = new Key(query, mediaType);
+        Entry entry = entries.get(key);
+        if (entry != null && entry.version == version) {
+            entry.lastUsed = System.nanoTime();
+            queryMetrics.recordHit();
+            return entry;
+        }
+        queryMetrics.recordMiss();
+        Entry rendered = new Entry(key, version, renderer.render(), "\"" + eTagPrefix + fills.incrementAndGet() + "\"");
+        store(rendered);
+        return rendered;
+    }
+
+    // If-None-Match uses weak comparison: W/ prefixes are ignored and * matches any entry
+    public static boolean matches(String ifNoneMatch, String eTag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void store(Entry rendered) {
+        long size = rendered.body.length;
+        if (size > maxBytes) {
+            return;
+        }
+        lock.lock();
+        try {
+            Entry current = entries.get(rendered.key);
+            if (current != null) {
+                if (current.version >= rendered.version) {
+                    // A concurrent miss already stored a result at least as new
+                    return;
+                }
+                remove(current);
+            }
+            while (bytes + size > maxBytes) {
+                Entry oldest = null;
+                for (Entry candidate : entries.values()) {
+                    if (oldest == null || candidate.lastUsed - oldest.lastUsed < 0) {
+                        oldest = candidate;
+                    }
+                }
+                remove(oldest);
+                metrics[oldest.key.query().ordinal()].recordEviction();
+            }
+            entries.put(rendered.key, rendered);
+            bytes += size;
+            metrics[rendered.key.query().ordinal()].addBytes(size);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void remove(Entry entry) {
+        entries.remove(entry.key);
+        bytes -= entry.body.length;
+        metrics[entry.key.query().ordinal()].addBytes(-entry.body.length);
+    }
+}
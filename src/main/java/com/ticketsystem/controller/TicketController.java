@@ -1,22 +1,73 @@
 package com.ticketsystem.controller;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticketsystem.assignment.AutoAssignmentEngine;
+import com.ticketsystem.events.TicketChangeBus;
+import com.ticketsystem.metrics.MetricsRegistry;
+import com.ticketsystem.model.BulkItem;
+import com.ticketsystem.model.BulkResult;
 import com.ticketsystem.model.Ticket;
+import com.ticketsystem.model.TicketChange;
+import com.ticketsystem.model.TicketChangeBatch;
 import com.ticketsystem.model.Reply;
+import com.ticketsystem.model.ReplyTreePage;
+import com.ticketsystem.model.TicketPage;
+import com.ticketsystem.model.TicketPatch;
+import com.ticketsystem.service.TicketQuery;
 import com.ticketsystem.service.TicketService;
+import com.ticketsystem.service.TicketVersionConflictException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/tickets")
 public class TicketController {
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int STREAM_CHUNK_SIZE = 500;
+    private static final int BULK_CHUNK_SIZE = 1000;
+    private static final long MAX_POLL_MILLIS = 60_000;
+    // How long past its wait a long poll may take to answer before the request itself times out
+    private static final long POLL_GRACE_MILLIS = 10_000;
+    private static final long KEEP_ALIVE_SECONDS = 15;
+    private static final MediaType PROMETHEUS_TEXT = MediaType.parseMediaType("text/plain;version=0.0.4;charset=utf-8");
+
     private final TicketService ticketService;
+    private final WireFormats wireFormats;
+    private final MetricsRegistry metricsRegistry;
+    private final ResponseCache responseCache;
+    private final TicketChangeBus changeBus;
+    private final AutoAssignmentEngine assignmentEngine;
+    private final long streamTimeoutMillis;
 
     @Autowired
-    public TicketController(TicketService ticketService) {
+    public TicketController(TicketService ticketService, WireFormats wireFormats, MetricsRegistry metricsRegistry,
+                            ResponseCache responseCache, TicketChangeBus changeBus, AutoAssignmentEngine assignmentEngine,
+                            @Value("${ticket.changes.stream-timeout-ms:1800000}") long streamTimeoutMillis) {
         this.ticketService = ticketService;
+        this.wireFormats = wireFormats;
+        this.metricsRegistry = metricsRegistry;
+        this.responseCache = responseCache;
+        this.changeBus = changeBus;
+        this.assignmentEngine = assignmentEngine;
+        this.streamTimeoutMillis = streamTimeoutMillis;
     }
 
     public static class Result<T> {
@@ -59,34 +110,76 @@ public class TicketController {
         public void setTimestamp(long timestamp) { this.timestamp = timestamp; }
     }
 
+    // department routes the ticket to that department's agents when new tickets are auto-assigned
     @PostMapping
-    public ResponseEntity<Result<Ticket>> createTicket(@RequestParam String title, @RequestParam String description) {
+    public ResponseEntity<Result<Ticket>> createTicket(
+            @RequestParam String title,
+            @RequestParam String description,
+            @RequestParam(required = false) String department) {
         Ticket ticket = ticketService.createTicket(title, description);
+        assignmentEngine.ticketCreated(ticket.getId(), department);
         return ResponseEntity.ok(Result.success(ticket, "Ticket created successfully", "CREATE_TICKET"));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Result<Ticket>> getTicket(@PathVariable String id) {
-        Ticket ticket = ticketService.getTicket(id);
+    public ResponseEntity<Result<Ticket>> getTicket(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "true") boolean includeReplies) {
+        Ticket ticket = ticketService.getTicket(id, includeReplies);
         if (ticket == null) {
             return ResponseEntity.status(404).body(Result.error("Ticket not found", "GET_TICKET"));
         }
-        return ResponseEntity.ok(Result.success(ticket, "GET_TICKET"));
+        return ResponseEntity.ok().eTag(eTag(ticket)).body(Result.success(ticket, "GET_TICKET"));
     }
 
+    // If-Match takes precedence over the version in the body; without either the update is unconditional
     @PutMapping("/{id}")
-    public ResponseEntity<Result<Ticket>> updateTicket(@PathVariable String id, @RequestBody Ticket ticket) {
+    public ResponseEntity<Result<Ticket>> updateTicket(
+            @PathVariable String id,
+            @RequestBody Ticket ticket,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         if (!id.equals(ticket.getId())) {
             return ResponseEntity.badRequest().body(Result.error("ID mismatch", "UPDATE_TICKET"));
         }
+        Long expectedVersion = ifMatch != null ? versionOf(ifMatch) : Long.valueOf(ticket.getVersion());
+        if (expectedVersion == null) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                    .body(Result.error("If-Match does not name a ticket version", "UPDATE_TICKET"));
+        }
         try {
-            ticketService.updateTicket(ticket);
-            return ResponseEntity.ok(Result.success(ticket, "Ticket updated successfully", "UPDATE_TICKET"));
+            Ticket updated = ticketService.updateTicket(ticket, expectedVersion);
+            return ResponseEntity.ok().eTag(eTag(updated))
+                    .body(Result.success(updated, "Ticket updated successfully", "UPDATE_TICKET"));
+        } catch (TicketVersionConflictException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).eTag(eTag(e.getCurrentVersion()))
+                    .body(Result.error(e.getMessage(), "UPDATE_TICKET"));
         } catch (Exception e) {
             return ResponseEntity.status(404).body(Result.error("Ticket not found", "UPDATE_TICKET"));
         }
     }
 
+    @PatchMapping("/{id}")
+    public ResponseEntity<Result<Ticket>> patchTicket(
+            @PathVariable String id,
+            @RequestBody TicketPatch patch,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = ifMatch != null ? versionOf(ifMatch) : Long.valueOf(TicketService.ANY_VERSION);
+        if (expectedVersion == null) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                    .body(Result.error("If-Match does not name a ticket version", "PATCH_TICKET"));
+        }
+        try {
+            Ticket updated = ticketService.patchTicket(id, patch, expectedVersion);
+            return ResponseEntity.ok().eTag(eTag(updated))
+                    .body(Result.success(updated, "Ticket updated successfully", "PATCH_TICKET"));
+        } catch (TicketVersionConflictException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).eTag(eTag(e.getCurrentVersion()))
+                    .body(Result.error(e.getMessage(), "PATCH_TICKET"));
+        } catch (Exception e) {
+            return ResponseEntity.status(404).body(Result.error("Ticket not found", "PATCH_TICKET"));
+        }
+    }
+
     @PutMapping("/{id}/assign")
     public ResponseEntity<Result<Ticket>> assignTicket(@PathVariable String id, @RequestParam String userId) {
         try {
@@ -97,6 +190,23 @@ public class TicketController {
         }
     }
 
+    // Queues the ticket for the least-loaded agent of the department, or of all agents
+    @PostMapping("/{id}/auto-assign")
+    public ResponseEntity<Result<Ticket>> autoAssignTicket(@PathVariable String id,
+                                                           @RequestParam(required = false) String department) {
+        Ticket ticket = ticketService.getTicket(id);
+        if (ticket == null) {
+            return ResponseEntity.status(404).body(Result.error("Ticket not found", "AUTO_ASSIGN_TICKET"));
+        }
+        try {
+            assignmentEngine.submit(id, department);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Result.error(e.getMessage(), "AUTO_ASSIGN_TICKET"));
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(Result.success(ticket, "Ticket queued for assignment", "AUTO_ASSIGN_TICKET"));
+    }
+
     @PutMapping("/{id}/resolve")
     public ResponseEntity<Result<Ticket>> resolveTicket(@PathVariable String id) {
         try {
@@ -133,29 +243,133 @@ public class TicketController {
         }
     }
 
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE, WireFormats.SMILE_VALUE})
+    public ResponseEntity<Result<List<BulkResult<Ticket>>>> createTickets(
+            InputStream body, @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType) {
+        return bulk(body, contentType, items -> {
+            List<BulkResult<Ticket>> results = ticketService.createTickets(items);
+            for (BulkResult<Ticket> result : results) {
+                if (result.isSuccess()) {
+                    assignmentEngine.ticketCreated(result.getData().getId(), items.get(result.getIndex()).getDepartment());
+                }
+            }
+            return results;
+        }, "BULK_CREATE_TICKETS");
+    }
+
+    @PostMapping(value = "/bulk/assign", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE, WireFormats.SMILE_VALUE})
+    public ResponseEntity<Result<List<BulkResult<Ticket>>>> assignTickets(
+            InputStream body, @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType) {
+        return bulk(body, contentType, ticketService::assignTickets, "BULK_ASSIGN_TICKETS");
+    }
+
+    @PostMapping(value = "/bulk/resolve", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE, WireFormats.SMILE_VALUE})
+    public ResponseEntity<Result<List<BulkResult<Ticket>>>> resolveTickets(
+            InputStream body, @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType) {
+        return bulk(body, contentType, ticketService::resolveTickets, "BULK_RESOLVE_TICKETS");
+    }
+
+    @PostMapping(value = "/bulk/replies", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE, WireFormats.SMILE_VALUE})
+    public ResponseEntity<Result<List<BulkResult<Reply>>>> addReplies(
+            InputStream body, @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType) {
+        return bulk(body, contentType, ticketService::addReplies, "BULK_ADD_REPLIES");
+    }
+
     @GetMapping
     public ResponseEntity<Result<List<Ticket>>> getAllTickets() {
         return ResponseEntity.ok(Result.success(ticketService.getAllTickets(), "GET_ALL_TICKETS"));
     }
 
+    @GetMapping(params = {"limit", "!format"})
+    public ResponseEntity<Result<TicketPage>> getTicketPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam int limit) {
+        try {
+            TicketPage page = ticketService.getAllTickets(cursor, pageSize(limit));
+            return ResponseEntity.ok(Result.success(page, "GET_ALL_TICKETS"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Result.error("Invalid cursor", "GET_ALL_TICKETS"));
+        }
+    }
+
+    @GetMapping(params = "format=ndjson", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllTickets() {
+        return ndjson((cursor, limit) -> ticketService.getAllTickets(cursor, limit));
+    }
+
     @GetMapping("/status/{status}")
     public ResponseEntity<Result<List<Ticket>>> getTicketsByStatus(@PathVariable String status) {
         return ResponseEntity.ok(Result.success(ticketService.getTicketsByStatus(status), "GET_TICKETS_BY_STATUS"));
     }
 
+    @GetMapping(value = "/status/{status}", params = {"limit", "!format"})
+    public ResponseEntity<Result<TicketPage>> getTicketPageByStatus(
+            @PathVariable String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam int limit) {
+        TicketPage page = ticketService.getTicketsByStatus(status, cursor, pageSize(limit));
+        return ResponseEntity.ok(Result.success(page, "GET_TICKETS_BY_STATUS"));
+    }
+
+    @GetMapping(value = "/status/{status}", params = "format=ndjson", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamTicketsByStatus(@PathVariable String status) {
+        return ndjson((cursor, limit) -> ticketService.getTicketsByStatus(status, cursor, limit));
+    }
+
     @GetMapping("/assignee/{userId}")
     public ResponseEntity<Result<List<Ticket>>> getTicketsByAssignee(@PathVariable String userId) {
         return ResponseEntity.ok(Result.success(ticketService.getTicketsByAssignee(userId), "GET_TICKETS_BY_ASSIGNEE"));
     }
 
+    @GetMapping(value = "/assignee/{userId}", params = {"limit", "!format"})
+    public ResponseEntity<Result<TicketPage>> getTicketPageByAssignee(
+            @PathVariable String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam int limit) {
+        TicketPage page = ticketService.getTicketsByAssignee(userId, cursor, pageSize(limit));
+        return ResponseEntity.ok(Result.success(page, "GET_TICKETS_BY_ASSIGNEE"));
+    }
+
+    @GetMapping(value = "/assignee/{userId}", params = "format=ndjson", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamTicketsByAssignee(@PathVariable String userId) {
+        return ndjson((cursor, limit) -> ticketService.getTicketsByAssignee(userId, cursor, limit));
+    }
+
     @GetMapping("/departments")
-    public ResponseEntity<Result<Map<String, List<Ticket>>>> getTicketsByDepartment() {
-        return ResponseEntity.ok(Result.success(ticketService.getTicketsByDepartment(), "GET_TICKETS_BY_DEPARTMENT"));
+    public ResponseEntity<byte[]> getTicketsByDepartment(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return cached(TicketQuery.DEPARTMENTS, accept, ifNoneMatch,
+                () -> Result.success(ticketService.getTicketsByDepartment(), "GET_TICKETS_BY_DEPARTMENT"));
+    }
+
+    @GetMapping(value = "/departments/{department}", params = "!format")
+    public ResponseEntity<Result<TicketPage>> getTicketPageByDepartment(
+            @PathVariable String department,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        TicketPage page = ticketService.getTicketsByDepartment(department, cursor, pageSize(limit));
+        return ResponseEntity.ok(Result.success(page, "GET_TICKETS_BY_DEPARTMENT"));
+    }
+
+    @GetMapping(value = "/departments/{department}", params = "format=ndjson", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamTicketsByDepartment(@PathVariable String department) {
+        return ndjson((cursor, limit) -> ticketService.getTicketsByDepartment(department, cursor, limit));
     }
 
     @GetMapping("/search")
-    public ResponseEntity<Result<List<Ticket>>> searchTickets(@RequestParam String query) {
-        return ResponseEntity.ok(Result.success(ticketService.searchTickets(query), "SEARCH_TICKETS"));
+    public ResponseEntity<Result<List<Ticket>>> searchTickets(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "false") boolean includeReplies,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(required = false) Integer limit) {
+        List<Ticket> results = ticketService.searchTickets(query, includeReplies, offset,
+                limit != null ? limit : Integer.MAX_VALUE);
+        return ResponseEntity.ok(Result.success(results, "SEARCH_TICKETS"));
     }
 
     @GetMapping("/{ticketId}/replies")
@@ -168,9 +382,33 @@ public class TicketController {
         }
     }
 
+    // A page of the thread for clients that render it incrementally: limit caps the replies returned
+    // at every level together, depth how many levels below parentReplyId (or the top) are expanded
+    @GetMapping(value = "/{ticketId}/replies", params = "limit")
+    public ResponseEntity<Result<ReplyTreePage>> getTicketRepliesPage(
+            @PathVariable String ticketId,
+            @RequestParam(required = false) String parentReplyId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "1") int depth,
+            @RequestParam int limit) {
+        if (ticketService.getTicket(ticketId, false) == null) {
+            return ResponseEntity.status(404).body(Result.error("Ticket not found", "GET_TICKET_REPLIES"));
+        }
+        try {
+            ReplyTreePage page = ticketService.getTicketRepliesTree(ticketId, parentReplyId, cursor,
+                    Math.max(1, depth), pageSize(limit));
+            return ResponseEntity.ok(Result.success(page, "GET_TICKET_REPLIES"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Result.error("Invalid cursor or parent reply", "GET_TICKET_REPLIES"));
+        }
+    }
+
     @GetMapping("/statistics")
-    public ResponseEntity<Result<Map<String, Integer>>> getTicketStatistics() {
-        return ResponseEntity.ok(Result.success(ticketService.getTicketStatistics(), "GET_STATISTICS"));
+    public ResponseEntity<byte[]> getTicketStatistics(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return cached(TicketQuery.STATISTICS, accept, ifNoneMatch,
+                () -> Result.success(ticketService.getTicketStatistics(), "GET_STATISTICS"));
     }
 
     @GetMapping("/recent")
@@ -179,12 +417,209 @@ public class TicketController {
     }
 
     @GetMapping("/unassigned")
-    public ResponseEntity<Result<List<Ticket>>> getUnassignedTickets() {
-        return ResponseEntity.ok(Result.success(ticketService.getUnassignedTickets(), "GET_UNASSIGNED_TICKETS"));
+    public ResponseEntity<byte[]> getUnassignedTickets(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return cached(TicketQuery.UNASSIGNED, accept, ifNoneMatch,
+                () -> Result.success(ticketService.getUnassignedTickets(), "GET_UNASSIGNED_TICKETS"));
     }
 
     @GetMapping("/overdue")
-    public ResponseEntity<Result<List<Ticket>>> getOverdueTickets() {
-        return ResponseEntity.ok(Result.success(ticketService.getOverdueTickets(), "GET_OVERDUE_TICKETS"));
+    public ResponseEntity<byte[]> getOverdueTickets(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return cached(TicketQuery.OVERDUE, accept, ifNoneMatch,
+                () -> Result.success(ticketService.getOverdueTickets(), "GET_OVERDUE_TICKETS"));
+    }
+
+    // Long poll: answers as soon as there are changes after the given sequence, or empty after timeoutMs.
+    // The wait happens on a virtual thread of its own, as for streams, so a parked poll holds neither
+    // a servlet thread nor one of the MVC async executor's; the deferred result carries its own
+    // timeout, past the longest wait, in place of the container's shorter default.
+    @GetMapping("/changes")
+    public DeferredResult<ResponseEntity<Result<TicketChangeBatch>>> pollChanges(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) String assignee,
+            @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "25000") long timeoutMs,
+            @RequestParam(defaultValue = "500") int limit) {
+        TicketChangeBus.Subscription subscription =
+                changeBus.subscribe(after != null ? after : -1, change -> change.matches(assignee, status));
+        long wait = Math.max(0, Math.min(timeoutMs, MAX_POLL_MILLIS));
+        int max = pageSize(limit);
+        DeferredResult<ResponseEntity<Result<TicketChangeBatch>>> result = new DeferredResult<>(wait + POLL_GRACE_MILLIS);
+        Thread poller = Thread.ofVirtual().name("ticket-changes-poll").unstarted(() -> {
+            try {
+                result.setResult(ResponseEntity.ok(Result.success(
+                        subscription.poll(max, wait, TimeUnit.MILLISECONDS), "POLL_CHANGES")));
+            } catch (InterruptedException e) {
+                // The request timed out or the client went away
+            } catch (RuntimeException e) {
+                result.setErrorResult(e);
+            }
+        });
+        result.onTimeout(poller::interrupt);
+        result.onError(e -> poller.interrupt());
+        poller.start();
+        return result;
+    }
+
+    // Server-sent events with the change sequence as event id, so a reconnecting EventSource resumes
+    // through Last-Event-ID (which takes precedence over after). Each stream is fed by its own virtual
+    // thread; a slow client only holds up its own cursor, never the writers.
+    @GetMapping(value = "/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) String assignee,
+            @RequestParam(required = false) String status,
+            @RequestHeader(value = HttpHeaders.LAST_EVENT_ID, required = false) String lastEventId) {
+        long from = after != null ? after : -1;
+        if (lastEventId != null) {
+            try {
+                from = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException e) {
+                // Not one of ours; start from the requested position
+            }
+        }
+        TicketChangeBus.Subscription subscription = changeBus.subscribe(from, change -> change.matches(assignee, status));
+        SseEmitter emitter = new SseEmitter(streamTimeoutMillis);
+        Thread sender = Thread.ofVirtual().name("ticket-changes").unstarted(() -> sendChanges(emitter, subscription));
+        emitter.onCompletion(sender::interrupt);
+        emitter.onTimeout(sender::interrupt);
+        emitter.onError(e -> sender.interrupt());
+        sender.start();
+        return emitter;
+    }
+
+    @GetMapping("/metrics")
+    public ResponseEntity<String> getMetrics() {
+        return ResponseEntity.ok().contentType(PROMETHEUS_TEXT).body(metricsRegistry.scrape());
+    }
+
+    // Serves a whole-store query from the response cache, in the format the client accepts, so its
+    // timestamp is when the result was computed; a client that already holds the current result
+    // gets 304 with no body
+    private ResponseEntity<byte[]> cached(TicketQuery query, String accept, String ifNoneMatch,
+                                          Supplier<Result<?>> result) {
+        WireFormats.Format format = wireFormats.negotiate(accept);
+        ResponseCache.Entry entry;
+        try {
+            entry = responseCache.get(query, format.mediaType(), ticketService.queryVersion(query),
+                    () -> format.mapper().writeValueAsBytes(result.get()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (ifNoneMatch != null && ResponseCache.matches(ifNoneMatch, entry.eTag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(entry.eTag())
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT).build();
+        }
+        return ResponseEntity.ok().eTag(entry.eTag()).header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .contentType(entry.mediaType()).body(entry.body());
+    }
+
+    // Idle streams get a keep-alive that carries the cursor as event id without firing an event,
+    // so a reconnect after a quiet period does not resume from far behind
+    private void sendChanges(SseEmitter emitter, TicketChangeBus.Subscription subscription) {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                TicketChangeBatch batch = subscription.poll(STREAM_CHUNK_SIZE, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+                String lastId = Long.toString(batch.getLastSequence());
+                if (batch.isTruncated()) {
+                    emitter.send(SseEmitter.event().id(lastId).name("truncated").data(lastId));
+                } else if (batch.getChanges().isEmpty()) {
+                    emitter.send(SseEmitter.event().id(lastId).comment("keep-alive"));
+                }
+                for (TicketChange change : batch.getChanges()) {
+                    emitter.send(SseEmitter.event().id(Long.toString(change.getSequence()))
+                            .name("ticket-change").data(change, MediaType.APPLICATION_JSON));
+                }
+            }
+        } catch (InterruptedException e) {
+            // The stream completed or timed out
+        } catch (IOException | IllegalStateException e) {
+            // The client went away, or the emitter completed while sending; the container cleans up
+        }
+    }
+
+    private static String eTag(Ticket ticket) {
+        return eTag(ticket.getVersion());
+    }
+
+    private static String eTag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    // Accepts "3", 3 and *; null for anything else, including weak tags, which If-Match never matches
+    private static Long versionOf(String ifMatch) {
+        String value = ifMatch.trim();
+        if (value.equals("*")) {
+            return TicketService.ANY_VERSION;
+        }
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static int pageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    // Writes one ticket per line, fetching a page at a time so memory stays bounded by the chunk size
+    private ResponseEntity<StreamingResponseBody> ndjson(BiFunction<String, Integer, TicketPage> pages) {
+        StreamingResponseBody body = out -> {
+            String cursor = null;
+            do {
+                TicketPage page = pages.apply(cursor, STREAM_CHUNK_SIZE);
+                for (Ticket ticket : page.getItems()) {
+                    out.write(wireFormats.json().mapper().writeValueAsBytes(ticket));
+                    out.write('\n');
+                }
+                out.flush();
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    // Reads an array or a sequence of entries, in JSON, NDJSON, CBOR or Smile, entry by entry and
+    // hands it to the service a chunk at a time, so a large request is never materialized as one
+    // list. Chunks already applied stay applied when the body turns out to be malformed; their
+    // results are returned with the 400.
+    private <T> ResponseEntity<Result<List<BulkResult<T>>>> bulk(InputStream body, String contentType,
+            Function<List<BulkItem>, List<BulkResult<T>>> apply, String operation) {
+        List<BulkResult<T>> results = new ArrayList<>();
+        List<BulkItem> chunk = new ArrayList<>(BULK_CHUNK_SIZE);
+        ObjectMapper mapper = wireFormats.ofContentType(contentType).mapper();
+        try (MappingIterator<BulkItem> items = mapper.readerFor(BulkItem.class).readValues(body)) {
+            while (items.hasNextValue()) {
+                chunk.add(items.nextValue());
+                if (chunk.size() == BULK_CHUNK_SIZE) {
+                    applyChunk(chunk, apply, results);
+                }
+            }
+            applyChunk(chunk, apply, results);
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body(new Result<>(results,
+                    "Malformed bulk request after " + results.size() + " entries", false, operation));
+        }
+        return ResponseEntity.ok(Result.success(results, operation));
+    }
+
+    private static <T> void applyChunk(List<BulkItem> chunk, Function<List<BulkItem>, List<BulkResult<T>>> apply,
+                                       List<BulkResult<T>> results) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        int offset = results.size();
+        for (BulkResult<T> result : apply.apply(chunk)) {
+            result.setIndex(result.getIndex() + offset);
+            results.add(result);
+        }
+        chunk.clear();
     }
-}
\ No newline at end of file
+}
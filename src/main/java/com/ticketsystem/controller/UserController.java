@@ -0,0 +1,65 @@
+package com.ticketsystem.controller;
+
+import com.ticketsystem.assignment.AutoAssignmentEngine;
+import com.ticketsystem.controller.TicketController.Result;
+import com.ticketsystem.model.AgentLoad;
+import com.ticketsystem.model.User;
+import com.ticketsystem.service.UserService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/users")
+public class UserController {
+    private final UserService userService;
+    private final AutoAssignmentEngine assignmentEngine;
+
+    public UserController(UserService userService, AutoAssignmentEngine assignmentEngine) {
+        this.userService = userService;
+        this.assignmentEngine = assignmentEngine;
+    }
+
+    @PostMapping
+    public ResponseEntity<Result<User>> createUser(@RequestBody User user) {
+        return ResponseEntity.ok(Result.success(userService.saveUser(user), "User saved successfully", "SAVE_USER"));
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<Result<User>> updateUser(@PathVariable String id, @RequestBody User user) {
+        if (user.getId() != null && !id.equals(user.getId())) {
+            return ResponseEntity.badRequest().body(Result.error("ID mismatch", "SAVE_USER"));
+        }
+        user.setId(id);
+        return ResponseEntity.ok(Result.success(userService.saveUser(user), "User saved successfully", "SAVE_USER"));
+    }
+
+    @GetMapping
+    public ResponseEntity<Result<List<User>>> getUsers(@RequestParam(required = false) String department) {
+        return ResponseEntity.ok(Result.success(userService.getUsers(department), "GET_USERS"));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Result<User>> getUser(@PathVariable String id) {
+        User user = userService.getUser(id);
+        if (user == null) {
+            return ResponseEntity.status(404).body(Result.error("User not found", "GET_USER"));
+        }
+        return ResponseEntity.ok(Result.success(user, "GET_USER"));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Result<User>> deleteUser(@PathVariable String id) {
+        if (!userService.deleteUser(id)) {
+            return ResponseEntity.status(404).body(Result.error("User not found", "DELETE_USER"));
+        }
+        return ResponseEntity.ok(Result.success(null, "User deleted successfully", "DELETE_USER"));
+    }
+
+    // Agents' open-ticket counts, least loaded first
+    @GetMapping("/workloads")
+    public ResponseEntity<Result<List<AgentLoad>>> getWorkloads(@RequestParam(required = false) String department) {
+        return ResponseEntity.ok(Result.success(assignmentEngine.workloads(department), "GET_WORKLOADS"));
+    }
+}
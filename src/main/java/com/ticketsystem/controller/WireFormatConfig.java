@@ -0,0 +1,34 @@
+package com.ticketsystem.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+// The binary mappers are built from Boot's Jackson builder, so they share the JSON mapper's
+// settings; the converters replace the defaults Spring MVC would build without them
+@Configuration
+public class WireFormatConfig {
+
+    @Bean
+    public WireFormats wireFormats(ObjectMapper objectMapper, ObjectProvider<Jackson2ObjectMapperBuilder> builders) {
+        ObjectMapper cbor = builders.getObject().factory(new CBORFactory()).build();
+        ObjectMapper smile = builders.getObject().factory(new SmileFactory()).build();
+        return new WireFormats(objectMapper, cbor, smile);
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(WireFormats wireFormats) {
+        return new MappingJackson2CborHttpMessageConverter(wireFormats.cbor().mapper());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(WireFormats wireFormats) {
+        return new MappingJackson2SmileHttpMessageConverter(wireFormats.smile().mapper());
+    }
+}
@@ -0,0 +1,85 @@
+package com.ticketsystem.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+
+// The encodings the API speaks: JSON, and CBOR and Smile for clients that move large ticket lists.
+// The binary formats encode the same Jackson model as JSON, so every endpoint serves and accepts
+// them through content negotiation; responses the controller writes itself pick their format here.
+public class WireFormats {
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+    public static final MediaType SMILE = MediaType.parseMediaType(SMILE_VALUE);
+
+    public record Format(MediaType mediaType, ObjectMapper mapper) {
+    }
+
+    // JSON first: it is the default
+    private final List<Format> formats;
+
+    public WireFormats(ObjectMapper json, ObjectMapper cbor, ObjectMapper smile) {
+        this.formats = List.of(new Format(MediaType.APPLICATION_JSON, json),
+                new Format(MediaType.APPLICATION_CBOR, cbor), new Format(SMILE, smile));
+    }
+
+    public Format json() {
+        return formats.get(0);
+    }
+
+    public Format cbor() {
+        return formats.get(1);
+    }
+
+    public Format smile() {
+        return formats.get(2);
+    }
+
+    // The format the Accept header ranks highest: by quality, then a named type over a wildcard,
+    // then header order. JSON when the header is missing, malformed or names none of the formats.
+    public Format negotiate(String accept) {
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept);
+        } catch (IllegalArgumentException e) {
+            return json();
+        }
+        Format best = null;
+        double bestQuality = 0;
+        boolean bestNamed = false;
+        for (MediaType mediaType : accepted) {
+            double quality = mediaType.getQualityValue();
+            boolean named = !mediaType.isWildcardType() && !mediaType.isWildcardSubtype();
+            if (quality <= 0 || quality < bestQuality || (quality == bestQuality && (bestNamed || !named))) {
+                continue;
+            }
+            for (Format format : formats) {
+                if (mediaType.includes(format.mediaType())) {
+                    best = format;
+                    bestQuality = quality;
+                    bestNamed = named;
+                    break;
+                }
+            }
+        }
+        return best != null ? best : json();
+    }
+
+    // The format of a request body: JSON, which also reads NDJSON, unless the Content-Type names
+    // one of the binary formats
+    public Format ofContentType(String contentType) {
+        if (contentType != null) {
+            try {
+                MediaType mediaType = MediaType.parseMediaType(contentType);
+                for (Format format : formats) {
+                    if (format.mediaType().equalsTypeAndSubtype(mediaType)) {
+                        return format;
+                    }
+                }
+            } catch (IllegalArgumentException e) {
+                // Read as JSON; a body that is not fails as malformed
+            }
+        }
+        return json();
+    }
+}
@@ -0,0 +1,143 @@
+package com.ticketsystem.events;
+
+import com.ticketsystem.model.TicketChange;
+import com.ticketsystem.model.TicketChangeBatch;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+
+// In-process feed of ticket changes. Changes go into a fixed-size ring numbered by one sequence,
+// and every subscriber reads the ring from its own cursor: a subscriber's backlog is bounded by
+// the ring, memory does not grow with the number of subscribers, and publishing never waits for
+// a reader. A subscriber that falls further behind than the ring holds is told it lost changes.
+// Publishers claim their sequence with one atomic increment and fill their slot without a lock,
+// so slots can fill out of order; readers stop at the first slot that has not been filled yet.
+@Component
+public class TicketChangeBus {
+    private final AtomicReferenceArray<TicketChange> ring;
+    private final int mask;
+    private final Set<Subscription> waiting = ConcurrentHashMap.newKeySet();
+    // The last sequence claimed; its slot, and those of a few before it, may still be filling
+    private final AtomicLong lastSequence = new AtomicLong();
+
+    @Autowired
+    public TicketChangeBus(@Value("${ticket.changes.history:65536}") int history) {
+        int capacity = Integer.highestOneBit(Math.max(2, history - 1)) << 1;
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    // Callers hold the ticket's lock, so changes to one ticket are numbered in the order they happened
+    public void publish(TicketChange change) {
+        long sequence = lastSequence.incrementAndGet();
+        change.setSequence(sequence);
+        ring.set((int) (sequence & mask), change);
+        // A later change claimed before this slot filled may have left readers parked behind it,
+        // whatever their filter makes of this one
+        boolean filledLate = lastSequence.get() != sequence;
+        for (Subscription subscription : waiting) {
+            Thread waiter = subscription.waiter;
+            if (waiter != null && (filledLate || subscription.filter.test(change))) {
+                LockSupport.unpark(waiter);
+            }
+        }
+    }
+
+    public long lastSequence() {
+        return lastSequence.get();
+    }
+
+    // Whether the slot for this sequence has been filled by its publisher, or already by a later one
+    private boolean filled(long sequence) {
+        TicketChange change = ring.get((int) (sequence & mask));
+        return change != null && change.getSequence() >= sequence;
+    }
+
+    // Changes after the given sequence, or from now on when it is negative. A sequence this process
+    // never issued (one from before a restart) is reported as truncated on the first poll.
+    public Subscription subscribe(long after, Predicate<TicketChange> filter) {
+        long last = lastSequence.get();
+        return after < 0 || after > last ? new Subscription(last, after > last, filter) : new Subscription(after, false, filter);
+    }
+
+    // Used by one reader thread at a time
+    public final class Subscription {
+        private final Predicate<TicketChange> filter;
+        private long cursor;
+        private boolean truncated;
+        private volatile Thread waiter;
+
+        private Subscription(long cursor, boolean truncated, Predicate<TicketChange> filter) {
+            this.cursor = cursor;
+            this.truncated = truncated;
+            this.filter = filter;
+        }
+
+        // Up to max matching changes after the cursor, waiting up to the timeout for the first one;
+        // an empty batch means the timeout passed. A truncated batch is always empty.
+        public TicketChangeBatch poll(int max, long timeout, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            List<TicketChange> changes = new ArrayList<>();
+            while (true) {
+                long last = lastSequence.get();
+                long oldest = Math.max(1, last - mask);
+                if (cursor < oldest - 1 && changes.isEmpty()) {
+                    cursor = oldest - 1;
+                    truncated = true;
+                }
+                if (truncated) {
+                    truncated = false;
+                    return new TicketChangeBatch(changes, cursor, true);
+                }
+                while (cursor < last && changes.size() < max) {
+                    long next = cursor + 1;
+                    TicketChange change = ring.get((int) (next & mask));
+                    if (change == null || change.getSequence() != next) {
+                        // Not filled yet, or overwritten after lastSequence was read; the next round
+                        // waits for the one or reports the gap for the other
+                        break;
+                    }
+                    cursor = next;
+                    if (filter.test(change)) {
+                        changes.add(change);
+                    }
+                }
+                if (!changes.isEmpty()) {
+                    return new TicketChangeBatch(changes, cursor, false);
+                }
+                if (cursor < last && filled(cursor + 1)) {
+                    continue;
+                }
+
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return new TicketChangeBatch(changes, cursor, false);
+                }
+                waiter = Thread.currentThread();
+                waiting.add(this);
+                try {
+                    // Publishers fill their slot before scanning waiting, so one side sees the other
+                    if (!filled(cursor + 1)) {
+                        LockSupport.parkNanos(this, remaining);
+                    }
+                } finally {
+                    waiting.remove(this);
+                    waiter = null;
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        }
+    }
+}
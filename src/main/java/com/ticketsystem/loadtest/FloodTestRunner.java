@@ -0,0 +1,138 @@
+package com.ticketsystem.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticketsystem.TicketSystemApplication;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.FutureTask;
+
+// Run with --spring.profiles.active=floodtest. Measures the reads of a few agents while many
+// connections of a few monitoring integrations flood ticket and reply creation: once without the
+// flood, once with it and no rate limiting or admission control, and once with both. Each scenario
+// gets its own embedded server on a random port; the scenarios are printed side by side.
+@Component
+@Profile("floodtest")
+public class FloodTestRunner implements ApplicationRunner {
+    private final ObjectMapper objectMapper;
+    private final ConfigurableApplicationContext context;
+    private final int readers;
+    private final long readerThinkTimeMillis;
+    private final int writers;
+    private final int integrations;
+    private final double writesPerSecond;
+    private final Duration warmup;
+    private final Duration duration;
+    private final int seedTickets;
+    private final boolean virtualThreads;
+    private final boolean walEnabled;
+    private final String fsync;
+
+    private record Scenario(String name, boolean flood, boolean limited) {
+    }
+
+    private record Outcome(LoadGenerator.Result reads, LoadGenerator.Result writes) {
+    }
+
+    public FloodTestRunner(ObjectMapper objectMapper, ConfigurableApplicationContext context,
+                           @Value("${ticket.floodtest.readers:20}") int readers,
+                           @Value("${ticket.floodtest.reader-think-time-ms:10}") long readerThinkTimeMillis,
+                           @Value("${ticket.floodtest.writers:200}") int writers,
+                           @Value("${ticket.floodtest.integrations:4}") int integrations,
+                           @Value("${ticket.floodtest.writes-per-second:50}") double writesPerSecond,
+                           @Value("${ticket.floodtest.warmup-seconds:10}") long warmupSeconds,
+                           @Value("${ticket.floodtest.duration-seconds:30}") long durationSeconds,
+                           @Value("${ticket.floodtest.seed-tickets:10000}") int seedTickets,
+                           @Value("${ticket.floodtest.virtual-threads:false}") boolean virtualThreads,
+                           @Value("${ticket.floodtest.wal-enabled:true}") boolean walEnabled,
+                           @Value("${ticket.floodtest.fsync:ALWAYS}") String fsync) {
+        this.objectMapper = objectMapper;
+        this.context = context;
+        this.readers = readers;
+        this.readerThinkTimeMillis = readerThinkTimeMillis;
+        this.writers = writers;
+        this.integrations = integrations;
+        this.writesPerSecond = writesPerSecond;
+        this.warmup = Duration.ofSeconds(warmupSeconds);
+        this.duration = Duration.ofSeconds(durationSeconds);
+        this.seedTickets = seedTickets;
+        this.virtualThreads = virtualThreads;
+        this.walEnabled = walEnabled;
+        this.fsync = fsync;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        List<Scenario> scenarios = List.of(
+                new Scenario("no flood", false, true),
+                new Scenario("flood", true, false),
+                new Scenario("flood, limited", true, true));
+        List<Outcome> outcomes = new ArrayList<>();
+        for (Scenario scenario : scenarios) {
+            outcomes.add(runScenario(scenario));
+        }
+        report(scenarios, outcomes);
+        System.exit(SpringApplication.exit(context));
+    }
+
+    private Outcome runScenario(Scenario scenario) throws Exception {
+        Path walDirectory = Files.createTempDirectory("ticket-floodtest-wal");
+        List<String> properties = List.of(
+                "--spring.profiles.active=floodtest-target",
+                "--spring.main.web-application-type=servlet",
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--ticket.wal.enabled=" + walEnabled,
+                "--ticket.wal.directory=" + walDirectory,
+                "--ticket.wal.fsync=" + fsync,
+                "--ticket.ratelimit.enabled=" + scenario.limited(),
+                "--ticket.ratelimit.writes-per-second=" + writesPerSecond,
+                "--ticket.admission.enabled=" + scenario.limited());
+        try (ConfigurableApplicationContext target = new SpringApplicationBuilder(TicketSystemApplication.class)
+                .logStartupInfo(false)
+                .run(properties.toArray(String[]::new))) {
+            int port = target.getEnvironment().getProperty("local.server.port", Integer.class);
+            LoadGenerator generator = new LoadGenerator(objectMapper, port);
+            generator.seed(seedTickets);
+            FutureTask<LoadGenerator.Result> flood = new FutureTask<>(() -> generator.run(LoadGenerator.Mix.WRITES,
+                    "integration", integrations, writers, warmup, duration, 0));
+            if (scenario.flood()) {
+                Thread.ofVirtual().name("flood").start(flood);
+            }
+            LoadGenerator.Result reads = generator.run(LoadGenerator.Mix.READS, "agent", readers, readers,
+                    warmup, duration, readerThinkTimeMillis);
+            return new Outcome(reads, scenario.flood() ? flood.get() : null);
+        } finally {
+            LoadTestRunner.deleteRecursively(walDirectory);
+        }
+    }
+
+    private void report(List<Scenario> scenarios, List<Outcome> outcomes) {
+        System.out.printf("%nFlood test: %d readers with %dms think time; %d writers as %d clients, limited to %.0f writes/s each;"
+                        + " %ds measured after %ds warmup, %s threads, WAL %s%n",
+                readers, readerThinkTimeMillis, writers, integrations, writesPerSecond, duration.toSeconds(),
+                warmup.toSeconds(), virtualThreads ? "virtual" : "platform", walEnabled ? "fsync " + fsync : "disabled");
+        System.out.printf("%-16s %10s %10s %10s %10s %12s %10s %8s%n",
+                "scenario", "reads", "p50 ms", "p99 ms", "p999 ms", "writes/s", "429", "errors");
+        for (int i = 0; i < scenarios.size(); i++) {
+            LoadGenerator.Result reads = outcomes.get(i).reads();
+            LoadGenerator.Result writes = outcomes.get(i).writes();
+            double accepted = writes == null ? 0 : (writes.requests() - writes.rejected() - writes.errors()) / writes.seconds();
+            System.out.printf("%-16s %10d %10.2f %10.2f %10.2f %12.1f %10d %8d%n",
+                    scenarios.get(i).name(), reads.requests(), reads.percentileMillis(50), reads.percentileMillis(99),
+                    reads.percentileMillis(99.9), accepted, writes == null ? 0 : writes.rejected(),
+                    reads.errors() + (writes == null ? 0 : writes.errors()));
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.ticketsystem.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Closed-loop HTTP load against /api/tickets: each simulated client sends a request, waits for
+// the response and its think time, then sends the next. Clients run on virtual threads so the
+// generator itself never runs out of threads, whatever the server does. Each client sends its key
+// in X-Client-Id; clients that share a key share the server's rate limit.
+class LoadGenerator {
+    private static final String CLIENT_HEADER = "X-Client-Id";
+    private static final String[] TITLES = {"Printer jam", "VPN drops", "Laptop slow", "Password reset", "Email bounce"};
+    private static final String[] DEPARTMENTS = {"support", "network", "hr", "finance"};
+    private static final int SEED_CHUNK = 1000;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final ObjectMapper objectMapper;
+    private final String baseUrl;
+    private final List<String> ticketIds = new CopyOnWriteArrayList<>();
+
+    // MIXED is the agent workload; READS and WRITES are its reads and its ticket and reply creates
+    enum Mix {
+        MIXED, READS, WRITES
+    }
+
+    LoadGenerator(ObjectMapper objectMapper, int port) {
+        this.objectMapper = objectMapper;
+        this.baseUrl = "http://localhost:" + port + "/api/tickets";
+    }
+
+    void seed(int tickets) throws IOException, InterruptedException {
+        List<String> created = new ArrayList<>(tickets);
+        for (int start = 0; start < tickets; start += SEED_CHUNK) {
+            StringBuilder body = new StringBuilder();
+            for (int i = start; i < Math.min(tickets, start + SEED_CHUNK); i++) {
+                body.append("{\"title\":\"").append(TITLES[i % TITLES.length]).append(' ').append(i)
+                        .append("\",\"description\":\"Seeded ticket ").append(i).append("\"}\n");
+            }
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/bulk"))
+                    .header("Content-Type", "application/x-ndjson")
+                    .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                    .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IOException("Seeding failed with HTTP " + response.statusCode());
+            }
+            for (JsonNode result : objectMapper.readTree(response.body()).path("data")) {
+                created.add(result.path("data").path("id").asText());
+            }
+        }
+        ticketIds.addAll(created);
+    }
+
+    // Runs the clients for the given time; warmup traffic is sent but not recorded
+    Result run(int concurrency, Duration warmup, Duration duration, long thinkTimeMillis) throws InterruptedException {
+        return run(Mix.MIXED, "load-client", concurrency, concurrency, warmup, duration, thinkTimeMillis);
+    }
+
+    // The same with the given mix; client i sends key clientPrefix-(i % keys)
+    Result run(Mix mix, String clientPrefix, int keys, int concurrency, Duration warmup, Duration duration,
+               long thinkTimeMillis) throws InterruptedException {
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long stopAt = measureFrom + duration.toNanos();
+        Client[] clients = new Client[concurrency];
+        Thread[] threads = new Thread[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            clients[i] = new Client(mix, clientPrefix + "-" + i % keys, measureFrom, stopAt, thinkTimeMillis);
+            threads[i] = Thread.ofVirtual().name(clientPrefix + "-" + i).start(clients[i]);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long requests = 0;
+        long errors = 0;
+        long rejected = 0;
+        for (Client c : clients) {
+            requests += c.count;
+            errors += c.errors;
+            rejected += c.rejected;
+        }
+        long[] latencies = new long[(int) requests];
+        int offset = 0;
+        for (Client c : clients) {
+            System.arraycopy(c.latencies, 0, latencies, offset, c.count);
+            offset += c.count;
+        }
+        Arrays.sort(latencies);
+        return new Result(requests, errors, rejected, duration.toNanos() / 1e9, latencies);
+    }
+
+    private HttpRequest nextRequest(Mix mix, String clientKey, ThreadLocalRandom random) {
+        String id = ticketIds.get(random.nextInt(ticketIds.size()));
+        int roll = switch (mix) {
+            case MIXED -> random.nextInt(100);
+            case READS -> 30 + random.nextInt(70);
+            case WRITES -> random.nextInt(25);
+        };
+        if (roll < 15) {
+            return post("?title=" + encode(TITLES[random.nextInt(TITLES.length)]) + "&description=" + encode("Load test ticket"), clientKey);
+        } else if (roll < 25) {
+            return post("/" + id + "/replies?content=" + encode("Any update?"), clientKey);
+        } else if (roll < 30) {
+            String userId = DEPARTMENTS[random.nextInt(DEPARTMENTS.length)] + ".agent" + random.nextInt(20);
+            return request("/" + id + "/assign?userId=" + userId, clientKey).PUT(HttpRequest.BodyPublishers.noBody()).build();
+        } else if (roll < 60) {
+            return get("/" + id, clientKey);
+        } else if (roll < 75) {
+            return get("/search?query=printer&limit=20", clientKey);
+        } else if (roll < 85) {
+            return get("/statistics", clientKey);
+        } else if (roll < 95) {
+            return get("/recent?limit=10", clientKey);
+        }
+        return get("/status/OPEN?limit=50", clientKey);
+    }
+
+    private HttpRequest get(String path, String clientKey) {
+        return request(path, clientKey).GET().build();
+    }
+
+    private HttpRequest post(String path, String clientKey) {
+        return request(path, clientKey).POST(HttpRequest.BodyPublishers.noBody()).build();
+    }
+
+    private HttpRequest.Builder request(String path, String clientKey) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).header(CLIENT_HEADER, clientKey);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private final class Client implements Runnable {
+        private final Mix mix;
+        private final String key;
+        private final long measureFrom;
+        private final long stopAt;
+        private final long thinkTimeMillis;
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+        private long rejected;
+
+        Client(Mix mix, String key, long measureFrom, long stopAt, long thinkTimeMillis) {
+            this.mix = mix;
+            this.key = key;
+            this.measureFrom = measureFrom;
+            this.stopAt = stopAt;
+            this.thinkTimeMillis = thinkTimeMillis;
+        }
+
+        @Override
+        public void run() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long now;
+            while ((now = System.nanoTime()) < stopAt) {
+                int status;
+                long pauseMillis = thinkTimeMillis;
+                try {
+                    HttpResponse<Void> response = client.send(nextRequest(mix, key, random), HttpResponse.BodyHandlers.discarding());
+                    status = response.statusCode();
+                    // Clients back off for as long as a 429 asks them to
+                    if (status == 429) {
+                        pauseMillis = Math.max(pauseMillis, response.headers().firstValueAsLong("Retry-After").orElse(0) * 1000);
+                    }
+                } catch (IOException e) {
+                    status = -1;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                long end = System.nanoTime();
+                if (now >= measureFrom && end <= stopAt) {
+                    record(end - now, status);
+                }
+                pauseMillis = Math.min(pauseMillis, Math.max(0, (stopAt - end) / 1_000_000));
+                if (pauseMillis > 0) {
+                    try {
+                        Thread.sleep(pauseMillis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+
+        // 429 is counted apart from errors: it is the server shedding load as configured
+        private void record(long latencyNanos, int status) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+            if (status == 429) {
+                rejected++;
+            } else if (status < 0 || status >= 400) {
+                errors++;
+            }
+        }
+    }
+
+    record Result(long requests, long errors, long rejected, double seconds, long[] sortedLatencies) {
+        double throughput() {
+            return requests / seconds;
+        }
+
+        double percentileMillis(double percentile) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100 * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, index)] / 1e6;
+        }
+    }
+}
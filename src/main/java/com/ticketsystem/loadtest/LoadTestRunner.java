@@ -0,0 +1,117 @@
+package com.ticketsystem.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticketsystem.TicketSystemApplication;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Run with --spring.profiles.active=loadtest. Starts the application once per thread mode on a
+// random port, drives it with LoadGenerator and prints the modes side by side, then exits.
+@Component
+@Profile("loadtest")
+public class LoadTestRunner implements ApplicationRunner {
+    private final ObjectMapper objectMapper;
+    private final ConfigurableApplicationContext context;
+    private final List<String> modes;
+    private final int concurrency;
+    private final Duration warmup;
+    private final Duration duration;
+    private final long thinkTimeMillis;
+    private final int seedTickets;
+    private final boolean walEnabled;
+    private final String fsync;
+
+    public LoadTestRunner(ObjectMapper objectMapper, ConfigurableApplicationContext context,
+                          @Value("${ticket.loadtest.modes:platform,virtual}") List<String> modes,
+                          @Value("${ticket.loadtest.concurrency:200}") int concurrency,
+                          @Value("${ticket.loadtest.warmup-seconds:10}") long warmupSeconds,
+                          @Value("${ticket.loadtest.duration-seconds:30}") long durationSeconds,
+                          @Value("${ticket.loadtest.think-time-ms:0}") long thinkTimeMillis,
+                          @Value("${ticket.loadtest.seed-tickets:10000}") int seedTickets,
+                          @Value("${ticket.loadtest.wal-enabled:true}") boolean walEnabled,
+                          @Value("${ticket.loadtest.fsync:ALWAYS}") String fsync) {
+        this.objectMapper = objectMapper;
+        this.context = context;
+        this.modes = modes;
+        this.concurrency = concurrency;
+        this.warmup = Duration.ofSeconds(warmupSeconds);
+        this.duration = Duration.ofSeconds(durationSeconds);
+        this.thinkTimeMillis = thinkTimeMillis;
+        this.seedTickets = seedTickets;
+        this.walEnabled = walEnabled;
+        this.fsync = fsync;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        Map<String, LoadGenerator.Result> results = new LinkedHashMap<>();
+        for (String mode : modes) {
+            results.put(mode, runMode(mode));
+        }
+        report(results);
+        System.exit(SpringApplication.exit(context));
+    }
+
+    private LoadGenerator.Result runMode(String mode) throws IOException, InterruptedException {
+        if (!mode.equals("platform") && !mode.equals("virtual")) {
+            throw new IllegalArgumentException("Unknown thread mode: " + mode);
+        }
+        Path walDirectory = Files.createTempDirectory("ticket-loadtest-wal");
+        // Admission control would cap the concurrency the thread modes are compared at
+        List<String> properties = new ArrayList<>(List.of(
+                "--spring.profiles.active=loadtest-target",
+                "--spring.main.web-application-type=servlet",
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + mode.equals("virtual"),
+                "--ticket.wal.enabled=" + walEnabled,
+                "--ticket.wal.directory=" + walDirectory,
+                "--ticket.wal.fsync=" + fsync,
+                "--ticket.admission.enabled=false"));
+        try (ConfigurableApplicationContext target = new SpringApplicationBuilder(TicketSystemApplication.class)
+                .logStartupInfo(false)
+                .run(properties.toArray(String[]::new))) {
+            int port = target.getEnvironment().getProperty("local.server.port", Integer.class);
+            LoadGenerator generator = new LoadGenerator(objectMapper, port);
+            generator.seed(seedTickets);
+            return generator.run(concurrency, warmup, duration, thinkTimeMillis);
+        } finally {
+            deleteRecursively(walDirectory);
+        }
+    }
+
+    private void report(Map<String, LoadGenerator.Result> results) {
+        System.out.printf("%nLoad test: %d clients, %ds measured after %ds warmup, think time %dms, WAL %s%n",
+                concurrency, duration.toSeconds(), warmup.toSeconds(), thinkTimeMillis,
+                walEnabled ? "fsync " + fsync : "disabled");
+        System.out.printf("%-10s %10s %8s %8s %12s %10s %10s %10s%n",
+                "threads", "requests", "errors", "429", "req/s", "p50 ms", "p99 ms", "p999 ms");
+        results.forEach((mode, result) -> System.out.printf("%-10s %10d %8d %8d %12.1f %10.2f %10.2f %10.2f%n",
+                mode, result.requests(), result.errors(), result.rejected(), result.throughput(),
+                result.percentileMillis(50), result.percentileMillis(99), result.percentileMillis(99.9)));
+    }
+
+    static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.ticketsystem.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Admitted and rejected requests of one priority, how long the admitted ones queued, and how
+// many are running and queued right now
+public class AdmissionMetrics {
+    private final String priority;
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder queueFull = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final Histogram queueWaitNanos = new Histogram();
+    private final AtomicLong inFlight = new AtomicLong();
+    private final AtomicLong queued = new AtomicLong();
+
+    AdmissionMetrics(String priority) {
+        this.priority = priority;
+    }
+
+    public String priority() {
+        return priority;
+    }
+
+    public void recordAdmitted(long waitNanos) {
+        admitted.increment();
+        queueWaitNanos.record(waitNanos);
+    }
+
+    public void recordRateLimited() {
+        rateLimited.increment();
+    }
+
+    public void recordQueueFull() {
+        queueFull.increment();
+    }
+
+    public void recordTimedOut() {
+        timedOut.increment();
+    }
+
+    public void setInFlight(long requests) {
+        inFlight.set(requests);
+    }
+
+    public void setQueued(long requests) {
+        queued.set(requests);
+    }
+
+    public long admitted() {
+        return admitted.sum();
+    }
+
+    public long rateLimited() {
+        return rateLimited.sum();
+    }
+
+    public long queueFull() {
+        return queueFull.sum();
+    }
+
+    public long timedOut() {
+        return timedOut.sum();
+    }
+
+    public Histogram queueWaitNanos() {
+        return queueWaitNanos;
+    }
+
+    public long inFlight() {
+        return inFlight.get();
+    }
+
+    public long queued() {
+        return queued.get();
+    }
+}
@@ -0,0 +1,157 @@
+package com.ticketsystem.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Holds the per-operation metrics and renders them in the Prometheus text exposition format.
+// Latency and result size are exported as summaries with quantiles over the process lifetime.
+@Component
+public class MetricsRegistry {
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final Map<String, OperationMetrics> operations = new ConcurrentSkipListMap<>();
+    private final Map<String, CacheMetrics> caches = new ConcurrentSkipListMap<>();
+    private final Map<String, AdmissionMetrics> admissions = new ConcurrentSkipListMap<>();
+
+    public OperationMetrics operation(String name) {
+        return operations.computeIfAbsent(name, OperationMetrics::new);
+    }
+
+    public CacheMetrics cache(String name) {
+        return caches.computeIfAbsent(name, CacheMetrics::new);
+    }
+
+    public AdmissionMetrics admission(String priority) {
+        return admissions.computeIfAbsent(priority, AdmissionMetrics::new);
+    }
+
+    public String scrape() {
+        StringBuilder out = new StringBuilder(8192);
+
+        out.append("# HELP ticket_service_latency_seconds Time spent in TicketService operations\n");
+        out.append("# TYPE ticket_service_latency_seconds summary\n");
+        for (OperationMetrics operation : operations.values()) {
+            Histogram latency = operation.latencyNanos();
+            for (double quantile : QUANTILES) {
+                sample(out, "ticket_service_latency_seconds", operation.name(), quantile, latency.valueAt(quantile) / 1e9);
+            }
+            sample(out, "ticket_service_latency_seconds_sum", operation.name(), null, latency.sum() / 1e9);
+            sample(out, "ticket_service_latency_seconds_count", operation.name(), null, latency.count());
+        }
+
+        out.append("# HELP ticket_service_errors_total TicketService calls that threw\n");
+        out.append("# TYPE ticket_service_errors_total counter\n");
+        for (OperationMetrics operation : operations.values()) {
+            sample(out, "ticket_service_errors_total", operation.name(), null, operation.errors());
+        }
+
+        out.append("# HELP ticket_service_result_size Items returned by TicketService collection queries\n");
+        out.append("# TYPE ticket_service_result_size summary\n");
+        for (OperationMetrics operation : operations.values()) {
+            Histogram sizes = operation.resultSizes();
+            if (sizes.count() == 0) {
+                continue;
+            }
+            for (double quantile : QUANTILES) {
+                sample(out, "ticket_service_result_size", operation.name(), quantile, sizes.valueAt(quantile));
+            }
+            sample(out, "ticket_service_result_size_sum", operation.name(), null, sizes.sum());
+            sample(out, "ticket_service_result_size_count", operation.name(), null, sizes.count());
+        }
+
+        if (!caches.isEmpty()) {
+            caches(out);
+        }
+        if (!admissions.isEmpty()) {
+            admissions(out);
+        }
+        return out.toString();
+    }
+
+    private void caches(StringBuilder out) {
+        out.append("# HELP ticket_cache_requests_total Response cache lookups by result\n");
+        out.append("# TYPE ticket_cache_requests_total counter\n");
+        for (CacheMetrics cache : caches.values()) {
+            cacheSample(out, "ticket_cache_requests_total", cache.name(), "hit", cache.hits());
+            cacheSample(out, "ticket_cache_requests_total", cache.name(), "miss", cache.misses());
+        }
+        out.append("# HELP ticket_cache_evictions_total Response cache entries evicted to stay within the size bound\n");
+        out.append("# TYPE ticket_cache_evictions_total counter\n");
+        for (CacheMetrics cache : caches.values()) {
+            cacheSample(out, "ticket_cache_evictions_total", cache.name(), null, cache.evictions());
+        }
+        out.append("# HELP ticket_cache_bytes Serialized response bytes held by the cache\n");
+        out.append("# TYPE ticket_cache_bytes gauge\n");
+        for (CacheMetrics cache : caches.values()) {
+            cacheSample(out, "ticket_cache_bytes", cache.name(), null, cache.bytes());
+        }
+    }
+
+    private void admissions(StringBuilder out) {
+        out.append("# HELP ticket_admission_requests_total Requests by priority, admitted or rejected with 429\n");
+        out.append("# TYPE ticket_admission_requests_total counter\n");
+        for (AdmissionMetrics admission : admissions.values()) {
+            admissionSample(out, "ticket_admission_requests_total", admission.priority(), "admitted", admission.admitted());
+            admissionSample(out, "ticket_admission_requests_total", admission.priority(), "rate_limited", admission.rateLimited());
+            admissionSample(out, "ticket_admission_requests_total", admission.priority(), "queue_full", admission.queueFull());
+            admissionSample(out, "ticket_admission_requests_total", admission.priority(), "timed_out", admission.timedOut());
+        }
+        out.append("# HELP ticket_admission_in_flight Requests being handled\n");
+        out.append("# TYPE ticket_admission_in_flight gauge\n");
+        for (AdmissionMetrics admission : admissions.values()) {
+            admissionSample(out, "ticket_admission_in_flight", admission.priority(), null, admission.inFlight());
+        }
+        out.append("# HELP ticket_admission_queue_depth Requests waiting to be admitted\n");
+        out.append("# TYPE ticket_admission_queue_depth gauge\n");
+        for (AdmissionMetrics admission : admissions.values()) {
+            admissionSample(out, "ticket_admission_queue_depth", admission.priority(), null, admission.queued());
+        }
+        out.append("# HELP ticket_admission_queue_wait_seconds Time admitted requests waited in the queue\n");
+        out.append("# TYPE ticket_admission_queue_wait_seconds summary\n");
+        for (AdmissionMetrics admission : admissions.values()) {
+            Histogram wait = admission.queueWaitNanos();
+            for (double quantile : QUANTILES) {
+                sample(out, "ticket_admission_queue_wait_seconds", "priority", admission.priority(), quantile, wait.valueAt(quantile) / 1e9);
+            }
+            sample(out, "ticket_admission_queue_wait_seconds_sum", "priority", admission.priority(), null, wait.sum() / 1e9);
+            sample(out, "ticket_admission_queue_wait_seconds_count", "priority", admission.priority(), null, wait.count());
+        }
+    }
+
+    private static void admissionSample(StringBuilder out, String metric, String priority, String result, long value) {
+        out.append(metric).append("{priority=\"").append(priority).append('"');
+        if (result != null) {
+            out.append(",result=\"").append(result).append('"');
+        }
+        out.append("} ").append(value).append('\n');
+    }
+
+    private static void cacheSample(StringBuilder out, String metric, String cache, String result, long value) {
+        out.append(metric).append("{cache=\"").append(cache).append('"');
+        if (result != null) {
+            out.append(",result=\"").append(result).append('"');
+        }
+        out.append("} ").append(value).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String metric, String operation, Double quantile, double value) {
+        sample(out, metric, "operation", operation, quantile, value);
+    }
+
+    private static void sample(StringBuilder out, String metric, String label, String labelValue, Double quantile, double value) {
+        out.append(metric).append('{').append(label).append("=\"").append(labelValue).append('"');
+        if (quantile != null) {
+            out.append(",quantile=\"").append(quantile).append('"');
+        }
+        out.append("} ");
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            out.append((long) value);
+        } else {
+            out.append(String.format(Locale.ROOT, "%.9g", value));
+        }
+        out.append('\n');
+    }
+}
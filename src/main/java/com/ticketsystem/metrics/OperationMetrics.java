@@ -0,0 +1,45 @@
+package com.ticketsystem.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency, error count and (for collection results) result sizes of one service operation
+public class OperationMetrics {
+    private final String name;
+    private final Histogram latencyNanos = new Histogram();
+    private final Histogram resultSizes = new Histogram();
+    private final LongAdder errors = new LongAdder();
+
+    OperationMetrics(String name) {
+        this.name = name;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public void recordSuccess(long startNanos) {
+        latencyNanos.record(System.nanoTime() - startNanos);
+    }
+
+    public void recordSuccess(long startNanos, int resultSize) {
+        latencyNanos.record(System.nanoTime() - startNanos);
+        resultSizes.record(resultSize);
+    }
+
+    public void recordError(long startNanos) {
+        latencyNanos.record(System.nanoTime() - startNanos);
+        errors.increment();
+    }
+
+    public Histogram latencyNanos() {
+        return latencyNanos;
+    }
+
+    public Histogram resultSizes() {
+        return resultSizes;
+    }
+
+    public long errors() {
+        return errors.sum();
+    }
+}
@@ -0,0 +1,43 @@
+package com.ticketsystem.model;
+
+// Tickets created and resolved per time bucket; bucket i covers from + i * bucketMillis up to the
+// next bucket or to. Times are epoch millis.
+public class ActivityReport {
+    private long from;
+    private long to;
+    private long bucketMillis;
+    private String department;
+    private long[] created;
+    private long[] resolved;
+
+    public ActivityReport() {
+    }
+
+    public ActivityReport(long from, long to, long bucketMillis, String department, long[] created, long[] resolved) {
+        this.from = from;
+        this.to = to;
+        this.bucketMillis = bucketMillis;
+        this.department = department;
+        this.created = created;
+        this.resolved = resolved;
+    }
+
+    // Getters and Setters
+    public long getFrom() { return from; }
+    public void setFrom(long from) { this.from = from; }
+
+    public long getTo() { return to; }
+    public void setTo(long to) { this.to = to; }
+
+    public long getBucketMillis() { return bucketMillis; }
+    public void setBucketMillis(long bucketMillis) { this.bucketMillis = bucketMillis; }
+
+    public String getDepartment() { return department; }
+    public void setDepartment(String department) { this.department = department; }
+
+    public long[] getCreated() { return created; }
+    public void setCreated(long[] created) { this.created = created; }
+
+    public long[] getResolved() { return resolved; }
+    public void setResolved(long[] resolved) { this.resolved = resolved; }
+}
@@ -0,0 +1,27 @@
+package com.ticketsystem.model;
+
+// An agent's share of the open tickets, as tracked by auto-assignment
+public class AgentLoad {
+    private String agentId;
+    private String department;
+    private int openTickets;
+
+    public AgentLoad() {
+    }
+
+    public AgentLoad(String agentId, String department, int openTickets) {
+        this.agentId = agentId;
+        this.department = department;
+        this.openTickets = openTickets;
+    }
+
+    // Getters and Setters
+    public String getAgentId() { return agentId; }
+    public void setAgentId(String agentId) { this.agentId = agentId; }
+
+    public String getDepartment() { return department; }
+    public void setDepartment(String department) { this.department = department; }
+
+    public int getOpenTickets() { return openTickets; }
+    public void setOpenTickets(int openTickets) { this.openTickets = openTickets; }
+}
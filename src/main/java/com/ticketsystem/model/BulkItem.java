@@ -0,0 +1,40 @@
+package com.ticketsystem.model;
+
+// One entry of a bulk request; each operation reads only the fields it needs
+public class BulkItem {
+    private String ticketId;
+    private String title;
+    private String description;
+    private String userId;
+    private String content;
+    private String parentReplyId;
+    private String department;
+    private long expectedVersion;
+
+    // Getters and Setters
+    public String getTicketId() { return ticketId; }
+    public void setTicketId(String ticketId) { this.ticketId = ticketId; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+
+    public String getContent() { return content; }
+    public void setContent(String content) { this.content = content; }
+
+    public String getParentReplyId() { return parentReplyId; }
+    public void setParentReplyId(String parentReplyId) { this.parentReplyId = parentReplyId; }
+
+    // Routes a created ticket to this department's agents when auto-assignment is on
+    public String getDepartment() { return department; }
+    public void setDepartment(String department) { this.department = department; }
+
+    // Assigns only if the ticket is still at this version; 0, the default, skips the check
+    public long getExpectedVersion() { return expectedVersion; }
+    public void setExpectedVersion(long expectedVersion) { this.expectedVersion = expectedVersion; }
+}
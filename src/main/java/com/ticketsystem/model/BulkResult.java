@@ -0,0 +1,40 @@
+package com.ticketsystem.model;
+
+// Outcome of one bulk entry; index is the entry's position in the request
+public class BulkResult<T> {
+    private int index;
+    private boolean success;
+    private String message;
+    private T data;
+
+    public BulkResult() {
+    }
+
+    public BulkResult(int index, boolean success, String message, T data) {
+        this.index = index;
+        this.success = success;
+        this.message = message;
+        this.data = data;
+    }
+
+    public static <T> BulkResult<T> success(int index, T data) {
+        return new BulkResult<>(index, true, null, data);
+    }
+
+    public static <T> BulkResult<T> failure(int index, String message) {
+        return new BulkResult<>(index, false, message, null);
+    }
+
+    // Getters and Setters
+    public int getIndex() { return index; }
+    public void setIndex(int index) { this.index = index; }
+
+    public boolean isSuccess() { return success; }
+    public void setSuccess(boolean success) { this.success = success; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+
+    public T getData() { return data; }
+    public void setData(T data) { this.data = data; }
+}
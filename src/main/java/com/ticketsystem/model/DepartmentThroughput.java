@@ -0,0 +1,38 @@
+package com.ticketsystem.model;
+
+// One department's tickets created and resolved in a time window, its mean resolution time over
+// the resolved ones, and the tickets open now. Unassigned tickets have a null department.
+public class DepartmentThroughput {
+    private String department;
+    private long created;
+    private long resolved;
+    private long meanResolutionMillis;
+    private long open;
+
+    public DepartmentThroughput() {
+    }
+
+    public DepartmentThroughput(String department, long created, long resolved, long meanResolutionMillis, long open) {
+        this.department = department;
+        this.created = created;
+        this.resolved = resolved;
+        this.meanResolutionMillis = meanResolutionMillis;
+        this.open = open;
+    }
+
+    // Getters and Setters
+    public String getDepartment() { return department; }
+    public void setDepartment(String department) { this.department = department; }
+
+    public long getCreated() { return created; }
+    public void setCreated(long created) { this.created = created; }
+
+    public long getResolved() { return resolved; }
+    public void setResolved(long resolved) { this.resolved = resolved; }
+
+    public long getMeanResolutionMillis() { return meanResolutionMillis; }
+    public void setMeanResolutionMillis(long meanResolutionMillis) { this.meanResolutionMillis = meanResolutionMillis; }
+
+    public long getOpen() { return open; }
+    public void setOpen(long open) { this.open = open; }
+}
@@ -3,13 +3,31 @@ package com.ticketsystem.model;
 import java.util.Date;
 import java.util.List;
 
+import static com.ticketsystem.model.Ticket.NO_TIME;
+
+// Timestamps are kept as epoch millis; children stays null until the service attaches a
+// shared view, so leaf replies never allocate a list of their own. The view is swapped for a
+// new one as children arrive, so the field is volatile for readers of a stored reply.
 public class Reply {
     private String id;
     private String content;
     private String parentId;
-    private Date timestamp;
-    private Date lastEditedAt;
-    private List<Reply> children;
+    private long timestamp = NO_TIME;
+    private long lastEditedAt = NO_TIME;
+    private volatile List<Reply> children;
+
+    public Reply() {
+    }
+
+    // Snapshot of a stored reply; children is an immutable view, so it is shared
+    public Reply(Reply other) {
+        this.id = other.id;
+        this.content = other.content;
+        this.parentId = other.parentId;
+        this.timestamp = other.timestamp;
+        this.lastEditedAt = other.lastEditedAt;
+        this.children = other.children;
+    }
 
     // Getters and Setters
     public String getId() { return id; }
@@ -21,12 +39,19 @@ public class Reply {
     public String getParentId() { return parentId; }
     public void setParentId(String parentId) { this.parentId = parentId; }
 
-    public Date getTimestamp() { return timestamp; }
-    public void setTimestamp(Date timestamp) { this.timestamp = timestamp; }
+    public Date getTimestamp() { return Ticket.toDate(timestamp); }
+    public void setTimestamp(Date timestamp) { this.timestamp = Ticket.toMillis(timestamp); }
 
-    public Date getLastEditedAt() { return lastEditedAt; }
-    public void setLastEditedAt(Date lastEditedAt) { this.lastEditedAt = lastEditedAt; }
+    public Date getLastEditedAt() { return Ticket.toDate(lastEditedAt); }
+    public void setLastEditedAt(Date lastEditedAt) { this.lastEditedAt = Ticket.toMillis(lastEditedAt); }
 
     public List<Reply> getChildren() { return children; }
     public void setChildren(List<Reply> children) { this.children = children; }
-}
\ No newline at end of file
+
+    // Epoch millis, or Ticket.NO_TIME when unset
+    public long timestampMillis() { return timestamp; }
+    public void timestampMillis(long timestamp) { this.timestamp = timestamp; }
+
+    public long lastEditedAtMillis() { return lastEditedAt; }
+    public void lastEditedAtMillis(long lastEditedAt) { this.lastEditedAt = lastEditedAt; }
+}
@@ -0,0 +1,59 @@
+package com.ticketsystem.model;
+
+import java.util.Date;
+import java.util.List;
+
+import static com.ticketsystem.model.Ticket.NO_TIME;
+
+// A reply in a page of a reply tree. childCount counts all of its direct children; children holds
+// the first of them when the page reached this deep, and is null for a collapsed subtree.
+// childrenCursor continues a partly included list of children.
+public class ReplyNode {
+    private String id;
+    private String content;
+    private String parentId;
+    private long timestamp = NO_TIME;
+    private long lastEditedAt = NO_TIME;
+    private int childCount;
+    private List<ReplyNode> children;
+    private String childrenCursor;
+
+    public ReplyNode() {
+    }
+
+    public ReplyNode(Reply reply, int childCount) {
+        this.id = reply.getId();
+        this.content = reply.getContent();
+        this.parentId = reply.getParentId();
+        this.timestamp = reply.timestampMillis();
+        this.lastEditedAt = reply.lastEditedAtMillis();
+        this.childCount = childCount;
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getContent() { return content; }
+    public void setContent(String content) { this.content = content; }
+
+    public String getParentId() { return parentId; }
+    public void setParentId(String parentId) { this.parentId = parentId; }
+
+    public Date getTimestamp() { return Ticket.toDate(timestamp); }
+    public void setTimestamp(Date timestamp) { this.timestamp = Ticket.toMillis(timestamp); }
+
+    public Date getLastEditedAt() { return Ticket.toDate(lastEditedAt); }
+    public void setLastEditedAt(Date lastEditedAt) { this.lastEditedAt = Ticket.toMillis(lastEditedAt); }
+
+    public int getChildCount() { return childCount; }
+    public void setChildCount(int childCount) { this.childCount = childCount; }
+
+    public List<ReplyNode> getChildren() { return children; }
+    public void setChildren(List<ReplyNode> children) { this.children = children; }
+
+    // Pass as cursor, with this reply as parentReplyId, to page through the rest of its children;
+    // null when there are no more
+    public String getChildrenCursor() { return childrenCursor; }
+    public void setChildrenCursor(String childrenCursor) { this.childrenCursor = childrenCursor; }
+}
@@ -0,0 +1,30 @@
+package com.ticketsystem.model;
+
+import java.util.List;
+
+public class ReplyTreePage {
+    private List<ReplyNode> items;
+    private int total;
+    private String nextCursor;
+
+    public ReplyTreePage() {
+    }
+
+    public ReplyTreePage(List<ReplyNode> items, int total, String nextCursor) {
+        this.items = items;
+        this.total = total;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters and Setters
+    public List<ReplyNode> getItems() { return items; }
+    public void setItems(List<ReplyNode> items) { this.items = items; }
+
+    // Replies at the page's level, on this page and all others
+    public int getTotal() { return total; }
+    public void setTotal(int total) { this.total = total; }
+
+    // Null on the last page
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
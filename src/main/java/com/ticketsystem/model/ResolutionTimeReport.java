@@ -0,0 +1,48 @@
+package com.ticketsystem.model;
+
+// Time from creation to resolution of the tickets resolved between from and to. Percentiles are
+// the upper bounds of log-linear buckets, within about 6% of the exact value; mean, min and max
+// are exact. All in millis.
+public class ResolutionTimeReport {
+    private long from;
+    private long to;
+    private String department;
+    private long count;
+    private long meanMillis;
+    private long minMillis;
+    private long medianMillis;
+    private long p90Millis;
+    private long p99Millis;
+    private long maxMillis;
+
+    // Getters and Setters
+    public long getFrom() { return from; }
+    public void setFrom(long from) { this.from = from; }
+
+    public long getTo() { return to; }
+    public void setTo(long to) { this.to = to; }
+
+    public String getDepartment() { return department; }
+    public void setDepartment(String department) { this.department = department; }
+
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+
+    public long getMeanMillis() { return meanMillis; }
+    public void setMeanMillis(long meanMillis) { this.meanMillis = meanMillis; }
+
+    public long getMinMillis() { return minMillis; }
+    public void setMinMillis(long minMillis) { this.minMillis = minMillis; }
+
+    public long getMedianMillis() { return medianMillis; }
+    public void setMedianMillis(long medianMillis) { this.medianMillis = medianMillis; }
+
+    public long getP90Millis() { return p90Millis; }
+    public void setP90Millis(long p90Millis) { this.p90Millis = p90Millis; }
+
+    public long getP99Millis() { return p99Millis; }
+    public void setP99Millis(long p99Millis) { this.p99Millis = p99Millis; }
+
+    public long getMaxMillis() { return maxMillis; }
+    public void setMaxMillis(long maxMillis) { this.maxMillis = maxMillis; }
+}
@@ -3,16 +3,49 @@ package com.ticketsystem.model;
 import java.util.Date;
 import java.util.List;
 
+// Stored compactly: timestamps as epoch millis and the standard statuses as a one-byte code.
+// The getters and setters keep the Date and String shapes the JSON API has always used.
 public class Ticket {
+    public static final long NO_TIME = Long.MIN_VALUE;
+
+    private static final String[] STANDARD_STATUSES = {"OPEN", "IN_PROGRESS", "RESOLVED", "CLOSED"};
+    private static final byte NO_STATUS = -1;
+    private static final byte OTHER_STATUS = -2;
+
+    // Declared in JSON property order; the JVM packs fields by size regardless
     private String id;
     private String title;
     private String description;
-    private String status;
+    private byte status = NO_STATUS;
     private String assignedTo;
     private List<Reply> replies;
-    private Date createdAt;
-    private Date lastUpdatedAt;
-    private Date resolvedAt;
+    private long createdAt = NO_TIME;
+    private long lastUpdatedAt = NO_TIME;
+    private long resolvedAt = NO_TIME;
+    // Last time the ticket ran past its SLA deadline
+    private long escalatedAt = NO_TIME;
+    private long version;
+    // Only set for statuses outside the standard four
+    private String otherStatus;
+
+    public Ticket() {
+    }
+
+    // Tickets in the store are never modified once published; changes are made on a copy
+    public Ticket(Ticket other) {
+        this.id = other.id;
+        this.title = other.title;
+        this.description = other.description;
+        this.status = other.status;
+        this.assignedTo = other.assignedTo;
+        this.replies = other.replies;
+        this.createdAt = other.createdAt;
+        this.lastUpdatedAt = other.lastUpdatedAt;
+        this.resolvedAt = other.resolvedAt;
+        this.escalatedAt = other.escalatedAt;
+        this.version = other.version;
+        this.otherStatus = other.otherStatus;
+    }
 
     // Getters and Setters
     public String getId() { return id; }
@@ -24,8 +57,17 @@ public class Ticket {
     public String getDescription() { return description; }
     public void setDescription(String description) { this.description = description; }
 
-    public String getStatus() { return status; }
-    public void setStatus(String status) { this.status = status; }
+    public String getStatus() {
+        if (status >= 0) {
+            return STANDARD_STATUSES[status];
+        }
+        return status == OTHER_STATUS ? otherStatus : null;
+    }
+
+    public void setStatus(String status) {
+        this.status = statusCode(status);
+        this.otherStatus = this.status == OTHER_STATUS ? status : null;
+    }
 
     public String getAssignedTo() { return assignedTo; }
     public void setAssignedTo(String assignedTo) { this.assignedTo = assignedTo; }
@@ -33,12 +75,55 @@ public class Ticket {
     public List<Reply> getReplies() { return replies; }
     public void setReplies(List<Reply> replies) { this.replies = replies; }
 
-    public Date getCreatedAt() { return createdAt; }
-    public void setCreatedAt(Date createdAt) { this.createdAt = createdAt; }
+    public Date getCreatedAt() { return toDate(createdAt); }
+    public void setCreatedAt(Date createdAt) { this.createdAt = toMillis(createdAt); }
+
+    public Date getLastUpdatedAt() { return toDate(lastUpdatedAt); }
+    public void setLastUpdatedAt(Date lastUpdatedAt) { this.lastUpdatedAt = toMillis(lastUpdatedAt); }
+
+    public Date getResolvedAt() { return toDate(resolvedAt); }
+    public void setResolvedAt(Date resolvedAt) { this.resolvedAt = toMillis(resolvedAt); }
+
+    public Date getEscalatedAt() { return toDate(escalatedAt); }
+    public void setEscalatedAt(Date escalatedAt) { this.escalatedAt = toMillis(escalatedAt); }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
+    // Epoch millis, or NO_TIME when unset; not bean properties, so they stay out of the JSON
+    public long createdAtMillis() { return createdAt; }
+    public void createdAtMillis(long createdAt) { this.createdAt = createdAt; }
+
+    public long lastUpdatedAtMillis() { return lastUpdatedAt; }
+    public void lastUpdatedAtMillis(long lastUpdatedAt) { this.lastUpdatedAt = lastUpdatedAt; }
+
+    public long resolvedAtMillis() { return resolvedAt; }
+    public void resolvedAtMillis(long resolvedAt) { this.resolvedAt = resolvedAt; }
+
+    public long escalatedAtMillis() { return escalatedAt; }
+    public void escalatedAtMillis(long escalatedAt) { this.escalatedAt = escalatedAt; }
+
+    // The one-byte status: a standard status's position in OPEN, IN_PROGRESS, RESOLVED, CLOSED,
+    // negative for no status or another one
+    public byte statusCode() { return status; }
+
+    public static byte statusCode(String status) {
+        if (status == null) {
+            return NO_STATUS;
+        }
+        for (byte code = 0; code < STANDARD_STATUSES.length; code++) {
+            if (STANDARD_STATUSES[code].equals(status)) {
+                return code;
+            }
+        }
+        return OTHER_STATUS;
+    }
 
-    public Date getLastUpdatedAt() { return lastUpdatedAt; }
-    public void setLastUpdatedAt(Date lastUpdatedAt) { this.lastUpdatedAt = lastUpdatedAt; }
+    static Date toDate(long millis) {
+        return millis != NO_TIME ? new Date(millis) : null;
+    }
 
-    public Date getResolvedAt() { return resolvedAt; }
-    public void setResolvedAt(Date resolvedAt) { this.resolvedAt = resolvedAt; }
+    static long toMillis(Date date) {
+        return date != null ? date.getTime() : NO_TIME;
+    }
 }
@@ -0,0 +1,65 @@
+package com.ticketsystem.model;
+
+// One change to the ticket store as seen by subscribers. ticket is the ticket after the change;
+// previousStatus and previousAssignedTo are its values before, so a filtered feed also sees
+// tickets leaving the filter. sequence numbers every change in the process in publish order.
+public class TicketChange {
+    public enum Type {
+        TICKET_CREATED, TICKET_UPDATED, TICKET_ASSIGNED, TICKET_RESOLVED, REPLY_ADDED, REPLY_EDITED, TICKET_ESCALATED
+    }
+
+    private long sequence;
+    private Type type;
+    private String ticketId;
+    private Ticket ticket;
+    private Reply reply;
+    private String previousStatus;
+    private String previousAssignedTo;
+    private long timestamp;
+
+    public TicketChange() {
+    }
+
+    public static TicketChange of(Type type, Ticket previous, Ticket ticket, Reply reply) {
+        TicketChange change = new TicketChange();
+        change.type = type;
+        change.ticketId = ticket.getId();
+        change.ticket = ticket;
+        change.reply = reply;
+        change.previousStatus = previous != null ? previous.getStatus() : null;
+        change.previousAssignedTo = previous != null ? previous.getAssignedTo() : null;
+        change.timestamp = System.currentTimeMillis();
+        return change;
+    }
+
+    // True if the ticket has the value for the field now or had it before the change; null matches anything
+    public boolean matches(String assignedTo, String status) {
+        return (assignedTo == null || assignedTo.equals(ticket.getAssignedTo()) || assignedTo.equals(previousAssignedTo))
+                && (status == null || status.equals(ticket.getStatus()) || status.equals(previousStatus));
+    }
+
+    // Getters and Setters
+    public long getSequence() { return sequence; }
+    public void setSequence(long sequence) { this.sequence = sequence; }
+
+    public Type getType() { return type; }
+    public void setType(Type type) { this.type = type; }
+
+    public String getTicketId() { return ticketId; }
+    public void setTicketId(String ticketId) { this.ticketId = ticketId; }
+
+    public Ticket getTicket() { return ticket; }
+    public void setTicket(Ticket ticket) { this.ticket = ticket; }
+
+    public Reply getReply() { return reply; }
+    public void setReply(Reply reply) { this.reply = reply; }
+
+    public String getPreviousStatus() { return previousStatus; }
+    public void setPreviousStatus(String previousStatus) { this.previousStatus = previousStatus; }
+
+    public String getPreviousAssignedTo() { return previousAssignedTo; }
+    public void setPreviousAssignedTo(String previousAssignedTo) { this.previousAssignedTo = previousAssignedTo; }
+
+    public long getTimestamp() { return timestamp; }
+    public void setTimestamp(long timestamp) { this.timestamp = timestamp; }
+}
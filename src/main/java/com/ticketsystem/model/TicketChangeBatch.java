@@ -0,0 +1,31 @@
+package com.ticketsystem.model;
+
+import java.util.List;
+
+// Changes after the requested sequence. lastSequence is the sequence to resume after; when
+// truncated is set, changes before it are no longer retained and the batch itself is empty,
+// so the client should reload what it shows and continue from lastSequence.
+public class TicketChangeBatch {
+    private List<TicketChange> changes;
+    private long lastSequence;
+    private boolean truncated;
+
+    public TicketChangeBatch() {
+    }
+
+    public TicketChangeBatch(List<TicketChange> changes, long lastSequence, boolean truncated) {
+        this.changes = changes;
+        this.lastSequence = lastSequence;
+        this.truncated = truncated;
+    }
+
+    // Getters and Setters
+    public List<TicketChange> getChanges() { return changes; }
+    public void setChanges(List<TicketChange> changes) { this.changes = changes; }
+
+    public long getLastSequence() { return lastSequence; }
+    public void setLastSequence(long lastSequence) { this.lastSequence = lastSequence; }
+
+    public boolean isTruncated() { return truncated; }
+    public void setTruncated(boolean truncated) { this.truncated = truncated; }
+}
@@ -0,0 +1,24 @@
+package com.ticketsystem.model;
+
+import java.util.List;
+
+public class TicketPage {
+    private List<Ticket> items;
+    private String nextCursor;
+
+    public TicketPage() {
+    }
+
+    public TicketPage(List<Ticket> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters and Setters
+    public List<Ticket> getItems() { return items; }
+    public void setItems(List<Ticket> items) { this.items = items; }
+
+    // Null on the last page
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
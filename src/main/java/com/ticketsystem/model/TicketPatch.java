@@ -0,0 +1,22 @@
+package com.ticketsystem.model;
+
+// Fields to change on a ticket; null leaves a field as it is, an empty assignedTo unassigns
+public class TicketPatch {
+    private String title;
+    private String description;
+    private String status;
+    private String assignedTo;
+
+    // Getters and Setters
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getAssignedTo() { return assignedTo; }
+    public void setAssignedTo(String assignedTo) { this.assignedTo = assignedTo; }
+}
@@ -0,0 +1,470 @@
+package com.ticketsystem.persistence;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+// Append-only event log split into numbered segment files, plus snapshots that cover every
+// segment up to their number. Appends are queued and a single writer thread commits them
+// in batches, so concurrent writers share one write (and one fsync) per batch.
+//
+// Record layout: [int length][int crc32c][payload], after an 8-byte file header.
+public class FileTicketEventLog implements TicketEventLog {
+    private static final int MAGIC = 0x5457414C;
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 1 << 28;
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+
+    private final Path directory;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalNanos;
+    private final long maxSegmentBytes;
+    private final long lastRecoverableSegment;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition hasWork = lock.newCondition();
+    private final Condition committed = lock.newCondition();
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    private final Thread writer;
+
+    // Guarded by lock
+    private List<byte[]> pending = new ArrayList<>();
+    private long appendedSequence;
+    private long committedSequence;
+    private CompletableFuture<Long> rotation;
+    private long rotateAfterSequence;
+    private IOException failure;
+    private boolean closed;
+
+    // Owned by the writer thread; null until the segment's first record
+    private FileChannel segment;
+    private long segmentNumber;
+    private long segmentBytes;
+    private boolean dirty;
+    private long lastForceNanos;
+
+    public FileTicketEventLog(Path directory, FsyncPolicy fsyncPolicy, long fsyncIntervalMillis,
+                              long maxSegmentBytes) throws IOException {
+        this.directory = directory;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMillis);
+        this.maxSegmentBytes = maxSegmentBytes;
+
+        Files.createDirectories(directory);
+        this.lastRecoverableSegment = Math.max(latest(SEGMENT_PREFIX, SEGMENT_SUFFIX), latest(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX));
+        // Never append to a segment left by a previous run; its tail may be torn. The new segment is
+        // only created with its first record, after replay has cut that tail off, so a run that dies
+        // before then leaves the torn segment last
+        this.segmentNumber = lastRecoverableSegment + 1;
+
+        this.writer = new Thread(this::writeLoop, "ticket-event-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void append(TicketEvent event) {
+        byte[] record = frame(event.encode());
+        lock.lock();
+        try {
+            checkUsable();
+            pending.add(record);
+            appendedSequence++;
+            hasWork.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void sync() {
+        if (fsyncPolicy != FsyncPolicy.ALWAYS) {
+            return;
+        }
+        lock.lock();
+        try {
+            long target = appendedSequence;
+            while (committedSequence < target) {
+                checkUsable();
+                committed.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void replay(Consumer<TicketEvent> handler) {
+        try {
+            long snapshot = latest(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+            if (snapshot > 0) {
+                read(path(SNAPSHOT_PREFIX, snapshot, SNAPSHOT_SUFFIX), handler, false);
+            }
+            List<Long> segments = numbers(SEGMENT_PREFIX, SEGMENT_SUFFIX).stream()
+                    .filter(number -> number > snapshot && number <= lastRecoverableSegment)
+                    .toList();
+            // Only the last segment a crash can have cut short; snapshots are renamed into place whole.
+            // Segments without records after it, left by older runs, do not make it any less last.
+            int last = segments.size() - 1;
+            while (last > 0 && Files.size(path(SEGMENT_PREFIX, segments.get(last), SEGMENT_SUFFIX)) <= HEADER_BYTES) {
+                last--;
+            }
+            for (int i = 0; i < segments.size(); i++) {
+                Path file = path(SEGMENT_PREFIX, segments.get(i), SEGMENT_SUFFIX);
+                long tornAt = read(file, handler, i >= last);
+                if (tornAt >= 0) {
+                    // Once this run writes a newer segment the torn one is no longer last
+                    cutOff(file, tornAt);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void snapshot(Consumer<Consumer<TicketEvent>> state) {
+        snapshotLock.lock();
+        try {
+            CompletableFuture<Long> rolled;
+            lock.lock();
+            try {
+                checkUsable();
+                rolled = new CompletableFuture<>();
+                rotation = rolled;
+                rotateAfterSequence = appendedSequence;
+                hasWork.signal();
+            } finally {
+                lock.unlock();
+            }
+
+            long covered = rolled.join();
+            Path target = path(SNAPSHOT_PREFIX, covered, SNAPSHOT_SUFFIX);
+            Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                state.accept(event -> {
+                    try {
+                        out.write(frame(event.encode()));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            // The rename must be durable before the segments it stands for are gone
+            forceDirectory();
+
+            for (long number : numbers(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+                if (number <= covered) {
+                    Files.deleteIfExists(path(SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+                }
+            }
+            for (long number : numbers(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+                if (number < covered) {
+                    Files.deleteIfExists(path(SNAPSHOT_PREFIX, number, SNAPSHOT_SUFFIX));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (CompletionException e) {
+            throw new UncheckedIOException(new IOException("Log rotation failed", e.getCause()));
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            hasWork.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        try {
+            while (true) {
+                List<byte[]> batch;
+                long lastSequence;
+                CompletableFuture<Long> rotateRequest;
+                long rotateAfter;
+
+                lock.lock();
+                try {
+                    while (pending.isEmpty() && rotation == null && !closed) {
+                        if (dirty && fsyncPolicy == FsyncPolicy.INTERVAL) {
+                            if (hasWork.awaitNanos(fsyncIntervalNanos) <= 0) {
+                                break;
+                            }
+                        } else {
+                            hasWork.awaitUninterruptibly();
+                        }
+                    }
+                    if (pending.isEmpty() && rotation == null && closed) {
+                        break;
+                    }
+                    batch = pending;
+                    pending = new ArrayList<>();
+                    lastSequence = appendedSequence;
+                    rotateRequest = rotation;
+                    rotateAfter = rotateAfterSequence;
+                    rotation = null;
+                } finally {
+                    lock.unlock();
+                }
+
+                if (rotateRequest != null) {
+                    // Records up to the rotation point stay in the segment the snapshot will cover
+                    long firstSequence = lastSequence - batch.size() + 1;
+                    int split = (int) Math.max(0, Math.min(batch.size(), rotateAfter - firstSequence + 1));
+                    write(batch.subList(0, split));
+                    long closedSegment = segmentNumber;
+                    roll();
+                    write(batch.subList(split, batch.size()));
+                    rotateRequest.complete(closedSegment);
+                } else {
+                    write(batch);
+                    if (segmentBytes >= maxSegmentBytes) {
+                        roll();
+                    }
+                }
+                maybeForce();
+                markCommitted(lastSequence);
+            }
+            if (segment != null) {
+                segment.force(false);
+                segment.close();
+            }
+        } catch (IOException | RuntimeException e) {
+            fail(e instanceof IOException io ? io : new IOException(e));
+        } catch (InterruptedException e) {
+            fail(new InterruptedIOException("Event log writer interrupted"));
+        }
+    }
+
+    private void write(List<byte[]> records) throws IOException {
+        if (records.isEmpty()) {
+            return;
+        }
+        ByteBuffer[] buffers = new ByteBuffer[records.size()];
+        long total = 0;
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = ByteBuffer.wrap(records.get(i));
+            total += buffers[i].remaining();
+        }
+        if (segment == null) {
+            segment = openSegment(segmentNumber);
+        }
+        long written = 0;
+        while (written < total) {
+            written += segment.write(buffers);
+        }
+        segmentBytes += total;
+        dirty = true;
+    }
+
+    private void maybeForce() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        if (fsyncPolicy == FsyncPolicy.ALWAYS
+                || (fsyncPolicy == FsyncPolicy.INTERVAL && System.nanoTime() - lastForceNanos >= fsyncIntervalNanos)) {
+            segment.force(false);
+            dirty = false;
+            lastForceNanos = System.nanoTime();
+        }
+    }
+
+    private void roll() throws IOException {
+        if (segment != null) {
+            segment.force(false);
+            segment.close();
+            segment = null;
+        }
+        segmentNumber++;
+        dirty = false;
+    }
+
+    private FileChannel openSegment(long number) throws IOException {
+        FileChannel channel = FileChannel.open(path(SEGMENT_PREFIX, number, SEGMENT_SUFFIX),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(FORMAT_VERSION).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        // Records forced into the segment are only durable once its directory entry is
+        forceDirectory();
+        segmentBytes = header.capacity();
+        return channel;
+    }
+
+    private void markCommitted(long sequence) {
+        lock.lock();
+        try {
+            committedSequence = sequence;
+            committed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void fail(IOException e) {
+        lock.lock();
+        try {
+            failure = e;
+            if (rotation != null) {
+                rotation.completeExceptionally(e);
+                rotation = null;
+            }
+            committed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkUsable() {
+        if (failure != null) {
+            throw new UncheckedIOException("Event log is unavailable", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("Event log is closed");
+        }
+    }
+
+    // A crash can only tear the tail of the segment being written: a record cut off by the end of
+    // the file, or a bad record followed by nothing but the zeros a file system may leave past it.
+    // With tornTail set, replay stops quietly there, as nothing after it was ever acknowledged, and
+    // the offset of the torn record is returned (-1 for a clean end); any other bad record means
+    // committed events are damaged, so recovery fails instead of skipping them.
+    private static long read(Path file, Consumer<TicketEvent> handler, boolean tornTail) throws IOException {
+        long offset = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException("Not a ticket event log: " + file);
+            }
+            offset = HEADER_BYTES;
+            CRC32C crc = new CRC32C();
+            while (true) {
+                in.mark(1);
+                if (in.read() == -1) {
+                    return -1;
+                }
+                in.reset();
+                int length = in.readInt();
+                int checksum = in.readInt();
+                if (length <= 0 || length > MAX_RECORD_BYTES) {
+                    if (tornTail && onlyZerosLeft(in)) {
+                        return offset;
+                    }
+                    throw new IOException("Corrupt record length in " + file + " at offset " + offset);
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    if (tornTail && onlyZerosLeft(in)) {
+                        return offset;
+                    }
+                    throw new IOException("Checksum mismatch in " + file + " at offset " + offset);
+                }
+                handler.accept(TicketEvent.decode(payload));
+                offset += 8 + length;
+            }
+        } catch (EOFException e) {
+            if (!tornTail) {
+                throw new IOException("Truncated record in " + file + " at offset " + offset, e);
+            }
+            return offset;
+        }
+    }
+
+    // Drops a torn tail, or the whole segment when even its header is torn
+    private void cutOff(Path file, long length) throws IOException {
+        if (length == 0) {
+            Files.delete(file);
+            forceDirectory();
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(length);
+            channel.force(true);
+        }
+    }
+
+    private static boolean onlyZerosLeft(InputStream in) throws IOException {
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Makes renames and deletions in the log directory durable
+    private void forceDirectory() throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    private static byte[] frame(byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        return ByteBuffer.allocate(8 + payload.length)
+                .putInt(payload.length)
+                .putInt((int) crc.getValue())
+                .put(payload)
+                .array();
+    }
+
+    private Path path(String prefix, long number, String suffix) {
+        return directory.resolve(String.format("%s%020d%s", prefix, number, suffix));
+    }
+
+    private long latest(String prefix, String suffix) throws IOException {
+        List<Long> numbers = numbers(prefix, suffix);
+        return numbers.isEmpty() ? 0 : numbers.get(numbers.size() - 1);
+    }
+
+    private List<Long> numbers(String prefix, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+                    .map(name -> Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+}
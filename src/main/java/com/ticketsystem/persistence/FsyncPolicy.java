@@ -0,0 +1,10 @@
+package com.ticketsystem.persistence;
+
+public enum FsyncPolicy {
+    // Every write waits for the fsync of the batch it was committed in
+    ALWAYS,
+    // Batches are fsynced at most once per interval; writers do not wait
+    INTERVAL,
+    // Leave flushing to the operating system
+    NEVER
+}
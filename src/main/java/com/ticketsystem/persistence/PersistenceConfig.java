@@ -0,0 +1,36 @@
+package com.ticketsystem.persistence;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+@Configuration
+public class PersistenceConfig {
+
+    @Bean
+    public TicketEventLog ticketEventLog(
+            @Value("${ticket.wal.enabled:false}") boolean enabled,
+            @Value("${ticket.wal.directory:data}") String directory,
+            @Value("${ticket.wal.fsync:ALWAYS}") FsyncPolicy fsyncPolicy,
+            @Value("${ticket.wal.fsync-interval-ms:50}") long fsyncIntervalMillis,
+            @Value("${ticket.wal.segment-size-mb:256}") long segmentSizeMb) throws IOException {
+        if (!enabled) {
+            return TicketEventLog.DISABLED;
+        }
+        return new FileTicketEventLog(Paths.get(directory), fsyncPolicy, fsyncIntervalMillis, segmentSizeMb * 1024 * 1024);
+    }
+
+    @Bean
+    public TicketArchive ticketArchive(
+            @Value("${ticket.archive.enabled:false}") boolean enabled,
+            @Value("${ticket.archive.directory:data/archive}") String directory,
+            @Value("${ticket.archive.segment-size-mb:64}") long segmentSizeMb) throws IOException {
+        if (!enabled) {
+            return TicketArchive.DISABLED;
+        }
+        return new SegmentTicketArchive(Paths.get(directory), segmentSizeMb * 1024 * 1024);
+    }
+}
@@ -0,0 +1,460 @@
+package com.ticketsystem.persistence;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Archived tickets in fixed-size memory-mapped segment files, appended to one after another. The
+// heap keeps only a location per ticket: UUID ids, the ones this store generates, take 24 bytes
+// in an open-addressing table, and anything else falls back to a map. Replacing or removing a
+// record leaves its bytes dead in the segment; a segment is deleted once none of its records is
+// live. The files are scratch space and are cleared on start.
+//
+// Record layout: [int length][int events]([int length][TicketEvent.encode()])*, at the offset
+// the location points to. Locations are the segment number in the high 32 bits and the offset.
+public class SegmentTicketArchive implements TicketArchive {
+    private static final String SEGMENT_PREFIX = "archive-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final long NONE = -1;
+
+    private final Path directory;
+    private final int segmentBytes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // Guarded by lock; indexed by segment number, null once a segment is deleted
+    private final List<Segment> segments = new ArrayList<>();
+    private Segment current;
+    private final LocationIndex uuidLocations = new LocationIndex();
+    private final Map<String, Long> otherLocations = new HashMap<>();
+    private boolean closed;
+
+    public SegmentTicketArchive(Path directory, long segmentBytes) throws IOException {
+        if (segmentBytes <= Integer.BYTES || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Archive segments must be between 4 bytes and 2GB: " + segmentBytes);
+        }
+        this.directory = directory;
+        this.segmentBytes = (int) segmentBytes;
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean put(String ticketId, List<TicketEvent> record) {
+        byte[] payload = encode(record);
+        int length = Integer.BYTES + payload.length;
+        if (length > segmentBytes) {
+            return false;
+        }
+        lock.lock();
+        try {
+            if (closed) {
+                return false;
+            }
+            if (current == null || current.used + length > segmentBytes) {
+                Segment full = current;
+                current = openSegment();
+                if (full != null && full.live == 0) {
+                    drop(full);
+                }
+            }
+            int offset = current.used;
+            current.buffer.putInt(offset, payload.length);
+            current.buffer.put(offset + Integer.BYTES, payload);
+            current.used += length;
+            current.live++;
+            long previous = setLocation(ticketId, location(current.number, offset));
+            if (previous != NONE) {
+                release(previous);
+            }
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<TicketEvent> get(String ticketId) {
+        Segment segment;
+        long location;
+        lock.lock();
+        try {
+            location = locationOf(ticketId);
+            if (location == NONE) {
+                return null;
+            }
+            segment = segments.get(segmentOf(location));
+        } finally {
+            lock.unlock();
+        }
+        // Records are never written over, so the bytes can be read without the lock
+        return decode(segment.buffer, offsetOf(location));
+    }
+
+    @Override
+    public boolean contains(String ticketId) {
+        lock.lock();
+        try {
+            return locationOf(ticketId) != NONE;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(String ticketId) {
+        lock.lock();
+        try {
+            UUID uuid = uuidOf(ticketId);
+            Long location = uuid != null ? uuidLocations.remove(uuid) : otherLocations.remove(ticketId);
+            if (location == null) {
+                return false;
+            }
+            release(location);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return uuidLocations.size + otherLocations.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Dead records are skipped by checking each record's ticket still points at it
+    @Override
+    public String read(String cursor, int limit, Consumer<List<TicketEvent>> records) {
+        long position = cursor != null ? parseCursor(cursor) : 0;
+        int emitted = 0;
+        while (emitted < limit) {
+            Segment segment;
+            lock.lock();
+            try {
+                position = recordAtOrAfter(position);
+                if (position == NONE) {
+                    return null;
+                }
+                segment = segments.get(segmentOf(position));
+            } finally {
+                lock.unlock();
+            }
+            int offset = offsetOf(position);
+            List<TicketEvent> record = decode(segment.buffer, offset);
+            long location = position;
+            position += Integer.BYTES + segment.buffer.getInt(offset);
+            if (!record.isEmpty() && isLive(record.get(0).getTicketId(), location)) {
+                records.accept(record);
+                emitted++;
+            }
+        }
+        lock.lock();
+        try {
+            return recordAtOrAfter(position) != NONE ? Long.toString(position) : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            for (Segment segment : segments) {
+                if (segment != null) {
+                    Files.deleteIfExists(segment.path);
+                }
+            }
+            segments.clear();
+            current = null;
+            uuidLocations.clear();
+            otherLocations.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class Segment {
+        final int number;
+        final Path path;
+        final MappedByteBuffer buffer;
+        int used;
+        int live;
+
+        Segment(int number, Path path, MappedByteBuffer buffer) {
+            this.number = number;
+            this.path = path;
+            this.buffer = buffer;
+        }
+    }
+
+    // The mapping outlives the channel; the file stays sparse until records are written to it
+    private Segment openSegment() throws IOException {
+        int number = segments.size();
+        Path path = directory.resolve(SEGMENT_PREFIX + number + SEGMENT_SUFFIX);
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+        Segment segment = new Segment(number, path, buffer);
+        segments.add(segment);
+        return segment;
+    }
+
+    // A reader still holding the segment keeps its mapping; only the file goes
+    private void drop(Segment segment) {
+        segments.set(segment.number, null);
+        try {
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            // The file is removed on the next start
+        }
+    }
+
+    private void release(long location) {
+        Segment segment = segments.get(segmentOf(location));
+        segment.live--;
+        if (segment.live == 0 && segment != current) {
+            drop(segment);
+        }
+    }
+
+    // The first record at or after the position, skipping deleted segments and segment tails
+    private long recordAtOrAfter(long position) {
+        int offset = offsetOf(position);
+        for (int number = segmentOf(position); number < segments.size(); number++, offset = 0) {
+            Segment segment = segments.get(number);
+            if (segment != null && offset < segment.used) {
+                return location(number, offset);
+            }
+        }
+        return NONE;
+    }
+
+    private boolean isLive(String ticketId, long location) {
+        lock.lock();
+        try {
+            return locationOf(ticketId) == location;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long locationOf(String ticketId) {
+        UUID uuid = uuidOf(ticketId);
+        if (uuid != null) {
+            return uuidLocations.get(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        }
+        Long location = otherLocations.get(ticketId);
+        return location != null ? location : NONE;
+    }
+
+    private long setLocation(String ticketId, long location) {
+        UUID uuid = uuidOf(ticketId);
+        if (uuid != null) {
+            return uuidLocations.put(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), location);
+        }
+        Long previous = otherLocations.put(ticketId, location);
+        return previous != null ? previous : NONE;
+    }
+
+    // Only ids that read back exactly as parsed, so two spellings never share a key
+    private static UUID uuidOf(String ticketId) {
+        if (ticketId.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(ticketId);
+            return uuid.toString().equals(ticketId) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static long location(int segment, int offset) {
+        return ((long) segment << 32) | offset;
+    }
+
+    private static int segmentOf(long location) {
+        return (int) (location >>> 32);
+    }
+
+    private static int offsetOf(long location) {
+        return (int) location;
+    }
+
+    private static long parseCursor(String cursor) {
+        try {
+            long position = Long.parseLong(cursor);
+            if (position < 0) {
+                throw new NumberFormatException();
+            }
+            return position;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private static byte[] encode(List<TicketEvent> record) {
+        List<byte[]> events = new ArrayList<>(record.size());
+        int length = Integer.BYTES;
+        for (TicketEvent event : record) {
+            byte[] encoded = event.encode();
+            events.add(encoded);
+            length += Integer.BYTES + encoded.length;
+        }
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        payload.putInt(events.size());
+        for (byte[] event : events) {
+            payload.putInt(event.length);
+            payload.put(event);
+        }
+        return payload.array();
+    }
+
+    private static List<TicketEvent> decode(MappedByteBuffer buffer, int offset) {
+        byte[] bytes = new byte[buffer.getInt(offset)];
+        buffer.get(offset + Integer.BYTES, bytes);
+        ByteBuffer payload = ByteBuffer.wrap(bytes);
+        int count = payload.getInt();
+        List<TicketEvent> record = new ArrayList<>(count);
+        try {
+            for (int i = 0; i < count; i++) {
+                byte[] event = new byte[payload.getInt()];
+                payload.get(event);
+                record.add(TicketEvent.decode(event));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return record;
+    }
+
+    // Linear probing over the two halves of each UUID, with the location plus one per slot and
+    // zero for empty ones. Kept at most three quarters full; removals shift the entries after the
+    // freed slot back instead of leaving tombstones.
+    private static final class LocationIndex {
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private long[] high = new long[INITIAL_CAPACITY];
+        private long[] low = new long[INITIAL_CAPACITY];
+        private long[] locations = new long[INITIAL_CAPACITY];
+        private int size;
+
+        long get(long msb, long lsb) {
+            int slot = find(msb, lsb);
+            return slot >= 0 ? locations[slot] - 1 : NONE;
+        }
+
+        long put(long msb, long lsb, long location) {
+            int slot = find(msb, lsb);
+            if (slot >= 0) {
+                long previous = locations[slot] - 1;
+                locations[slot] = location + 1;
+                return previous;
+            }
+            if ((size + 1) * 4L > locations.length * 3L) {
+                resize();
+            }
+            insert(msb, lsb, location + 1);
+            size++;
+            return NONE;
+        }
+
+        Long remove(UUID uuid) {
+            int slot = find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+            if (slot < 0) {
+                return null;
+            }
+            long previous = locations[slot] - 1;
+            int mask = locations.length - 1;
+            int hole = slot;
+            for (int next = (hole + 1) & mask; locations[next] != 0; next = (next + 1) & mask) {
+                int home = hash(high[next], low[next]) & mask;
+                // The entry may move back unless its home slot lies after the hole
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    high[hole] = high[next];
+                    low[hole] = low[next];
+                    locations[hole] = locations[next];
+                    hole = next;
+                }
+            }
+            locations[hole] = 0;
+            size--;
+            return previous;
+        }
+
+        void clear() {
+            high = new long[INITIAL_CAPACITY];
+            low = new long[INITIAL_CAPACITY];
+            locations = new long[INITIAL_CAPACITY];
+            size = 0;
+        }
+
+        private int find(long msb, long lsb) {
+            int mask = locations.length - 1;
+            for (int slot = hash(msb, lsb) & mask; locations[slot] != 0; slot = (slot + 1) & mask) {
+                if (high[slot] == msb && low[slot] == lsb) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        private void insert(long msb, long lsb, long stored) {
+            int mask = locations.length - 1;
+            int slot = hash(msb, lsb) & mask;
+            while (locations[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            high[slot] = msb;
+            low[slot] = lsb;
+            locations[slot] = stored;
+        }
+
+        private void resize() {
+            long[] oldHigh = high;
+            long[] oldLow = low;
+            long[] oldLocations = locations;
+            int capacity = oldLocations.length * 2;
+            high = new long[capacity];
+            low = new long[capacity];
+            locations = new long[capacity];
+            for (int slot = 0; slot < oldLocations.length; slot++) {
+                if (oldLocations[slot] != 0) {
+                    insert(oldHigh[slot], oldLow[slot], oldLocations[slot]);
+                }
+            }
+        }
+
+        private static int hash(long msb, long lsb) {
+            return (int) (((msb ^ lsb) * 0x9E3779B97F4A7C15L) >>> 32);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.ticketsystem.persistence;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Off-heap home of resolved tickets that are no longer worked on. A ticket is archived as one
+// record: its creation event followed by a restore event per reply, as snapshots write it. The
+// archive holds no state of its own worth keeping; snapshots cover archived tickets too, so it
+// starts empty and the store moves tickets back into it after recovery.
+public interface TicketArchive extends Closeable {
+
+    // Used when archiving is switched off; every ticket stays on the heap
+    TicketArchive DISABLED = new TicketArchive() {
+        @Override
+        public boolean put(String ticketId, List<TicketEvent> record) {
+            return false;
+        }
+
+        @Override
+        public List<TicketEvent> get(String ticketId) {
+            return null;
+        }
+
+        @Override
+        public boolean contains(String ticketId) {
+            return false;
+        }
+
+        @Override
+        public boolean remove(String ticketId) {
+            return false;
+        }
+
+        @Override
+        public int size() {
+            return 0;
+        }
+
+        @Override
+        public String read(String cursor, int limit, Consumer<List<TicketEvent>> records) {
+            return null;
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    // Stores the ticket's record in place of any earlier one; false when the archive cannot take it
+    boolean put(String ticketId, List<TicketEvent> record);
+
+    // The ticket's record, or null when it is not archived
+    List<TicketEvent> get(String ticketId);
+
+    boolean contains(String ticketId);
+
+    boolean remove(String ticketId);
+
+    int size();
+
+    // Hands up to limit records to the consumer in the order they were archived, starting after
+    // the cursor or at the first when it is null; returns the cursor of the next page, or null
+    String read(String cursor, int limit, Consumer<List<TicketEvent>> records);
+}
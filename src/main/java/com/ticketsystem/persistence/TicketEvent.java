@@ -0,0 +1,210 @@
+package com.ticketsystem.persistence;
+
+import com.ticketsystem.model.Reply;
+import com.ticketsystem.model.Ticket;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+// A single mutation of the ticket store, as written to the event log.
+// Snapshots describe full state with CREATE_TICKET followed by RESTORE_REPLY records.
+// version is the ticket version the mutation produced (0 for reply records that leave the
+// ticket alone), which lets replay skip changes a snapshot already contains.
+public final class TicketEvent {
+    public enum Type {
+        // Append only: the ordinal is what the log stores
+        CREATE_TICKET, UPDATE_TICKET, ASSIGN_TICKET, RESOLVE_TICKET, ADD_REPLY, EDIT_REPLY, RESTORE_REPLY, ESCALATE_TICKET
+    }
+
+    private static final long NO_DATE = Ticket.NO_TIME;
+    private static final Type[] TYPES = Type.values();
+
+    private final Type type;
+    private final String ticketId;
+    private final Ticket ticket;
+    private final Reply reply;
+    private final String userId;
+    private final Date at;
+    private final long version;
+
+    private TicketEvent(Type type, String ticketId, Ticket ticket, Reply reply, String userId, Date at, long version) {
+        this.type = type;
+        this.ticketId = ticketId;
+        this.ticket = ticket;
+        this.reply = reply;
+        this.userId = userId;
+        this.at = at;
+        this.version = version;
+    }
+
+    public static TicketEvent created(Ticket ticket) {
+        return new TicketEvent(Type.CREATE_TICKET, ticket.getId(), ticket, null, null, null, ticket.getVersion());
+    }
+
+    public static TicketEvent updated(Ticket ticket) {
+        return new TicketEvent(Type.UPDATE_TICKET, ticket.getId(), ticket, null, null, null, ticket.getVersion());
+    }
+
+    public static TicketEvent assigned(String ticketId, String userId, Date at, long version) {
+        return new TicketEvent(Type.ASSIGN_TICKET, ticketId, null, null, userId, at, version);
+    }
+
+    public static TicketEvent resolved(String ticketId, Date at, long version) {
+        return new TicketEvent(Type.RESOLVE_TICKET, ticketId, null, null, null, at, version);
+    }
+
+    public static TicketEvent escalated(String ticketId, Date at, long version) {
+        return new TicketEvent(Type.ESCALATE_TICKET, ticketId, null, null, null, at, version);
+    }
+
+    public static TicketEvent replyAdded(String ticketId, Reply reply, long version) {
+        return new TicketEvent(Type.ADD_REPLY, ticketId, null, reply, null, null, version);
+    }
+
+    // Snapshot record: re-attaches a reply without touching the ticket
+    public static TicketEvent replyRestored(String ticketId, Reply reply) {
+        return new TicketEvent(Type.RESTORE_REPLY, ticketId, null, reply, null, null, 0);
+    }
+
+    public static TicketEvent replyEdited(String ticketId, String replyId, String content, Date at) {
+        Reply edit = new Reply();
+        edit.setId(replyId);
+        edit.setContent(content);
+        edit.setLastEditedAt(at);
+        return new TicketEvent(Type.EDIT_REPLY, ticketId, null, edit, null, at, 0);
+    }
+
+    public Type getType() { return type; }
+
+    public String getTicketId() { return ticketId; }
+
+    public Ticket getTicket() { return ticket; }
+
+    public Reply getReply() { return reply; }
+
+    public String getUserId() { return userId; }
+
+    public Date getAt() { return at; }
+
+    public long getVersion() { return version; }
+
+    public byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(type.ordinal());
+            writeString(out, ticketId);
+            writeDate(out, at);
+            out.writeLong(version);
+            switch (type) {
+                case CREATE_TICKET, UPDATE_TICKET -> writeTicket(out, ticket);
+                case ADD_REPLY, EDIT_REPLY, RESTORE_REPLY -> writeReply(out, reply);
+                case ASSIGN_TICKET -> writeString(out, userId);
+                case RESOLVE_TICKET, ESCALATE_TICKET -> {
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static TicketEvent decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        int ordinal = in.readUnsignedByte();
+        if (ordinal >= TYPES.length) {
+            throw new IOException("Unknown event type: " + ordinal);
+        }
+        Type type = TYPES[ordinal];
+        String ticketId = readString(in);
+        Date at = readDate(in);
+        long version = in.readLong();
+        return switch (type) {
+            case CREATE_TICKET, UPDATE_TICKET -> {
+                Ticket ticket = readTicket(in);
+                ticket.setVersion(version);
+                yield new TicketEvent(type, ticketId, ticket, null, null, at, version);
+            }
+            case ADD_REPLY, EDIT_REPLY, RESTORE_REPLY -> new TicketEvent(type, ticketId, null, readReply(in), null, at, version);
+            case ASSIGN_TICKET -> new TicketEvent(type, ticketId, null, null, readString(in), at, version);
+            case RESOLVE_TICKET, ESCALATE_TICKET -> new TicketEvent(type, ticketId, null, null, null, at, version);
+        };
+    }
+
+    private static void writeTicket(DataOutputStream out, Ticket ticket) throws IOException {
+        writeString(out, ticket.getId());
+        writeString(out, ticket.getTitle());
+        writeString(out, ticket.getDescription());
+        writeString(out, ticket.getStatus());
+        writeString(out, ticket.getAssignedTo());
+        out.writeLong(ticket.createdAtMillis());
+        out.writeLong(ticket.lastUpdatedAtMillis());
+        out.writeLong(ticket.resolvedAtMillis());
+        out.writeLong(ticket.escalatedAtMillis());
+    }
+
+    private static Ticket readTicket(DataInputStream in) throws IOException {
+        Ticket ticket = new Ticket();
+        ticket.setId(readString(in));
+        ticket.setTitle(readString(in));
+        ticket.setDescription(readString(in));
+        ticket.setStatus(readString(in));
+        ticket.setAssignedTo(readString(in));
+        ticket.createdAtMillis(in.readLong());
+        ticket.lastUpdatedAtMillis(in.readLong());
+        ticket.resolvedAtMillis(in.readLong());
+        // The ticket ends the record; records written before escalation existed stop here
+        if (in.available() >= Long.BYTES) {
+            ticket.escalatedAtMillis(in.readLong());
+        }
+        return ticket;
+    }
+
+    private static void writeReply(DataOutputStream out, Reply reply) throws IOException {
+        writeString(out, reply.getId());
+        writeString(out, reply.getContent());
+        writeString(out, reply.getParentId());
+        out.writeLong(reply.timestampMillis());
+        out.writeLong(reply.lastEditedAtMillis());
+    }
+
+    private static Reply readReply(DataInputStream in) throws IOException {
+        Reply reply = new Reply();
+        reply.setId(readString(in));
+        reply.setContent(readString(in));
+        reply.setParentId(readString(in));
+        reply.timestampMillis(in.readLong());
+        reply.lastEditedAtMillis(in.readLong());
+        return reply;
+    }
+
+    // Length-prefixed UTF-8; DataOutput.writeUTF caps strings at 64KB
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeDate(DataOutputStream out, Date date) throws IOException {
+        out.writeLong(date != null ? date.getTime() : NO_DATE);
+    }
+
+    private static Date readDate(DataInputStream in) throws IOException {
+        long millis = in.readLong();
+        return millis != NO_DATE ? new Date(millis) : null;
+    }
+}
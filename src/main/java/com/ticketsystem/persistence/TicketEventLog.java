@@ -0,0 +1,43 @@
+package com.ticketsystem.persistence;
+
+import java.io.Closeable;
+import java.util.function.Consumer;
+
+public interface TicketEventLog extends Closeable {
+
+    // Used when persistence is switched off; keeps the store purely in memory
+    TicketEventLog DISABLED = new TicketEventLog() {
+        @Override
+        public void append(TicketEvent event) {
+        }
+
+        @Override
+        public void sync() {
+        }
+
+        @Override
+        public void replay(Consumer<TicketEvent> handler) {
+        }
+
+        @Override
+        public void snapshot(Consumer<Consumer<TicketEvent>> state) {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    // Queues the event behind every event appended before it; never blocks on disk I/O
+    void append(TicketEvent event);
+
+    // Waits until everything appended so far is as durable as the fsync policy promises
+    void sync();
+
+    // Feeds the latest snapshot and every event logged after it to the handler, in order
+    void replay(Consumer<TicketEvent> handler);
+
+    // Rolls the log, writes the full state emitted by the callback and drops the covered segments.
+    // Events appended while the state is being written may appear in both, so replay must be idempotent.
+    void snapshot(Consumer<Consumer<TicketEvent>> state);
+}
@@ -0,0 +1,6 @@
+package com.ticketsystem.service;
+
+// Whole-store queries whose results can be cached until TicketService.queryVersion says they changed
+public enum TicketQuery {
+    DEPARTMENTS, STATISTICS, UNASSIGNED, OVERDUE
+}
@@ -1,19 +1,36 @@
 package com.ticketsystem.service;
 
+import com.ticketsystem.model.BulkItem;
+import com.ticketsystem.model.BulkResult;
 import com.ticketsystem.model.Reply;
+import com.ticketsystem.model.ReplyTreePage;
 import com.ticketsystem.model.Ticket;
+import com.ticketsystem.model.TicketPage;
+import com.ticketsystem.model.TicketPatch;
 
 import java.util.List;
 import java.util.Map;
 
 public interface TicketService {
 
+    // Ticket versions start at 1 and grow by one with every change; ANY_VERSION skips the check
+    long ANY_VERSION = 0;
+
     Ticket createTicket(String title, String description);
 
     Ticket getTicket(String id);
 
+    // Without replies the stored ticket is returned as is, its replies left empty as in list results
+    Ticket getTicket(String id, boolean includeReplies);
+
+    // Checks the version carried by the ticket, so a read-modify-write round trip is safe by default
     Ticket updateTicket(Ticket ticket);
 
+    // Throws TicketVersionConflictException when the stored version differs from expectedVersion
+    Ticket updateTicket(Ticket ticket, long expectedVersion);
+
+    Ticket patchTicket(String ticketId, TicketPatch patch, long expectedVersion);
+
     Ticket assignTicket(String ticketId, String userId);
 
     Reply addReply(String ticketId, String content, String parentReplyId);
@@ -22,18 +39,43 @@ public interface TicketService {
 
     Ticket resolveTicket(String ticketId);
 
+    // Bulk variants apply entries in order and report a result per entry; one entry failing does not stop the rest
+
+    List<BulkResult<Ticket>> createTickets(List<BulkItem> items);
+
+    List<BulkResult<Ticket>> assignTickets(List<BulkItem> items);
+
+    List<BulkResult<Ticket>> resolveTickets(List<BulkItem> items);
+
+    List<BulkResult<Reply>> addReplies(List<BulkItem> items);
+
     List<Ticket> getAllTickets();
 
+    // Oldest first; pass the previous page's nextCursor to continue
+    TicketPage getAllTickets(String cursor, int limit);
+
     List<Ticket> getTicketsByStatus(String status);
 
+    TicketPage getTicketsByStatus(String status, String cursor, int limit);
+
     List<Ticket> getTicketsByAssignee(String userId);
 
+    TicketPage getTicketsByAssignee(String userId, String cursor, int limit);
+
     Map<String, List<Ticket>> getTicketsByDepartment();
 
+    TicketPage getTicketsByDepartment(String department, String cursor, int limit);
+
     List<Ticket> searchTickets(String searchTerm);
 
+    List<Ticket> searchTickets(String searchTerm, boolean includeReplies, int offset, int limit);
+
     List<Reply> getTicketRepliesTree(String ticketId);
 
+    // Up to limit replies of the tree: the replies under parentReplyId, or the top-level ones when
+    // it is null, starting after cursor, with their descendants down to depth levels in all
+    ReplyTreePage getTicketRepliesTree(String ticketId, String parentReplyId, String cursor, int depth, int limit);
+
     Map<String, Integer> getTicketStatistics();
 
     List<Ticket> getRecentTickets(int limit);
@@ -41,4 +83,8 @@ public interface TicketService {
     List<Ticket> getUnassignedTickets();
 
     List<Ticket> getOverdueTickets();
+
+    // Changes whenever the result of the query may have changed, including when time alone makes
+    // tickets overdue; equal versions mean an earlier result is still current
+    long queryVersion(TicketQuery query);
 }
@@ -0,0 +1,27 @@
+package com.ticketsystem.service;
+
+// The ticket changed since the version the caller based its update on
+public class TicketVersionConflictException extends RuntimeException {
+    private final String ticketId;
+    private final long expectedVersion;
+    private final long currentVersion;
+
+    public TicketVersionConflictException(String ticketId, long expectedVersion, long currentVersion) {
+        super("Ticket " + ticketId + " is at version " + currentVersion + ", expected " + expectedVersion);
+        this.ticketId = ticketId;
+        this.expectedVersion = expectedVersion;
+        this.currentVersion = currentVersion;
+    }
+
+    public String getTicketId() {
+        return ticketId;
+    }
+
+    public long getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    public long getCurrentVersion() {
+        return currentVersion;
+    }
+}
@@ -0,0 +1,18 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.model.User;
+
+import java.util.List;
+
+public interface UserService {
+
+    // Creates the user, or replaces the one with the same id; an id is generated when missing
+    User saveUser(User user);
+
+    User getUser(String id);
+
+    // In id order; all users when department is null
+    List<User> getUsers(String department);
+
+    boolean deleteUser(String id);
+}
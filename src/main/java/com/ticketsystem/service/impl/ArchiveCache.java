@@ -0,0 +1,54 @@
+package com.ticketsystem.service.impl;
+
+import com.ticketsystem.model.Ticket;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+// The archived tickets read most recently, with their reply threads rebuilt, so a ticket that is
+// read again soon after is not decoded again. Entries are read-only copies: a ticket that is
+// written to leaves the archive and this cache, and goes back into the store.
+final class ArchiveCache {
+    record Entry(Ticket ticket, ReplyThread thread) {
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, Entry> entries;
+
+    ArchiveCache(int capacity) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    Entry get(String ticketId) {
+        lock.lock();
+        try {
+            return entries.get(ticketId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void put(String ticketId, Entry entry) {
+        lock.lock();
+        try {
+            entries.put(ticketId, entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void invalidate(String ticketId) {
+        lock.lock();
+        try {
+            entries.remove(ticketId);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
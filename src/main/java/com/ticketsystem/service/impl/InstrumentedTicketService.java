@@ -0,0 +1,315 @@
+package com.ticketsystem.service.impl;
+
+import com.ticketsystem.cluster.ClusteredTicketService;
+import com.ticketsystem.metrics.MetricsRegistry;
+import com.ticketsystem.metrics.OperationMetrics;
+import com.ticketsystem.model.BulkItem;
+import com.ticketsystem.model.BulkResult;
+import com.ticketsystem.model.Reply;
+import com.ticketsystem.model.ReplyTreePage;
+import com.ticketsystem.model.Ticket;
+import com.ticketsystem.model.TicketPage;
+import com.ticketsystem.model.TicketPatch;
+import com.ticketsystem.service.TicketQuery;
+import com.ticketsystem.service.TicketService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+// Records latency, errors and result sizes of every TicketService call. Each operation's
+// metrics are looked up once here, so a call costs two nanoTime reads and a histogram update.
+@Service
+@Primary
+public class InstrumentedTicketService implements TicketService {
+    private final TicketService delegate;
+
+    private final OperationMetrics createTicket;
+    private final OperationMetrics getTicket;
+    private final OperationMetrics getTicketWithoutReplies;
+    private final OperationMetrics updateTicket;
+    private final OperationMetrics patchTicket;
+    private final OperationMetrics assignTicket;
+    private final OperationMetrics addReply;
+    private final OperationMetrics editReply;
+    private final OperationMetrics resolveTicket;
+    private final OperationMetrics createTickets;
+    private final OperationMetrics assignTickets;
+    private final OperationMetrics resolveTickets;
+    private final OperationMetrics addReplies;
+    private final OperationMetrics getAllTickets;
+    private final OperationMetrics getAllTicketsPage;
+    private final OperationMetrics getTicketsByStatus;
+    private final OperationMetrics getTicketsByStatusPage;
+    private final OperationMetrics getTicketsByAssignee;
+    private final OperationMetrics getTicketsByAssigneePage;
+    private final OperationMetrics getTicketsByDepartment;
+    private final OperationMetrics getTicketsByDepartmentPage;
+    private final OperationMetrics searchTickets;
+    private final OperationMetrics getTicketRepliesTree;
+    private final OperationMetrics getTicketRepliesTreePage;
+    private final OperationMetrics getTicketStatistics;
+    private final OperationMetrics getRecentTickets;
+    private final OperationMetrics getUnassignedTickets;
+    private final OperationMetrics getOverdueTickets;
+
+    public InstrumentedTicketService(TicketServiceImpl delegate, MetricsRegistry metrics) {
+        this((TicketService) delegate, metrics);
+    }
+
+    // In a cluster the calls go through the node's routing service instead of the local store
+    @Autowired
+    public InstrumentedTicketService(TicketServiceImpl local, Optional<ClusteredTicketService> clustered,
+                                     MetricsRegistry metrics) {
+        this(clustered.<TicketService>map(service -> service).orElse(local), metrics);
+    }
+
+    private InstrumentedTicketService(TicketService delegate, MetricsRegistry metrics) {
+        this.delegate = delegate;
+        this.createTicket = metrics.operation("createTicket");
+        this.getTicket = metrics.operation("getTicket");
+        this.getTicketWithoutReplies = metrics.operation("getTicketWithoutReplies");
+        this.updateTicket = metrics.operation("updateTicket");
+        this.patchTicket = metrics.operation("patchTicket");
+        this.assignTicket = metrics.operation("assignTicket");
+        this.addReply = metrics.operation("addReply");
+        this.editReply = metrics.operation("editReply");
+        this.resolveTicket = metrics.operation("resolveTicket");
+        this.createTickets = metrics.operation("createTickets");
+        this.assignTickets = metrics.operation("assignTickets");
+        this.resolveTickets = metrics.operation("resolveTickets");
+        this.addReplies = metrics.operation("addReplies");
+        this.getAllTickets = metrics.operation("getAllTickets");
+        this.getAllTicketsPage = metrics.operation("getAllTicketsPage");
+        this.getTicketsByStatus = metrics.operation("getTicketsByStatus");
+        this.getTicketsByStatusPage = metrics.operation("getTicketsByStatusPage");
+        this.getTicketsByAssignee = metrics.operation("getTicketsByAssignee");
+        this.getTicketsByAssigneePage = metrics.operation("getTicketsByAssigneePage");
+        this.getTicketsByDepartment = metrics.operation("getTicketsByDepartment");
+        this.getTicketsByDepartmentPage = metrics.operation("getTicketsByDepartmentPage");
+        this.searchTickets = metrics.operation("searchTickets");
+        this.getTicketRepliesTree = metrics.operation("getTicketRepliesTree");
+        this.getTicketRepliesTreePage = metrics.operation("getTicketRepliesTreePage");
+        this.getTicketStatistics = metrics.operation("getTicketStatistics");
+        this.getRecentTickets = metrics.operation("getRecentTickets");
+        this.getUnassignedTickets = metrics.operation("getUnassignedTickets");
+        this.getOverdueTickets = metrics.operation("getOverdueTickets");
+    }
+
+    @Override
+    public Ticket createTicket(String title, String description) {
+        return timed(createTicket, () -> delegate.createTicket(title, description));
+    }
+
+    @Override
+    public Ticket getTicket(String id) {
+        return timed(getTicket, () -> delegate.getTicket(id));
+    }
+
+    @Override
+    public Ticket getTicket(String id, boolean includeReplies) {
+        return timed(includeReplies ? getTicket : getTicketWithoutReplies, () -> delegate.getTicket(id, includeReplies));
+    }
+
+    @Override
+    public Ticket updateTicket(Ticket ticket) {
+        return timed(updateTicket, () -> delegate.updateTicket(ticket));
+    }
+
+    @Override
+    public Ticket updateTicket(Ticket ticket, long expectedVersion) {
+        return timed(updateTicket, () -> delegate.updateTicket(ticket, expectedVersion));
+    }
+
+    @Override
+    public Ticket patchTicket(String ticketId, TicketPatch patch, long expectedVersion) {
+        return timed(patchTicket, () -> delegate.patchTicket(ticketId, patch, expectedVersion));
+    }
+
+    @Override
+    public Ticket assignTicket(String ticketId, String userId) {
+        return timed(assignTicket, () -> delegate.assignTicket(ticketId, userId));
+    }
+
+    @Override
+    public Reply addReply(String ticketId, String content, String parentReplyId) {
+        return timed(addReply, () -> delegate.addReply(ticketId, content, parentReplyId));
+    }
+
+    @Override
+    public Reply editReply(String ticketId, String replyId, String newContent) {
+        return timed(editReply, () -> delegate.editReply(ticketId, replyId, newContent));
+    }
+
+    @Override
+    public Ticket resolveTicket(String ticketId) {
+        return timed(resolveTicket, () -> delegate.resolveTicket(ticketId));
+    }
+
+    @Override
+    public List<BulkResult<Ticket>> createTickets(List<BulkItem> items) {
+        return sized(createTickets, () -> delegate.createTickets(items));
+    }
+
+    @Override
+    public List<BulkResult<Ticket>> assignTickets(List<BulkItem> items) {
+        return sized(assignTickets, () -> delegate.assignTickets(items));
+    }
+
+    @Override
+    public List<BulkResult<Ticket>> resolveTickets(List<BulkItem> items) {
+        return sized(resolveTickets, () -> delegate.resolveTickets(items));
+    }
+
+    @Override
+    public List<BulkResult<Reply>> addReplies(List<BulkItem> items) {
+        return sized(addReplies, () -> delegate.addReplies(items));
+    }
+
+    @Override
+    public List<Ticket> getAllTickets() {
+        return sized(getAllTickets, delegate::getAllTickets);
+    }
+
+    @Override
+    public TicketPage getAllTickets(String cursor, int limit) {
+        return paged(getAllTicketsPage, () -> delegate.getAllTickets(cursor, limit));
+    }
+
+    @Override
+    public List<Ticket> getTicketsByStatus(String status) {
+        return sized(getTicketsByStatus, () -> delegate.getTicketsByStatus(status));
+    }
+
+    @Override
+    public TicketPage getTicketsByStatus(String status, String cursor, int limit) {
+        return paged(getTicketsByStatusPage, () -> delegate.getTicketsByStatus(status, cursor, limit));
+    }
+
+    @Override
+    public List<Ticket> getTicketsByAssignee(String userId) {
+        return sized(getTicketsByAssignee, () -> delegate.getTicketsByAssignee(userId));
+    }
+
+    @Override
+    public TicketPage getTicketsByAssignee(String userId, String cursor, int limit) {
+        return paged(getTicketsByAssigneePage, () -> delegate.getTicketsByAssignee(userId, cursor, limit));
+    }
+
+    @Override
+    public Map<String, List<Ticket>> getTicketsByDepartment() {
+        long start = System.nanoTime();
+        try {
+            Map<String, List<Ticket>> result = delegate.getTicketsByDepartment();
+            int size = 0;
+            for (List<Ticket> departmentTickets : result.values()) {
+                size += departmentTickets.size();
+            }
+            getTicketsByDepartment.recordSuccess(start, size);
+            return result;
+        } catch (RuntimeException e) {
+            getTicketsByDepartment.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public TicketPage getTicketsByDepartment(String department, String cursor, int limit) {
+        return paged(getTicketsByDepartmentPage, () -> delegate.getTicketsByDepartment(department, cursor, limit));
+    }
+
+    @Override
+    public List<Ticket> searchTickets(String searchTerm) {
+        return sized(searchTickets, () -> delegate.searchTickets(searchTerm));
+    }
+
+    @Override
+    public List<Ticket> searchTickets(String searchTerm, boolean includeReplies, int offset, int limit) {
+        return sized(searchTickets, () -> delegate.searchTickets(searchTerm, includeReplies, offset, limit));
+    }
+
+    @Override
+    public List<Reply> getTicketRepliesTree(String ticketId) {
+        return sized(getTicketRepliesTree, () -> delegate.getTicketRepliesTree(ticketId));
+    }
+
+    @Override
+    public ReplyTreePage getTicketRepliesTree(String ticketId, String parentReplyId, String cursor, int depth, int limit) {
+        long start = System.nanoTime();
+        try {
+            ReplyTreePage result = delegate.getTicketRepliesTree(ticketId, parentReplyId, cursor, depth, limit);
+            getTicketRepliesTreePage.recordSuccess(start, result.getItems().size());
+            return result;
+        } catch (RuntimeException e) {
+            getTicketRepliesTreePage.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Map<String, Integer> getTicketStatistics() {
+        return timed(getTicketStatistics, delegate::getTicketStatistics);
+    }
+
+    @Override
+    public List<Ticket> getRecentTickets(int limit) {
+        return sized(getRecentTickets, () -> delegate.getRecentTickets(limit));
+    }
+
+    @Override
+    public List<Ticket> getUnassignedTickets() {
+        return sized(getUnassignedTickets, delegate::getUnassignedTickets);
+    }
+
+    @Override
+    public List<Ticket> getOverdueTickets() {
+        return sized(getOverdueTickets, delegate::getOverdueTickets);
+    }
+
+    // Bookkeeping for response caching rather than a query, so it is not timed
+    @Override
+    public long queryVersion(TicketQuery query) {
+        return delegate.queryVersion(query);
+    }
+
+    private static <T> T timed(OperationMetrics metrics, Supplier<T> call) {
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            metrics.recordSuccess(start);
+            return result;
+        } catch (RuntimeException e) {
+            metrics.recordError(start);
+            throw e;
+        }
+    }
+
+    private static <C extends Collection<?>> C sized(OperationMetrics metrics, Supplier<C> call) {
+        long start = System.nanoTime();
+        try {
+            C result = call.get();
+            metrics.recordSuccess(start, result.size());
+            return result;
+        } catch (RuntimeException e) {
+            metrics.recordError(start);
+            throw e;
+        }
+    }
+
+    private static TicketPage paged(OperationMetrics metrics, Supplier<TicketPage> call) {
+        long start = System.nanoTime();
+        try {
+            TicketPage result = call.get();
+            metrics.recordSuccess(start, result.getItems().size());
+            return result;
+        } catch (RuntimeException e) {
+            metrics.recordError(start);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.ticketsystem.service.impl;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+// Lazy k-way merge of sources that are each sorted by the same order; every next() costs
+// O(log k), so taking the first n of k shards' results never touches more than n + k elements
+final class MergingIterator<T> implements Iterator<T> {
+    private final PriorityQueue<Head<T>> heads;
+
+    private record Head<T>(T value, Iterator<? extends T> rest) {
+    }
+
+    MergingIterator(List<? extends Iterator<? extends T>> sources, Comparator<? super T> order) {
+        this.heads = new PriorityQueue<>(Math.max(1, sources.size()), (a, b) -> order.compare(a.value(), b.value()));
+        for (Iterator<? extends T> source : sources) {
+            advance(source);
+        }
+    }
+
+    static <T> Iterable<T> merge(List<? extends Iterable<? extends T>> sources, Comparator<? super T> order) {
+        return () -> {
+            List<Iterator<? extends T>> iterators = new ArrayList<>(sources.size());
+            for (Iterable<? extends T> source : sources) {
+                iterators.add(source.iterator());
+            }
+            return new MergingIterator<>(iterators, order);
+        };
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !heads.isEmpty();
+    }
+
+    @Override
+    public T next() {
+        Head<T> head = heads.poll();
+        if (head == null) {
+            throw new NoSuchElementException();
+        }
+        advance(head.rest());
+        return head.value();
+    }
+
+    private void advance(Iterator<? extends T> source) {
+        if (source.hasNext()) {
+            heads.add(new Head<>(source.next(), source));
+        }
+    }
+}
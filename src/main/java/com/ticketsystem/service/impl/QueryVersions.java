@@ -0,0 +1,48 @@
+package com.ticketsystem.service.impl;
+
+import com.ticketsystem.service.TicketQuery;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongUnaryOperator;
+
+// Change counters for the cacheable whole-store queries. Writers bump them after the changed
+// ticket is in the store, so a reader that sees a new version also sees the change, and a result
+// computed while a write was in flight carries the older version and goes stale with it.
+class QueryVersions {
+    private final AtomicLongArray versions = new AtomicLongArray(TicketQuery.values().length);
+    // Earliest instant at which an open ticket turns overdue without being written to
+    private final AtomicLong nextOverdueAt = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong overdueDeadlines = new AtomicLong();
+
+    long version(TicketQuery query) {
+        return versions.get(query.ordinal());
+    }
+
+    void changed(TicketQuery query) {
+        versions.incrementAndGet(query.ordinal());
+    }
+
+    // Called after the ticket is in the indexes
+    void overdueFrom(long instant) {
+        overdueDeadlines.incrementAndGet();
+        nextOverdueAt.accumulateAndGet(instant, Math::min);
+    }
+
+    // Bumps OVERDUE once the clock passes the next deadline; following scans the indexes for the
+    // deadline after now. A deadline reported during that scan may be overwritten by it, in which
+    // case the next call bumps the version again rather than missing a ticket.
+    long overdueVersion(long now, LongUnaryOperator following) {
+        long due = nextOverdueAt.get();
+        if (now >= due) {
+            long deadlines = overdueDeadlines.get();
+            if (nextOverdueAt.compareAndSet(due, following.applyAsLong(now))) {
+                changed(TicketQuery.OVERDUE);
+                if (overdueDeadlines.get() != deadlines) {
+                    nextOverdueAt.accumulateAndGet(now, Math::min);
+                }
+            }
+        }
+        return version(TicketQuery.OVERDUE);
+    }
+}
@@ -0,0 +1,168 @@
+package com.ticketsystem.service.impl;
+
+import com.ticketsystem.model.Reply;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// All replies of one ticket: an id index, the flat list in insertion order and the reply tree
+// with every level kept in timestamp order as replies arrive. Writers take the lock; readers get
+// immutable list views and never lock, copy or sort. A stored reply is never changed once
+// published: an edit swaps in a copy, and a new child only swaps the parent's children view.
+class ReplyThread {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Reply> byId = new ConcurrentHashMap<>();
+    private final ReplyList all = new ReplyList();
+    private final ReplyList roots = new ReplyList();
+    // Created with the first reply to a reply; most tickets never have one
+    private Map<String, ReplyList> children;
+
+    Reply get(String replyId) {
+        return replyId != null ? byId.get(replyId) : null;
+    }
+
+    boolean contains(String replyId) {
+        return byId.containsKey(replyId);
+    }
+
+    int size() {
+        return byId.size();
+    }
+
+    // Insertion order, as the flat reply list has always been returned
+    List<Reply> all() {
+        return all.view();
+    }
+
+    // Top-level replies; children hang off each Reply as immutable views as well.
+    // A reply whose parent is unknown stays in the flat list but out of the tree.
+    List<Reply> roots() {
+        return roots.view();
+    }
+
+    void add(Reply reply) {
+        lock.lock();
+        try {
+            reply.setChildren(ReplyList.EMPTY_VIEW);
+            byId.put(reply.getId(), reply);
+            all.append(reply);
+
+            String parentId = reply.getParentId();
+            if (parentId == null) {
+                roots.insertByTimestamp(reply);
+            } else if (byId.containsKey(parentId)) {
+                if (children == null) {
+                    children = new HashMap<>();
+                }
+                ReplyList siblings = children.computeIfAbsent(parentId, k -> new ReplyList());
+                siblings.insertByTimestamp(reply);
+                byId.get(parentId).setChildren(siblings.view());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Puts an edited copy of a stored reply in its place, keeping the stored reply's children
+    void replace(Reply edited) {
+        lock.lock();
+        try {
+            Reply stored = byId.get(edited.getId());
+            if (stored == null) {
+                return;
+            }
+            edited.setChildren(stored.getChildren());
+            byId.put(edited.getId(), edited);
+            all.replace(stored, edited);
+
+            String parentId = stored.getParentId();
+            if (parentId == null) {
+                roots.replace(stored, edited);
+            } else if (children != null && children.containsKey(parentId)) {
+                ReplyList siblings = children.get(parentId);
+                siblings.replace(stored, edited);
+                byId.get(parentId).setChildren(siblings.view());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Single-writer list; every mutation publishes a new immutable view. Appends share the backing
+    // array with older views (they only ever see their own prefix); out-of-order inserts copy it.
+    private static final class ReplyList {
+        static final List<Reply> EMPTY_VIEW = new View(new Reply[0], 0);
+        // Unset timestamps are Ticket.NO_TIME, Long.MIN_VALUE, so they sort first as null dates did
+        private static final Comparator<Reply> BY_TIMESTAMP = Comparator.comparingLong(Reply::timestampMillis);
+
+        private static final Reply[] NO_REPLIES = new Reply[0];
+
+        private Reply[] items = NO_REPLIES;
+        private int size;
+        private volatile List<Reply> view = EMPTY_VIEW;
+
+        List<Reply> view() {
+            return view;
+        }
+
+        void append(Reply reply) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, Math.max(4, size * 2));
+            }
+            items[size++] = reply;
+            view = new View(items, size);
+        }
+
+        void insertByTimestamp(Reply reply) {
+            int position = size;
+            while (position > 0 && BY_TIMESTAMP.compare(items[position - 1], reply) > 0) {
+                position--;
+            }
+            if (position == size) {
+                append(reply);
+                return;
+            }
+            Reply[] copy = new Reply[Math.max(items.length, size + 1)];
+            System.arraycopy(items, 0, copy, 0, position);
+            copy[position] = reply;
+            System.arraycopy(items, position, copy, position + 1, size - position);
+            items = copy;
+            size++;
+            view = new View(items, size);
+        }
+
+        // Copies the array, as older views share it
+        void replace(Reply stored, Reply replacement) {
+            for (int i = size - 1; i >= 0; i--) {
+                if (items[i] == stored) {
+                    items = Arrays.copyOf(items, items.length);
+                    items[i] = replacement;
+                    view = new View(items, size);
+                    return;
+                }
+            }
+        }
+    }
+
+    private static final class View extends AbstractList<Reply> implements RandomAccess {
+        private final Reply[] items;
+        private final int size;
+
+        View(Reply[] items, int size) {
+            this.items = items;
+            this.size = size;
+        }
+
+        @Override
+        public Reply get(int index) {
+            Objects.checkIndex(index, size);
+            return items[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.ticketsystem.service.impl;
+
+import com.ticketsystem.model.Reply;
+import com.ticketsystem.model.ReplyNode;
+import com.ticketsystem.model.ReplyTreePage;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+// Cuts a page out of a reply tree: up to limit replies in all, the requested level first and then
+// their descendants level by level, down to depth levels. The reply lists are the thread's
+// immutable views, so paging reads them in place and only allocates the replies it returns.
+// Cursors are the timestamp and id of the last reply returned from a list, which is kept in
+// timestamp order, so a reply added while a client pages is not returned twice.
+final class ReplyTreePager {
+    private ReplyTreePager() {
+    }
+
+    static ReplyTreePage page(List<Reply> siblings, String cursor, int depth, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
+        int start = cursor != null ? positionAfter(siblings, cursor) : 0;
+        if (start > siblings.size()) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        int budget = limit;
+        int count = Math.min(siblings.size() - start, budget);
+        List<ReplyNode> items = new ArrayList<>(count);
+        ArrayDeque<Expansion> pending = new ArrayDeque<>();
+        for (int i = start; i < start + count; i++) {
+            items.add(expandable(siblings.get(i), 1, pending));
+        }
+        budget -= count;
+        String nextCursor = start + count < siblings.size() ? cursorOf(siblings.get(start + count - 1)) : null;
+
+        // Breadth first, so a page spends its budget on shallow replies before deep ones
+        while (!pending.isEmpty() && budget > 0) {
+            Expansion expansion = pending.poll();
+            if (expansion.level >= depth) {
+                continue;
+            }
+            List<Reply> children = expansion.reply.getChildren();
+            int included = Math.min(children.size(), budget);
+            List<ReplyNode> nodes = new ArrayList<>(included);
+            for (int i = 0; i < included; i++) {
+                nodes.add(expandable(children.get(i), expansion.level + 1, pending));
+            }
+            expansion.node.setChildren(nodes);
+            if (included < children.size()) {
+                expansion.node.setChildrenCursor(cursorOf(children.get(included - 1)));
+            }
+            budget -= included;
+        }
+        return new ReplyTreePage(items, siblings.size(), nextCursor);
+    }
+
+    private record Expansion(Reply reply, ReplyNode node, int level) {
+    }
+
+    private static ReplyNode expandable(Reply reply, int level, ArrayDeque<Expansion> pending) {
+        List<Reply> children = reply.getChildren();
+        int childCount = children != null ? children.size() : 0;
+        ReplyNode node = new ReplyNode(reply, childCount);
+        if (childCount > 0) {
+            pending.add(new Expansion(reply, node, level));
+        }
+        return node;
+    }
+
+    private static String cursorOf(Reply reply) {
+        return reply.timestampMillis() + ":" + reply.getId();
+    }
+
+    // Index just after the cursor's reply, or after every reply with its timestamp if it is gone
+    private static int positionAfter(List<Reply> siblings, String cursor) {
+        int separator = cursor.indexOf(':');
+        long timestamp;
+        try {
+            timestamp = Long.parseLong(cursor.substring(0, separator));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        String replyId = cursor.substring(separator + 1);
+
+        int low = 0;
+        int high = siblings.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (siblings.get(middle).timestampMillis() <= timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        for (int i = low - 1; i >= 0 && siblings.get(i).timestampMillis() == timestamp; i--) {
+            if (siblings.get(i).getId().equals(replyId)) {
+                return i + 1;
+            }
+        }
+        return low;
+    }
+}
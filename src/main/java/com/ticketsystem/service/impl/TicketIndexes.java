@@ -0,0 +1,271 @@
+package com.ticketsystem.service.impl;
+
+import com.ticketsystem.model.Ticket;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
+
+// Secondary indexes over ticket ids. Callers must update a ticket and its index
+// entries inside the same per-ticket critical section (TicketServiceImpl holds the ticket's lock).
+class TicketIndexes {
+    // Id-ordered so list endpoints can page with the last id as cursor. A key whose last id leaves
+    // is dropped, so arbitrary assignees and statuses do not pile up as empty sets.
+    private final ConcurrentMap<String, NavigableSet<String>> byStatus = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, NavigableSet<String>> byAssignee = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, NavigableSet<String>> byDepartment = new ConcurrentHashMap<>();
+    private final Set<String> unassigned = ConcurrentHashMap.newKeySet();
+    private final Map<String, LongAdder> statusCounts = new ConcurrentHashMap<>();
+    private final NavigableSet<TimeKey> byCreatedAt = new ConcurrentSkipListSet<>();
+    private final NavigableSet<TimeKey> openByCreatedAt = new ConcurrentSkipListSet<>();
+
+    // The indexed fields of the ticket being replaced
+    record Snapshot(String status, String assignedTo, long createdAt) {
+        static Snapshot of(Ticket ticket) {
+            return new Snapshot(ticket.getStatus(), ticket.getAssignedTo(), ticket.createdAtMillis());
+        }
+    }
+
+    record TimeKey(long createdAt, String id) implements Comparable<TimeKey> {
+        // Sorts before every key with the same timestamp, for range bounds
+        static TimeKey lowest(long createdAt) {
+            return new TimeKey(createdAt, "");
+        }
+
+        @Override
+        public int compareTo(TimeKey other) {
+            int byTime = Long.compare(createdAt, other.createdAt);
+            return byTime != 0 ? byTime : id.compareTo(other.id);
+        }
+    }
+
+    void add(Ticket ticket) {
+        String department = departmentOrNull(ticket.getAssignedTo());
+        addStatus(ticket.getId(), ticket.getStatus());
+        addAssignee(ticket.getId(), ticket.getAssignedTo(), department);
+        addTime(ticket.getId(), ticket.createdAtMillis(), ticket.getStatus());
+    }
+
+    // Every derived key is computed before the first index changes, so a failure cannot leave the
+    // ticket half moved between index entries
+    void update(String id, Snapshot previous, Ticket ticket) {
+        boolean assigneeChanged = !Objects.equals(previous.assignedTo(), ticket.getAssignedTo());
+        String previousDepartment = assigneeChanged ? departmentOrNull(previous.assignedTo()) : null;
+        String department = assigneeChanged ? departmentOrNull(ticket.getAssignedTo()) : null;
+        if (!Objects.equals(previous.status(), ticket.getStatus())) {
+            removeStatus(id, previous.status());
+            addStatus(id, ticket.getStatus());
+        }
+        if (assigneeChanged) {
+            removeAssignee(id, previous.assignedTo(), previousDepartment);
+            addAssignee(id, ticket.getAssignedTo(), department);
+        }
+        if (previous.createdAt() != ticket.createdAtMillis()
+                || isOpen(previous.status()) != isOpen(ticket.getStatus())) {
+            removeTime(id, previous.createdAt());
+            addTime(id, ticket.createdAtMillis(), ticket.getStatus());
+        }
+    }
+
+    void remove(Ticket ticket) {
+        String department = departmentOrNull(ticket.getAssignedTo());
+        removeStatus(ticket.getId(), ticket.getStatus());
+        removeAssignee(ticket.getId(), ticket.getAssignedTo(), department);
+        removeTime(ticket.getId(), ticket.createdAtMillis());
+    }
+
+    NavigableSet<String> withStatus(String status) {
+        return byStatus.getOrDefault(status, Collections.emptyNavigableSet());
+    }
+
+    NavigableSet<String> assignedTo(String userId) {
+        return byAssignee.getOrDefault(userId, Collections.emptyNavigableSet());
+    }
+
+    NavigableSet<String> inDepartment(String department) {
+        return byDepartment.getOrDefault(department, Collections.emptyNavigableSet());
+    }
+
+    Map<String, NavigableSet<String>> byDepartment() {
+        return byDepartment;
+    }
+
+    Set<String> unassigned() {
+        return unassigned;
+    }
+
+    long countWithStatus(String status) {
+        LongAdder count = statusCounts.get(status);
+        return count != null ? count.sum() : 0;
+    }
+
+    Set<String> countedStatuses() {
+        return statusCounts.keySet();
+    }
+
+    // Newest first
+    Iterable<TimeKey> recent() {
+        return byCreatedAt.descendingSet();
+    }
+
+    // Oldest first, starting after the given key (or from the beginning)
+    Iterable<TimeKey> createdAfter(TimeKey from) {
+        return from != null ? byCreatedAt.tailSet(from, false) : byCreatedAt;
+    }
+
+    // Open tickets created strictly before the given instant, oldest first
+    Iterable<TimeKey> openCreatedBefore(long instant) {
+        return openByCreatedAt.headSet(TimeKey.lowest(instant), false);
+    }
+
+    // Creation time of the oldest open ticket created at or after the instant, or Long.MAX_VALUE
+    long oldestOpenCreatedSince(long instant) {
+        TimeKey key = openByCreatedAt.ceiling(TimeKey.lowest(instant));
+        return key != null ? key.createdAt() : Long.MAX_VALUE;
+    }
+
+    static boolean isOpen(String status) {
+        return !"RESOLVED".equals(status) && !"CLOSED".equals(status);
+    }
+
+    static boolean isUnassigned(String assignee) {
+        return assignee == null || assignee.isEmpty();
+    }
+
+    // The part of the assignee before the first dot; the whole assignee when it has none
+    static String departmentOf(String assignee) {
+        int dot = assignee.indexOf('.');
+        return dot >= 0 ? assignee.substring(0, dot) : assignee;
+    }
+
+    private static String departmentOrNull(String assignee) {
+        return assignee != null ? departmentOf(assignee) : null;
+    }
+
+    // Compares the status counters with a full scan; only meaningful while no writes are in flight.
+    boolean countsMatch(Collection<Ticket> tickets) {
+        Map<String, Long> expected = new HashMap<>();
+        for (Ticket ticket : tickets) {
+            if (ticket.getStatus() != null) {
+                expected.merge(ticket.getStatus(), 1L, Long::sum);
+            }
+        }
+        Map<String, Long> actual = new HashMap<>();
+        statusCounts.forEach((status, count) -> {
+            if (count.sum() != 0) {
+                actual.put(status, count.sum());
+            }
+        });
+        return expected.equals(actual);
+    }
+
+    // Compares every index with a full scan; only meaningful while no writes are in flight.
+    boolean matches(Collection<Ticket> tickets) {
+        Map<String, Set<String>> expectedStatus = new HashMap<>();
+        Map<String, Set<String>> expectedAssignee = new HashMap<>();
+        Map<String, Set<String>> expectedDepartment = new HashMap<>();
+        Set<String> expectedUnassigned = new HashSet<>();
+        Set<TimeKey> expectedTimes = new HashSet<>();
+        Set<TimeKey> expectedOpenTimes = new HashSet<>();
+
+        for (Ticket ticket : tickets) {
+            if (ticket.getStatus() != null) {
+                expectedStatus.computeIfAbsent(ticket.getStatus(), k -> new HashSet<>()).add(ticket.getId());
+            }
+            String assignee = ticket.getAssignedTo();
+            if (assignee != null) {
+                expectedAssignee.computeIfAbsent(assignee, k -> new HashSet<>()).add(ticket.getId());
+                expectedDepartment.computeIfAbsent(departmentOf(assignee), k -> new HashSet<>()).add(ticket.getId());
+            }
+            if (isUnassigned(assignee)) {
+                expectedUnassigned.add(ticket.getId());
+            }
+            if (ticket.createdAtMillis() != Ticket.NO_TIME) {
+                TimeKey key = new TimeKey(ticket.createdAtMillis(), ticket.getId());
+                expectedTimes.add(key);
+                if (isOpen(ticket.getStatus())) {
+                    expectedOpenTimes.add(key);
+                }
+            }
+        }
+
+        // An empty set left under a key is a mismatch too
+        return expectedStatus.equals(byStatus)
+                && expectedAssignee.equals(byAssignee)
+                && expectedDepartment.equals(byDepartment)
+                && expectedUnassigned.equals(unassigned)
+                && expectedTimes.equals(byCreatedAt)
+                && expectedOpenTimes.equals(openByCreatedAt);
+    }
+
+    private void addStatus(String id, String status) {
+        if (status != null) {
+            addTo(byStatus, status, id);
+            statusCounts.computeIfAbsent(status, k -> new LongAdder()).increment();
+        }
+    }
+
+    private void removeStatus(String id, String status) {
+        if (status != null) {
+            removeFrom(byStatus, status, id);
+            statusCounts.get(status).decrement();
+        }
+    }
+
+    private void addAssignee(String id, String assignee, String department) {
+        if (assignee != null) {
+            addTo(byAssignee, assignee, id);
+            addTo(byDepartment, department, id);
+        }
+        if (isUnassigned(assignee)) {
+            unassigned.add(id);
+        }
+    }
+
+    private void removeAssignee(String id, String assignee, String department) {
+        if (assignee != null) {
+            removeFrom(byAssignee, assignee, id);
+            removeFrom(byDepartment, department, id);
+        }
+        if (isUnassigned(assignee)) {
+            unassigned.remove(id);
+        }
+    }
+
+    // Both go through compute on the key, so a set is dropped only while it is empty and no id is
+    // ever added to a set that was already dropped
+    private static void addTo(ConcurrentMap<String, NavigableSet<String>> index, String key, String id) {
+        index.compute(key, (k, ids) -> {
+            NavigableSet<String> set = ids != null ? ids : new ConcurrentSkipListSet<>();
+            set.add(id);
+            return set;
+        });
+    }
+
+    private static void removeFrom(ConcurrentMap<String, NavigableSet<String>> index, String key, String id) {
+        index.computeIfPresent(key, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private void addTime(String id, long createdAt, String status) {
+        if (createdAt != Ticket.NO_TIME) {
+            TimeKey key = new TimeKey(createdAt, id);
+            byCreatedAt.add(key);
+            if (isOpen(status)) {
+                openByCreatedAt.add(key);
+            }
+        }
+    }
+
+    private void removeTime(String id, long createdAt) {
+        if (createdAt != Ticket.NO_TIME) {
+            TimeKey key = new TimeKey(createdAt, id);
+            byCreatedAt.remove(key);
+            openByCreatedAt.remove(key);
+        }
+    }
+}
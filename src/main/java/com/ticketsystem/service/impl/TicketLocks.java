@@ -0,0 +1,35 @@
+package com.ticketsystem.service.impl;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Striped per-ticket locks around every mutation of a ticket, its indexes and its log record.
+// ReentrantLock rather than synchronized or a ConcurrentHashMap.compute bin (which is a monitor):
+// a virtual thread that blocks inside the critical section, on the search index or the event
+// log, then unmounts instead of pinning its carrier thread.
+class TicketLocks {
+    private static final int STRIPES = 1024;
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    TicketLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    <T> T withLock(String ticketId, Supplier<T> action) {
+        ReentrantLock lock = locks[stripe(ticketId)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static int stripe(String ticketId) {
+        int h = ticketId.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+}
@@ -0,0 +1,370 @@
+package com.ticketsystem.service.impl;
+
+import com.ticketsystem.model.Ticket;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Trigram inverted index over ticket text. Every substring of three or more characters is
+// covered by the trigrams it contains, so lookups return a candidate superset that the caller
+// confirms with String.contains. Texts shorter than a trigram are indexed as a single gram.
+class TicketSearchIndex {
+    private static final int GRAM_LENGTH = 3;
+    private static final int[] NO_GRAMS = new int[0];
+    private static final int MIN_PURGE = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    // Null at the ordinals of removed tickets until they are purged
+    private final List<String> ticketIds = new ArrayList<>();
+    private int removed;
+    // Each distinct gram is stored once and referred to by its id everywhere else
+    private final Map<String, Integer> gramIds = new HashMap<>();
+    private final List<String> gramsById = new ArrayList<>();
+    // Per ticket ordinal, the sorted ids of its grams
+    private final List<int[]> ticketGramsByOrdinal = new ArrayList<>();
+    private final List<int[]> replyGramsByOrdinal = new ArrayList<>();
+    // Per gram id, the tickets containing it (null when none)
+    private final List<PostingList> ticketPostings = new ArrayList<>();
+    private final List<PostingList> replyPostings = new ArrayList<>();
+
+    void indexTicket(String ticketId, String title, String description) {
+        Set<String> grams = tokenize(title);
+        grams.addAll(tokenize(description));
+
+        lock.writeLock().lock();
+        try {
+            int ordinal = ordinalOf(ticketId);
+            replace(ordinal, ticketGramsByOrdinal, ticketPostings, idsOf(grams));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Indexes a batch under a single acquisition of the write lock
+    void indexTickets(Collection<Ticket> tickets) {
+        List<Set<String>> grams = new ArrayList<>(tickets.size());
+        for (Ticket ticket : tickets) {
+            Set<String> ticketGrams = tokenize(ticket.getTitle());
+            ticketGrams.addAll(tokenize(ticket.getDescription()));
+            grams.add(ticketGrams);
+        }
+
+        lock.writeLock().lock();
+        try {
+            int i = 0;
+            for (Ticket ticket : tickets) {
+                replace(ordinalOf(ticket.getId()), ticketGramsByOrdinal, ticketPostings, idsOf(grams.get(i++)));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void addReply(String ticketId, String content) {
+        Set<String> grams = tokenize(content);
+
+        lock.writeLock().lock();
+        try {
+            int ordinal = ordinalOf(ticketId);
+            int[] existing = replyGramsByOrdinal.get(ordinal);
+            int[] added = idsOf(grams);
+            int[] merged = Arrays.copyOf(existing, existing.length + added.length);
+            int size = existing.length;
+            for (int gram : added) {
+                if (Arrays.binarySearch(existing, gram) < 0) {
+                    postingFor(replyPostings, gram).add(ordinal);
+                    merged[size++] = gram;
+                }
+            }
+            if (size > existing.length) {
+                merged = Arrays.copyOf(merged, size);
+                Arrays.sort(merged);
+                replyGramsByOrdinal.set(ordinal, merged);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Reply edits can drop grams still used by sibling replies, so the ticket's reply text is re-tokenized
+    void reindexReplies(String ticketId, Collection<String> contents) {
+        Set<String> grams = new HashSet<>();
+        for (String content : contents) {
+            grams.addAll(tokenize(content));
+        }
+
+        lock.writeLock().lock();
+        try {
+            int ordinal = ordinalOf(ticketId);
+            replace(ordinal, replyGramsByOrdinal, replyPostings, idsOf(grams));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Removed tickets stay in the posting lists, as candidates without an id, until there is one
+    // for every four remaining tickets; then they are purged from every list in one pass. Taking
+    // them out one at a time would shift the long lists of common grams once per ticket.
+    void removeTicket(String ticketId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(ticketId);
+            if (ordinal == null) {
+                return;
+            }
+            ticketIds.set(ordinal, null);
+            removed++;
+            if (removed >= MIN_PURGE && removed > ordinals.size() / 4) {
+                purgeRemoved();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Ids of tickets that may contain the term; the term must already be lower-cased
+    List<String> candidates(String term, boolean includeReplies) {
+        lock.readLock().lock();
+        try {
+            if (term.isEmpty()) {
+                List<String> all = new ArrayList<>(ordinals.size());
+                for (String ticketId : ticketIds) {
+                    if (ticketId != null) {
+                        all.add(ticketId);
+                    }
+                }
+                return all;
+            }
+            BitSet matches = match(term, ticketPostings);
+            if (includeReplies) {
+                matches.or(match(term, replyPostings));
+            }
+            List<String> result = new ArrayList<>(matches.cardinality());
+            for (int ordinal = matches.nextSetBit(0); ordinal >= 0; ordinal = matches.nextSetBit(ordinal + 1)) {
+                String ticketId = ticketIds.get(ordinal);
+                if (ticketId != null) {
+                    result.add(ticketId);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static Set<String> tokenize(String text) {
+        Set<String> grams = new HashSet<>();
+        if (text == null || text.isEmpty()) {
+            return grams;
+        }
+        String normalized = text.toLowerCase();
+        if (normalized.length() < GRAM_LENGTH) {
+            grams.add(normalized);
+            return grams;
+        }
+        for (int i = 0; i + GRAM_LENGTH <= normalized.length(); i++) {
+            grams.add(normalized.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    private BitSet match(String term, List<PostingList> postings) {
+        BitSet result = new BitSet();
+        if (term.length() < GRAM_LENGTH) {
+            // Short terms: union every gram that contains the term
+            for (int gram = 0; gram < postings.size(); gram++) {
+                PostingList list = postings.get(gram);
+                if (list != null && gramsById.get(gram).contains(term)) {
+                    list.addTo(result);
+                }
+            }
+            return result;
+        }
+
+        List<PostingList> lists = new ArrayList<>();
+        for (String gram : tokenize(term)) {
+            Integer id = gramIds.get(gram);
+            PostingList list = id != null && id < postings.size() ? postings.get(id) : null;
+            if (list == null || list.size == 0) {
+                return result;
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+
+        PostingList smallest = lists.get(0);
+        outer:
+        for (int i = 0; i < smallest.size; i++) {
+            int ordinal = smallest.ordinals[i];
+            for (int j = 1; j < lists.size(); j++) {
+                if (!lists.get(j).contains(ordinal)) {
+                    continue outer;
+                }
+            }
+            result.set(ordinal);
+        }
+        return result;
+    }
+
+    private int ordinalOf(String ticketId) {
+        Integer ordinal = ordinals.get(ticketId);
+        if (ordinal != null) {
+            return ordinal;
+        }
+        int next = ticketIds.size();
+        ordinals.put(ticketId, next);
+        ticketIds.add(ticketId);
+        ticketGramsByOrdinal.add(NO_GRAMS);
+        replyGramsByOrdinal.add(NO_GRAMS);
+        return next;
+    }
+
+    // Renumbers the remaining tickets in their order, so every posting list stays sorted as it is
+    // rewritten; needs the write lock
+    private void purgeRemoved() {
+        int[] renumbered = new int[ticketIds.size()];
+        int next = 0;
+        for (int ordinal = 0; ordinal < renumbered.length; ordinal++) {
+            String ticketId = ticketIds.get(ordinal);
+            if (ticketId == null) {
+                renumbered[ordinal] = -1;
+                continue;
+            }
+            renumbered[ordinal] = next;
+            ticketIds.set(next, ticketId);
+            ticketGramsByOrdinal.set(next, ticketGramsByOrdinal.get(ordinal));
+            replyGramsByOrdinal.set(next, replyGramsByOrdinal.get(ordinal));
+            ordinals.put(ticketId, next);
+            next++;
+        }
+        ticketIds.subList(next, renumbered.length).clear();
+        ticketGramsByOrdinal.subList(next, renumbered.length).clear();
+        replyGramsByOrdinal.subList(next, renumbered.length).clear();
+        renumber(ticketPostings, renumbered);
+        renumber(replyPostings, renumbered);
+        removed = 0;
+    }
+
+    private static void renumber(List<PostingList> postings, int[] renumbered) {
+        for (int gram = 0; gram < postings.size(); gram++) {
+            PostingList list = postings.get(gram);
+            if (list != null) {
+                list.renumber(renumbered);
+                if (list.size == 0) {
+                    postings.set(gram, null);
+                }
+            }
+        }
+    }
+
+    // Sorted gram ids, assigning ids to grams seen for the first time; needs the write lock
+    private int[] idsOf(Set<String> text) {
+        if (text.isEmpty()) {
+            return NO_GRAMS;
+        }
+        int[] ids = new int[text.size()];
+        int i = 0;
+        for (String gram : text) {
+            Integer id = gramIds.get(gram);
+            if (id == null) {
+                id = gramsById.size();
+                gramIds.put(gram, id);
+                gramsById.add(gram);
+            }
+            ids[i++] = id;
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    private static PostingList postingFor(List<PostingList> postings, int gram) {
+        while (postings.size() <= gram) {
+            postings.add(null);
+        }
+        PostingList list = postings.get(gram);
+        if (list == null) {
+            list = new PostingList();
+            postings.set(gram, list);
+        }
+        return list;
+    }
+
+    // Both gram arrays are sorted, so one merge pass finds the removed and the added grams
+    private static void replace(int ordinal, List<int[]> gramsByOrdinal,
+                                List<PostingList> postings, int[] next) {
+        int[] previous = gramsByOrdinal.get(ordinal);
+        int i = 0;
+        int j = 0;
+        while (i < previous.length || j < next.length) {
+            if (j == next.length || (i < previous.length && previous[i] < next[j])) {
+                PostingList list = postings.get(previous[i++]);
+                list.remove(ordinal);
+                if (list.size == 0) {
+                    postings.set(previous[i - 1], null);
+                }
+            } else if (i == previous.length || next[j] < previous[i]) {
+                postingFor(postings, next[j++]).add(ordinal);
+            } else {
+                i++;
+                j++;
+            }
+        }
+        gramsByOrdinal.set(ordinal, next);
+    }
+
+    // Sorted, growable array of ticket ordinals
+    private static final class PostingList {
+        private int[] ordinals = new int[4];
+        private int size;
+
+        void add(int ordinal) {
+            int index = Arrays.binarySearch(ordinals, 0, size, ordinal);
+            if (index >= 0) {
+                return;
+            }
+            int insertAt = -index - 1;
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+            }
+            System.arraycopy(ordinals, insertAt, ordinals, insertAt + 1, size - insertAt);
+            ordinals[insertAt] = ordinal;
+            size++;
+        }
+
+        void remove(int ordinal) {
+            int index = Arrays.binarySearch(ordinals, 0, size, ordinal);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(ordinals, index + 1, ordinals, index, size - index - 1);
+            size--;
+        }
+
+        // Maps every ordinal through renumbered, dropping those mapped to -1, and gives back the
+        // space of the dropped ones; the mapping keeps order
+        void renumber(int[] renumbered) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int ordinal = renumbered[ordinals[i]];
+                if (ordinal >= 0) {
+                    ordinals[kept++] = ordinal;
+                }
+            }
+            size = kept;
+            if (size < ordinals.length / 4) {
+                ordinals = Arrays.copyOf(ordinals, Math.max(4, size * 2));
+            }
+        }
+
+        boolean contains(int ordinal) {
+            return Arrays.binarySearch(ordinals, 0, size, ordinal) >= 0;
+        }
+
+        void addTo(BitSet bits) {
+            for (int i = 0; i < size; i++) {
+                bits.set(ordinals[i]);
+            }
+        }
+    }
+}
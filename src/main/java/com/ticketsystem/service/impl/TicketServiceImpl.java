@@ -1,256 +1,1329 @@
 package com.ticketsystem.service.impl;
 
+import com.ticketsystem.events.TicketChangeBus;
+import com.ticketsystem.model.BulkItem;
+import com.ticketsystem.model.BulkResult;
 import com.ticketsystem.model.Ticket;
+import com.ticketsystem.model.TicketChange;
+import com.ticketsystem.model.TicketPage;
+import com.ticketsystem.model.TicketPatch;
 import com.ticketsystem.model.Reply;
-import com.ticketsystem.model.User;
+import com.ticketsystem.model.ReplyTreePage;
+import com.ticketsystem.persistence.TicketArchive;
+import com.ticketsystem.persistence.TicketEvent;
+import com.ticketsystem.persistence.TicketEventLog;
+import com.ticketsystem.service.TicketQuery;
 import com.ticketsystem.service.TicketService;
+import com.ticketsystem.service.TicketVersionConflictException;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 @Service
 public class TicketServiceImpl implements TicketService {
-    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
-    private final Map<String, List<Reply>> replies = new ConcurrentHashMap<>();
-    private final Map<String, User> users = new ConcurrentHashMap<>();
+    private static final List<String> STANDARD_STATUSES = List.of("OPEN", "IN_PROGRESS", "RESOLVED", "CLOSED");
+    private static final int BULK_CHUNK_SIZE = 1000;
+    private static final int ARCHIVE_PAGE = 1024;
+    private static final Comparator<Ticket> BY_ID = Comparator.comparing(Ticket::getId);
+    private static final Comparator<Ticket> BY_CREATED_AT =
+            Comparator.comparingLong((Ticket ticket) -> ticket.createdAtMillis()).thenComparing(Ticket::getId);
+
+    // Tickets are partitioned by id hash; a write touches only its ticket's shard, and queries
+    // over the whole store run on all shards at once and merge the results
+    private final TicketShard[] shards;
+    private final TicketLocks locks = new TicketLocks();
+    private final long overdueWindowMillis;
+    private final TicketEventLog eventLog;
+    private final TicketChangeBus changes;
+    // Resolved tickets move here once archiveAfterMillis has passed since they were resolved
+    private final TicketArchive archive;
+    private final long archiveAfterMillis;
+    private final ArchiveCache archiveCache;
+    // Moves between the store and the archive hold the read side; a snapshot holds the write side
+    // only to wait out the moves in progress before it starts recording them in snapshotMoves
+    private final ReentrantReadWriteLock moves = new ReentrantReadWriteLock();
+    // Ids of the tickets moved while a snapshot is being written, null otherwise; snapshots are
+    // written one at a time
+    private volatile Set<String> snapshotMoves;
+    private final ReentrantLock snapshotting = new ReentrantLock();
+    private volatile boolean replaying;
+    // Set when the node joins a cluster
+    private volatile Predicate<String> ownsTicketId = ticketId -> true;
+    private volatile Consumer<TicketEvent> localMutations = event -> { };
+    // Set when an SLA scheduler tracks the tickets
+    private volatile BiConsumer<Ticket, Ticket> slaChanges = (previous, ticket) -> { };
+
+    public TicketServiceImpl() {
+        this(24, TicketEventLog.DISABLED);
+    }
+
+    public TicketServiceImpl(long overdueHours, TicketEventLog eventLog) {
+        this(overdueHours, eventLog, new TicketChangeBus(1024));
+    }
+
+    public TicketServiceImpl(long overdueHours, TicketEventLog eventLog, TicketChangeBus changes) {
+        this(overdueHours, eventLog, changes, 0);
+    }
+
+    public TicketServiceImpl(long overdueHours, TicketEventLog eventLog, TicketChangeBus changes, int shardCount) {
+        this(overdueHours, eventLog, changes, shardCount, TicketArchive.DISABLED, 0, 0);
+    }
+
+    // A shard count of 0 means one shard per available processor
+    @Autowired
+    public TicketServiceImpl(@Value("${ticket.sla.overdue-hours:24}") long overdueHours,
+                             TicketEventLog eventLog, TicketChangeBus changes,
+                             @Value("${ticket.store.shards:0}") int shardCount,
+                             TicketArchive archive,
+                             @Value("${ticket.archive.after-hours:720}") long archiveAfterHours,
+                             @Value("${ticket.archive.cache-size:10000}") int archiveCacheSize) {
+        this.overdueWindowMillis = TimeUnit.HOURS.toMillis(overdueHours);
+        this.eventLog = eventLog;
+        this.changes = changes;
+        this.archive = archive;
+        this.archiveAfterMillis = TimeUnit.HOURS.toMillis(archiveAfterHours);
+        this.archiveCache = new ArchiveCache(archiveCacheSize);
+        this.shards = new TicketShard[shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors()];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new TicketShard();
+        }
+    }
+
+    // Top bits of a multiplicative hash scaled to the shard count, so shard choice stays
+    // independent of the low hash bits TicketLocks stripes on
+    private int shardIndex(String ticketId) {
+        int hash = ticketId.hashCode() * 0x9E3779B9;
+        return (int) (((hash & 0xFFFFFFFFL) * shards.length) >>> 32);
+    }
+
+    private TicketShard shard(String ticketId) {
+        return shards[shardIndex(ticketId)];
+    }
+
+    private Ticket ticket(String ticketId) {
+        return shard(ticketId).tickets.get(ticketId);
+    }
 
     @Override
     public Ticket createTicket(String title, String description) {
+        Ticket ticket = newTicket(title, description, new Date());
+        applyCreate(ticket, false);
+        eventLog.sync();
+        return ticket;
+    }
+
+    private Ticket newTicket(String title, String description, Date now) {
         Ticket ticket = new Ticket();
-        ticket.setId(UUID.randomUUID().toString());
+        ticket.setId(newTicketId());
         ticket.setTitle(title != null ? title : "");
         ticket.setDescription(description != null ? description : "");
         ticket.setStatus("OPEN");
-        
-        Date now = new Date();
         ticket.setCreatedAt(now);
         ticket.setLastUpdatedAt(now);
-        
-        ticket.setReplies(new ArrayList<>());
+        ticket.setReplies(Collections.emptyList());
+        ticket.setVersion(1);
+        return ticket;
+    }
+
+    // Random (version 4) UUID from ThreadLocalRandom, avoiding the shared SecureRandom behind
+    // UUID.randomUUID(); ticket and reply ids identify records, they do not grant access
+    private static String newId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long mostSigBits = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long leastSigBits = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits).toString();
+    }
 
-        tickets.put(ticket.getId(), ticket);
-        replies.put(ticket.getId(), new ArrayList<>());
+    // In a cluster, new tickets get ids this node owns, so creating one never leaves the node
+    private String newTicketId() {
+        Predicate<String> owned = ownsTicketId;
+        String id;
+        do {
+            id = newId();
+        } while (!owned.test(id));
+        return id;
+    }
 
-        return ticket;
+    @Override
+    public Ticket getTicket(String id, boolean includeReplies) {
+        if (includeReplies) {
+            return getTicket(id);
+        }
+        ArchiveCache.Entry found = find(id);
+        return found != null ? found.ticket() : null;
     }
 
     @Override
     public Ticket getTicket(String id) {
-        Ticket ticket = tickets.get(id);
-        if (ticket != null) {
-            List<Reply> ticketReplies = replies.get(id);
-            if (ticketReplies != null) {
-                ticket.setReplies(ticketReplies);
-            }
+        ArchiveCache.Entry found = find(id);
+        if (found == null) {
+            return null;
         }
-        return ticket;
+        Ticket withReplies = new Ticket(found.ticket());
+        if (found.thread() != null) {
+            withReplies.setReplies(found.thread().all());
+        }
+        return withReplies;
     }
 
     @Override
     public Ticket updateTicket(Ticket ticket) {
-        if (!tickets.containsKey(ticket.getId())) {
-            throw new IllegalArgumentException("Ticket not found: " + ticket.getId());
-        }
-        
+        return updateTicket(ticket, ticket.getVersion());
+    }
+
+    @Override
+    public Ticket updateTicket(Ticket ticket, long expectedVersion) {
+        Ticket next = new Ticket(ticket);
         // Ensure required fields aren't null
-        if (ticket.getStatus() == null) {
-            ticket.setStatus("OPEN");
+        if (next.getStatus() == null) {
+            next.setStatus("OPEN");
         }
-        if (ticket.getCreatedAt() == null) {
-            ticket.setCreatedAt(new Date());
+        if (next.getCreatedAt() == null) {
+            next.setCreatedAt(new Date());
         }
-        
-        ticket.setLastUpdatedAt(new Date());
-        tickets.put(ticket.getId(), ticket);
-        return ticket;
+
+        next.setLastUpdatedAt(new Date());
+        Ticket updated = applyUpdate(next, expectedVersion, ANY_VERSION);
+        if (updated == null) {
+            throw new IllegalArgumentException("Ticket not found: " + ticket.getId());
+        }
+        eventLog.sync();
+        return updated;
+    }
+
+    @Override
+    public Ticket patchTicket(String ticketId, TicketPatch patch, long expectedVersion) {
+        Date now = new Date();
+        TicketShard shard = shard(ticketId);
+        Ticket updated = locks.withLock(ticketId, () -> {
+            Ticket current = current(shard, ticketId);
+            if (current == null) {
+                return null;
+            }
+            checkVersion(current, expectedVersion);
+
+            Ticket next = new Ticket(current);
+            if (patch.getTitle() != null) {
+                next.setTitle(patch.getTitle());
+            }
+            if (patch.getDescription() != null) {
+                next.setDescription(patch.getDescription());
+            }
+            if (patch.getAssignedTo() != null) {
+                next.setAssignedTo(patch.getAssignedTo().isEmpty() ? null : patch.getAssignedTo());
+            }
+            if (patch.getStatus() != null) {
+                next.setStatus(patch.getStatus());
+                boolean wasOpen = TicketIndexes.isOpen(current.getStatus());
+                boolean isOpen = TicketIndexes.isOpen(patch.getStatus());
+                if (wasOpen && !isOpen) {
+                    next.setResolvedAt(now);
+                } else if (!wasOpen && isOpen) {
+                    next.setResolvedAt(null);
+                }
+            }
+            next.setLastUpdatedAt(now);
+            next.setVersion(current.getVersion() + 1);
+
+            if (patch.getTitle() != null || patch.getDescription() != null) {
+                shard.searchIndex.indexTicket(ticketId, next.getTitle(), next.getDescription());
+            }
+            return replace(current, next, TicketEvent.updated(next), false);
+        });
+        if (updated == null) {
+            throw new IllegalArgumentException("Ticket not found: " + ticketId);
+        }
+        eventLog.sync();
+        return updated;
     }
 
     @Override
     public Ticket assignTicket(String ticketId, String userId) {
-        Ticket ticket = tickets.get(ticketId);
+        Ticket ticket = applyAssign(ticketId, userId, new Date(), ANY_VERSION, ANY_VERSION);
         if (ticket == null) {
             throw new IllegalArgumentException("Ticket not found: " + ticketId);
         }
-        ticket.setAssignedTo(userId);
-        ticket.setLastUpdatedAt(new Date());
-        tickets.put(ticketId, ticket);
+        eventLog.sync();
         return ticket;
     }
 
     @Override
     public Reply addReply(String ticketId, String content, String parentReplyId) {
-        List<Reply> ticketReplies = replies.get(ticketId);
-        if (ticketReplies == null) {
+        if (!exists(ticketId)) {
             throw new IllegalArgumentException("Ticket not found: " + ticketId);
         }
 
         Reply reply = new Reply();
-        reply.setId(UUID.randomUUID().toString());
+        reply.setId(newId());
         reply.setContent(content);
         reply.setParentId(parentReplyId);
         reply.setTimestamp(new Date());
-        reply.setChildren(new ArrayList<>());
-
-        ticketReplies.add(reply);
-
-        // Update ticket last updated timestamp
-        Ticket ticket = tickets.get(ticketId);
-        ticket.setLastUpdatedAt(new Date());
-        tickets.put(ticketId, ticket);
 
+        if (!applyAddReply(ticketId, reply, ANY_VERSION)) {
+            throw new IllegalArgumentException("Ticket not found: " + ticketId);
+        }
+        eventLog.sync();
         return reply;
     }
 
     @Override
     public Reply editReply(String ticketId, String replyId, String newContent) {
-        List<Reply> ticketReplies = replies.get(ticketId);
-        if (ticketReplies == null) {
+        if (!exists(ticketId)) {
             throw new IllegalArgumentException("Ticket not found: " + ticketId);
         }
 
-        for (Reply reply : ticketReplies) {
-            if (reply.getId().equals(replyId)) {
-                reply.setContent(newContent);
-                reply.setLastEditedAt(new Date());
-                return reply;
-            }
+        Reply reply = applyEditReply(ticketId, replyId, newContent, new Date(), false);
+        if (reply == null) {
+            throw new IllegalArgumentException("Reply not found: " + replyId);
         }
-        throw new IllegalArgumentException("Reply not found: " + replyId);
+        eventLog.sync();
+        return reply;
     }
 
     @Override
     public Ticket resolveTicket(String ticketId) {
-        Ticket ticket = tickets.get(ticketId);
+        Ticket ticket = applyResolve(ticketId, new Date(), ANY_VERSION);
         if (ticket == null) {
             throw new IllegalArgumentException("Ticket not found: " + ticketId);
         }
-        ticket.setStatus("RESOLVED");
-        ticket.setResolvedAt(new Date());
-        ticket.setLastUpdatedAt(new Date());
-        tickets.put(ticketId, ticket);
+        eventLog.sync();
         return ticket;
     }
 
+    @Override
+    public List<BulkResult<Ticket>> createTickets(List<BulkItem> items) {
+        List<BulkResult<Ticket>> results = new ArrayList<>(items.size());
+        for (int start = 0; start < items.size(); start += BULK_CHUNK_SIZE) {
+            List<BulkItem> chunk = items.subList(start, Math.min(items.size(), start + BULK_CHUNK_SIZE));
+            Date now = new Date();
+            List<Ticket> created = new ArrayList<>(chunk.size());
+            for (BulkItem item : chunk) {
+                created.add(newTicket(item.getTitle(), item.getDescription(), now));
+            }
+
+            // New tickets are not visible yet, so the whole chunk can be indexed up front,
+            // every shard's part in parallel
+            Map<TicketShard, List<Ticket>> byShard = new IdentityHashMap<>();
+            for (Ticket ticket : created) {
+                byShard.computeIfAbsent(shard(ticket.getId()), k -> new ArrayList<>()).add(ticket);
+            }
+            scatter(shard -> {
+                List<Ticket> shardTickets = byShard.get(shard);
+                if (shardTickets != null) {
+                    shard.searchIndex.indexTickets(shardTickets);
+                }
+                return null;
+            });
+            for (Ticket ticket : created) {
+                insertTicket(ticket, false);
+            }
+            eventLog.sync();
+
+            for (int i = 0; i < created.size(); i++) {
+                results.add(BulkResult.success(start + i, created.get(i)));
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public List<BulkResult<Ticket>> assignTickets(List<BulkItem> items) {
+        return inChunks(items, (index, item) -> {
+            if (item.getTicketId() == null || item.getUserId() == null) {
+                return BulkResult.failure(index, "ticketId and userId are required");
+            }
+            Ticket ticket;
+            try {
+                ticket = applyAssign(item.getTicketId(), item.getUserId(), new Date(), ANY_VERSION, item.getExpectedVersion());
+            } catch (TicketVersionConflictException e) {
+                return BulkResult.failure(index, e.getMessage());
+            }
+            return ticket != null ? BulkResult.success(index, ticket)
+                    : BulkResult.failure(index, "Ticket not found: " + item.getTicketId());
+        });
+    }
+
+    @Override
+    public List<BulkResult<Ticket>> resolveTickets(List<BulkItem> items) {
+        return inChunks(items, (index, item) -> {
+            if (item.getTicketId() == null) {
+                return BulkResult.failure(index, "ticketId is required");
+            }
+            Ticket ticket = applyResolve(item.getTicketId(), new Date(), ANY_VERSION);
+            return ticket != null ? BulkResult.success(index, ticket)
+                    : BulkResult.failure(index, "Ticket not found: " + item.getTicketId());
+        });
+    }
+
+    @Override
+    public List<BulkResult<Reply>> addReplies(List<BulkItem> items) {
+        return inChunks(items, (index, item) -> {
+            if (item.getTicketId() == null) {
+                return BulkResult.failure(index, "ticketId is required");
+            }
+            Reply reply = new Reply();
+            reply.setId(newId());
+            reply.setContent(item.getContent());
+            reply.setParentId(item.getParentReplyId());
+            reply.setTimestamp(new Date());
+            return applyAddReply(item.getTicketId(), reply, ANY_VERSION) ? BulkResult.success(index, reply)
+                    : BulkResult.failure(index, "Ticket not found: " + item.getTicketId());
+        });
+    }
+
+    // One durability wait per chunk instead of one per entry
+    private <T> List<BulkResult<T>> inChunks(List<BulkItem> items, BiFunction<Integer, BulkItem, BulkResult<T>> apply) {
+        List<BulkResult<T>> results = new ArrayList<>(items.size());
+        for (int start = 0; start < items.size(); start += BULK_CHUNK_SIZE) {
+            int end = Math.min(items.size(), start + BULK_CHUNK_SIZE);
+            for (int i = start; i < end; i++) {
+                results.add(apply.apply(i, items.get(i)));
+            }
+            eventLog.sync();
+        }
+        return results;
+    }
+
+    // Rebuilds the in-memory store from the latest snapshot and the events logged after it
+    @PostConstruct
+    public void recover() {
+        replaying = true;
+        try {
+            eventLog.replay(this::apply);
+        } finally {
+            replaying = false;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ticket.wal.snapshot-interval-ms:300000}",
+            initialDelayString = "${ticket.wal.snapshot-interval-ms:300000}")
+    public void snapshot() {
+        snapshotting.lock();
+        try {
+            writeSnapshot();
+        } finally {
+            snapshotting.unlock();
+        }
+    }
+
+    private void writeSnapshot() {
+        Set<String> moved = ConcurrentHashMap.newKeySet();
+        moves.writeLock().lock();
+        try {
+            snapshotMoves = moved;
+        } finally {
+            moves.writeLock().unlock();
+        }
+        try {
+            eventLog.snapshot(sink -> {
+                for (TicketShard shard : shards) {
+                    for (Ticket ticket : shard.tickets.values()) {
+                        writeStored(shard, ticket, sink);
+                    }
+                }
+                // Archived tickets are written the way they were archived
+                String cursor = null;
+                do {
+                    cursor = archive.read(cursor, ARCHIVE_PAGE, record -> record.forEach(sink));
+                } while (cursor != null);
+                // A ticket that moved to the side already written can have been missed by both
+                // scans; it is written again as it is now. Replay takes the later record.
+                for (String ticketId : moved) {
+                    TicketShard shard = shard(ticketId);
+                    locks.withLock(ticketId, () -> {
+                        Ticket ticket = shard.tickets.get(ticketId);
+                        if (ticket != null) {
+                            writeStored(shard, ticket, sink);
+                        } else {
+                            List<TicketEvent> record = archive.get(ticketId);
+                            if (record != null) {
+                                record.forEach(sink);
+                            }
+                        }
+                        return null;
+                    });
+                }
+            });
+        } finally {
+            snapshotMoves = null;
+        }
+    }
+
+    private static void writeStored(TicketShard shard, Ticket ticket, Consumer<TicketEvent> sink) {
+        sink.accept(TicketEvent.created(ticket));
+        ReplyThread thread = shard.replies.get(ticket.getId());
+        if (thread != null) {
+            for (Reply reply : thread.all()) {
+                sink.accept(TicketEvent.replyRestored(ticket.getId(), reply));
+            }
+        }
+    }
+
+    // Called under the moves read lock, by which a snapshot that has started is recording moves
+    private void recordMove(String ticketId) {
+        Set<String> moved = snapshotMoves;
+        if (moved != null) {
+            moved.add(ticketId);
+        }
+    }
+
+    // Joins a cluster: new tickets get ids for which ownsTicketId holds, and every mutation made
+    // through this service is handed to localMutations under the ticket's lock, in the order the
+    // mutations were made. Mutations replayed from the log or applied from another node are not.
+    public void joinCluster(Predicate<String> ownsTicketId, Consumer<TicketEvent> localMutations) {
+        this.ownsTicketId = ownsTicketId;
+        this.localMutations = localMutations;
+    }
+
+    // Hands every ticket change to slaChanges, as (ticket before or null when created, ticket
+    // after), under the ticket's lock; then every ticket already in the store, as created
+    public void trackSla(BiConsumer<Ticket, Ticket> slaChanges) {
+        this.slaChanges = slaChanges;
+        for (TicketShard shard : shards) {
+            for (String ticketId : shard.tickets.keySet()) {
+                locks.withLock(ticketId, () -> {
+                    Ticket ticket = shard.tickets.get(ticketId);
+                    if (ticket != null) {
+                        slaChanges.accept(null, ticket);
+                    }
+                    return null;
+                });
+            }
+        }
+    }
+
+    // Whether this node writes the ticket; always true outside a cluster
+    public boolean ownsTicket(String ticketId) {
+        return ownsTicketId.test(ticketId);
+    }
+
+    // Marks the tickets for which due still holds as escalated now, with one sync for all of
+    // them, and returns how many were marked
+    public int escalateTickets(Collection<String> ticketIds, Predicate<Ticket> due) {
+        Date now = new Date();
+        int escalated = 0;
+        for (String ticketId : ticketIds) {
+            if (applyEscalate(ticketId, now, ANY_VERSION, due) != null) {
+                escalated++;
+            }
+        }
+        if (escalated > 0) {
+            eventLog.sync();
+        }
+        return escalated;
+    }
+
+    // Mutations another node made to the tickets it owns, in the order it made them. They are
+    // journaled and published like local ones; events this store already has are skipped.
+    public void applyReplicated(List<TicketEvent> events) {
+        for (TicketEvent event : events) {
+            apply(event);
+        }
+        eventLog.sync();
+    }
+
+    // Moves the tickets resolved or closed more than archiveAfterMillis ago, with their replies,
+    // from the shards into the archive. They leave the lists, department and search results but
+    // are still counted, read by id and written to; a write brings the ticket back into the store.
+    @Scheduled(fixedDelayString = "${ticket.archive.interval-ms:60000}",
+            initialDelayString = "${ticket.archive.interval-ms:60000}")
+    public int archiveResolved() {
+        if (archive == TicketArchive.DISABLED) {
+            return 0;
+        }
+        long resolvedBefore = System.currentTimeMillis() - archiveAfterMillis;
+        int archived = 0;
+        for (TicketShard shard : shards) {
+            for (String status : List.of("RESOLVED", "CLOSED")) {
+                for (String ticketId : shard.indexes.withStatus(status)) {
+                    if (archiveTicket(shard, ticketId, resolvedBefore)) {
+                        archived++;
+                    }
+                }
+            }
+        }
+        return archived;
+    }
+
+    // Archived tickets as their creation and reply records, a page at a time, for nodes copying
+    // this one; see TicketArchive.read
+    public String archivedTickets(String cursor, int limit, Consumer<List<TicketEvent>> records) {
+        return archive.read(cursor, limit, records);
+    }
+
+    public int archivedTicketCount() {
+        return archive.size();
+    }
+
+    private boolean archiveTicket(TicketShard shard, String ticketId, long resolvedBefore) {
+        return locks.withLock(ticketId, () -> {
+            Ticket ticket = shard.tickets.get(ticketId);
+            if (ticket == null || TicketIndexes.isOpen(ticket.getStatus()) || resolvedAt(ticket) >= resolvedBefore) {
+                return false;
+            }
+            moves.readLock().lock();
+            try {
+                ReplyThread thread = shard.replies.get(ticketId);
+                List<Reply> ticketReplies = thread != null ? thread.all() : List.of();
+                List<TicketEvent> record = new ArrayList<>(1 + ticketReplies.size());
+                record.add(TicketEvent.created(ticket));
+                for (Reply reply : ticketReplies) {
+                    record.add(TicketEvent.replyRestored(ticketId, reply));
+                }
+                if (!archive.put(ticketId, record)) {
+                    return false;
+                }
+                // Readers that miss the ticket here find it in the archive
+                shard.archivedStatusCounts.computeIfAbsent(ticket.getStatus(), k -> new LongAdder()).increment();
+                recordMove(ticketId);
+                shard.tickets.remove(ticketId);
+                shard.replies.remove(ticketId);
+                shard.indexes.remove(ticket);
+                shard.searchIndex.removeTicket(ticketId);
+                archiveCache.invalidate(ticketId);
+                invalidateListings(shard, ticket);
+                return true;
+            } finally {
+                moves.readLock().unlock();
+            }
+        });
+    }
+
+    // Tickets closed without a resolution time count from their last update
+    private static long resolvedAt(Ticket ticket) {
+        return ticket.resolvedAtMillis() != Ticket.NO_TIME ? ticket.resolvedAtMillis() : ticket.lastUpdatedAtMillis();
+    }
+
+    // The ticket in the store, brought back from the archive first if it is archived. Every
+    // mutation reads its ticket through here, under the ticket's lock.
+    private Ticket current(TicketShard shard, String ticketId) {
+        Ticket ticket = shard.tickets.get(ticketId);
+        if (ticket != null || !archive.contains(ticketId)) {
+            return ticket;
+        }
+        moves.readLock().lock();
+        try {
+            List<TicketEvent> record = archive.get(ticketId);
+            if (record == null) {
+                return null;
+            }
+            ArchiveCache.Entry restored = rebuild(record);
+            ticket = restored.ticket();
+            shard.searchIndex.indexTicket(ticketId, ticket.getTitle(), ticket.getDescription());
+            shard.searchIndex.reindexReplies(ticketId, replyContents(restored.thread().all()));
+            shard.indexes.add(ticket);
+            shard.replies.put(ticketId, restored.thread());
+            shard.tickets.put(ticketId, ticket);
+            archive.remove(ticketId);
+            recordMove(ticketId);
+            shard.archivedStatusCounts.get(ticket.getStatus()).decrement();
+            archiveCache.invalidate(ticketId);
+            invalidateListings(shard, ticket);
+            return ticket;
+        } finally {
+            moves.readLock().unlock();
+        }
+    }
+
+    private boolean exists(String ticketId) {
+        return shard(ticketId).tickets.containsKey(ticketId) || archive.contains(ticketId);
+    }
+
+    // The ticket with its reply thread, from the store or else from the archive through the cache
+    private ArchiveCache.Entry find(String ticketId) {
+        TicketShard shard = shard(ticketId);
+        Ticket ticket = shard.tickets.get(ticketId);
+        if (ticket == null) {
+            ArchiveCache.Entry archived = archived(ticketId);
+            if (archived != null) {
+                return archived;
+            }
+            // It may have been brought back between the two reads
+            ticket = shard.tickets.get(ticketId);
+            if (ticket == null) {
+                return null;
+            }
+        }
+        return new ArchiveCache.Entry(ticket, shard.replies.get(ticketId));
+    }
+
+    private ArchiveCache.Entry archived(String ticketId) {
+        ArchiveCache.Entry cached = archiveCache.get(ticketId);
+        if (cached != null) {
+            return cached;
+        }
+        List<TicketEvent> record = archive.get(ticketId);
+        if (record == null) {
+            return null;
+        }
+        ArchiveCache.Entry entry = rebuild(record);
+        archiveCache.put(ticketId, entry);
+        return entry;
+    }
+
+    private static ArchiveCache.Entry rebuild(List<TicketEvent> record) {
+        ReplyThread thread = new ReplyThread();
+        for (int i = 1; i < record.size(); i++) {
+            thread.add(record.get(i).getReply());
+        }
+        return new ArchiveCache.Entry(record.get(0).getTicket(), thread);
+    }
+
+    // The cached listings a ticket leaves or rejoins when it moves between the store and the
+    // archive; its status counts move with it, so statistics stay as they are
+    private static void invalidateListings(TicketShard shard, Ticket ticket) {
+        if (ticket.getAssignedTo() != null) {
+            shard.queryVersions.changed(TicketQuery.DEPARTMENTS);
+        }
+        if (TicketIndexes.isUnassigned(ticket.getAssignedTo())) {
+            shard.queryVersions.changed(TicketQuery.UNASSIGNED);
+        }
+    }
+
+    private void apply(TicketEvent event) {
+        switch (event.getType()) {
+            case CREATE_TICKET -> applyCreate(event.getTicket(), true);
+            case UPDATE_TICKET -> applyUpdate(event.getTicket(), ANY_VERSION, event.getVersion());
+            case ASSIGN_TICKET -> applyAssign(event.getTicketId(), event.getUserId(), event.getAt(), event.getVersion(), ANY_VERSION);
+            case RESOLVE_TICKET -> applyResolve(event.getTicketId(), event.getAt(), event.getVersion());
+            case ESCALATE_TICKET -> applyEscalate(event.getTicketId(), event.getAt(), event.getVersion(), ticket -> true);
+            case ADD_REPLY -> applyAddReply(event.getTicketId(), event.getReply(), event.getVersion());
+            case RESTORE_REPLY -> restoreReply(event.getTicketId(), event.getReply());
+            case EDIT_REPLY -> applyEditReply(event.getTicketId(), event.getReply().getId(),
+                    event.getReply().getContent(), event.getAt(), true);
+        }
+    }
+
+    // Called under the ticket's lock so the log order matches the order of mutations. recorded
+    // mutations come from the log or from another node; only the others go to localMutations.
+    private void journal(TicketEvent event, boolean recorded) {
+        if (!replaying) {
+            eventLog.append(event);
+        }
+        if (!recorded) {
+            localMutations.accept(event);
+        }
+    }
+
+    private void applyCreate(Ticket ticket, boolean recorded) {
+        TicketShard shard = shard(ticket.getId());
+        if (recorded && (shard.tickets.containsKey(ticket.getId()) || archive.contains(ticket.getId()))) {
+            // A snapshot record for a ticket this store already has, possibly at a later version
+            applyUpdate(ticket, ANY_VERSION, ticket.getVersion());
+            return;
+        }
+        shard.searchIndex.indexTicket(ticket.getId(), ticket.getTitle(), ticket.getDescription());
+        insertTicket(ticket, recorded);
+    }
+
+    // Callers index the ticket's text first; it only becomes searchable once it is in the map
+    private void insertTicket(Ticket ticket, boolean recorded) {
+        TicketShard shard = shard(ticket.getId());
+        shard.replies.put(ticket.getId(), new ReplyThread());
+        locks.withLock(ticket.getId(), () -> {
+            shard.indexes.add(ticket);
+            journal(TicketEvent.created(ticket), recorded);
+            shard.tickets.put(ticket.getId(), ticket);
+            invalidateQueries(shard, null, ticket);
+            publish(TicketChange.Type.TICKET_CREATED, null, ticket, null);
+            slaChanges.accept(null, ticket);
+            return null;
+        });
+    }
+
+    // The apply methods below take the version a recorded event produced; live calls pass
+    // ANY_VERSION and the ticket moves to its next version
+
+    private Ticket applyUpdate(Ticket next, long expectedVersion, long version) {
+        TicketShard shard = shard(next.getId());
+        return locks.withLock(next.getId(), () -> {
+            Ticket current = current(shard, next.getId());
+            if (current == null) {
+                return null;
+            }
+            if (alreadyApplied(current, version)) {
+                return current;
+            }
+            checkVersion(current, expectedVersion);
+            next.setVersion(nextVersion(current, version));
+            next.setReplies(current.getReplies());
+            if (version == ANY_VERSION) {
+                // Escalation is not the caller's to change
+                next.escalatedAtMillis(current.escalatedAtMillis());
+            }
+            shard.searchIndex.indexTicket(next.getId(), next.getTitle(), next.getDescription());
+            return replace(current, next, TicketEvent.updated(next), version != ANY_VERSION);
+        });
+    }
+
+    private Ticket applyAssign(String ticketId, String userId, Date at, long version, long expectedVersion) {
+        TicketShard shard = shard(ticketId);
+        return locks.withLock(ticketId, () -> {
+            Ticket current = current(shard, ticketId);
+            if (current == null || alreadyApplied(current, version)) {
+                return current;
+            }
+            checkVersion(current, expectedVersion);
+            Ticket next = new Ticket(current);
+            next.setAssignedTo(userId);
+            next.setLastUpdatedAt(at);
+            next.setVersion(nextVersion(current, version));
+            return replace(current, next, TicketEvent.assigned(ticketId, userId, at, next.getVersion()), version != ANY_VERSION);
+        });
+    }
+
+    private Ticket applyResolve(String ticketId, Date at, long version) {
+        TicketShard shard = shard(ticketId);
+        return locks.withLock(ticketId, () -> {
+            Ticket current = current(shard, ticketId);
+            if (current == null || alreadyApplied(current, version)) {
+                return current;
+            }
+            Ticket next = new Ticket(current);
+            next.setStatus("RESOLVED");
+            next.setResolvedAt(at);
+            next.setLastUpdatedAt(at);
+            next.setVersion(nextVersion(current, version));
+            return replace(current, next, TicketEvent.resolved(ticketId, at, next.getVersion()), version != ANY_VERSION);
+        });
+    }
+
+    // Marks the ticket escalated at the given time if due still holds for it under its lock
+    private Ticket applyEscalate(String ticketId, Date at, long version, Predicate<Ticket> due) {
+        TicketShard shard = shard(ticketId);
+        return locks.withLock(ticketId, () -> {
+            Ticket current = current(shard, ticketId);
+            if (current == null || alreadyApplied(current, version) || !due.test(current)) {
+                return null;
+            }
+            Ticket next = new Ticket(current);
+            next.setEscalatedAt(at);
+            next.setVersion(nextVersion(current, version));
+            return replace(current, next, TicketEvent.escalated(ticketId, at, next.getVersion()), version != ANY_VERSION);
+        });
+    }
+
+    private boolean applyAddReply(String ticketId, Reply reply, long version) {
+        TicketShard shard = shard(ticketId);
+        return locks.withLock(ticketId, () -> {
+            Ticket current = current(shard, ticketId);
+            ReplyThread thread = shard.replies.get(ticketId);
+            if (current == null || thread == null) {
+                return false;
+            }
+            if (version == ANY_VERSION || !thread.contains(reply.getId())) {
+                thread.add(reply);
+                shard.searchIndex.addReply(ticketId, reply.getContent());
+            }
+            if (!alreadyApplied(current, version)) {
+                // Update ticket last updated timestamp
+                Ticket next = new Ticket(current);
+                next.setLastUpdatedAt(reply.getTimestamp());
+                next.setVersion(nextVersion(current, version));
+                replace(current, next, TicketEvent.replyAdded(ticketId, reply, next.getVersion()), version != ANY_VERSION);
+            }
+            return true;
+        });
+    }
+
+    // Publishes next in place of current; the caller holds the ticket's lock
+    private Ticket replace(Ticket current, Ticket next, TicketEvent event, boolean recorded) {
+        TicketShard shard = shard(next.getId());
+        shard.indexes.update(next.getId(), TicketIndexes.Snapshot.of(current), next);
+        journal(event, recorded);
+        shard.tickets.put(next.getId(), next);
+        invalidateQueries(shard, current, next);
+        switch (event.getType()) {
+            case UPDATE_TICKET -> publish(TicketChange.Type.TICKET_UPDATED, current, next, null);
+            case ASSIGN_TICKET -> publish(TicketChange.Type.TICKET_ASSIGNED, current, next, null);
+            case RESOLVE_TICKET -> publish(TicketChange.Type.TICKET_RESOLVED, current, next, null);
+            case ESCALATE_TICKET -> publish(TicketChange.Type.TICKET_ESCALATED, current, next, null);
+            case ADD_REPLY -> publish(TicketChange.Type.REPLY_ADDED, current, next, event.getReply());
+            default -> throw new IllegalStateException("Not a ticket change: " + event.getType());
+        }
+        slaChanges.accept(current, next);
+        return next;
+    }
+
+    // Called under the ticket's lock, like journal; replayed history is not news to anyone
+    private void publish(TicketChange.Type type, Ticket previous, Ticket ticket, Reply reply) {
+        if (!replaying) {
+            changes.publish(TicketChange.of(type, previous, ticket, reply != null ? new Reply(reply) : null));
+        }
+    }
+
+    // Bumps the cached queries whose result contains the ticket before or after the change
+    private void invalidateQueries(TicketShard shard, Ticket previous, Ticket next) {
+        QueryVersions queryVersions = shard.queryVersions;
+        if (previous == null || !Objects.equals(previous.getStatus(), next.getStatus())) {
+            queryVersions.changed(TicketQuery.STATISTICS);
+        }
+        if ((previous != null && previous.getAssignedTo() != null) || next.getAssignedTo() != null) {
+            queryVersions.changed(TicketQuery.DEPARTMENTS);
+        }
+        if ((previous != null && TicketIndexes.isUnassigned(previous.getAssignedTo()))
+                || TicketIndexes.isUnassigned(next.getAssignedTo())) {
+            queryVersions.changed(TicketQuery.UNASSIGNED);
+        }
+
+        long threshold = System.currentTimeMillis() - overdueWindowMillis;
+        if ((previous != null && isOverdue(previous, threshold)) || isOverdue(next, threshold)) {
+            queryVersions.changed(TicketQuery.OVERDUE);
+        }
+        if (TicketIndexes.isOpen(next.getStatus()) && next.createdAtMillis() >= threshold) {
+            queryVersions.overdueFrom(overdueFrom(next.createdAtMillis()));
+        }
+    }
+
+    private static boolean isOverdue(Ticket ticket, long threshold) {
+        return ticket.createdAtMillis() != Ticket.NO_TIME
+                && TicketIndexes.isOpen(ticket.getStatus())
+                && ticket.createdAtMillis() < threshold;
+    }
+
+    // First instant at which a ticket created at createdAt is reported overdue
+    private long overdueFrom(long createdAt) {
+        return createdAt + overdueWindowMillis + 1;
+    }
+
+    private static void checkVersion(Ticket current, long expectedVersion) {
+        if (expectedVersion != ANY_VERSION && expectedVersion != current.getVersion()) {
+            throw new TicketVersionConflictException(current.getId(), expectedVersion, current.getVersion());
+        }
+    }
+
+    private static long nextVersion(Ticket current, long version) {
+        return version != ANY_VERSION ? version : current.getVersion() + 1;
+    }
+
+    // A recorded change the stored ticket already includes: the snapshot it was recovered or
+    // resynced from was taken after the change
+    private static boolean alreadyApplied(Ticket current, long version) {
+        return version != ANY_VERSION && version <= current.getVersion();
+    }
+
+    private void restoreReply(String ticketId, Reply reply) {
+        TicketShard shard = shard(ticketId);
+        locks.withLock(ticketId, () -> {
+            ReplyThread thread = current(shard, ticketId) != null ? shard.replies.get(ticketId) : null;
+            if (thread == null) {
+                return null;
+            }
+            Reply current = thread.get(reply.getId());
+            if (current == null) {
+                thread.add(reply);
+                shard.searchIndex.addReply(ticketId, reply.getContent());
+                journal(TicketEvent.replyRestored(ticketId, reply), true);
+            } else if (!Objects.equals(current.getContent(), reply.getContent())) {
+                // Resyncing a reply that was edited since this node last saw it
+                applyEditReply(ticketId, reply.getId(), reply.getContent(), reply.getLastEditedAt(), true);
+            }
+            return null;
+        });
+    }
+
+    private Reply applyEditReply(String ticketId, String replyId, String content, Date at, boolean recorded) {
+        TicketShard shard = shard(ticketId);
+        return locks.withLock(ticketId, () -> {
+            Ticket ticket = current(shard, ticketId);
+            ReplyThread thread = ticket != null ? shard.replies.get(ticketId) : null;
+            Reply stored = thread != null ? thread.get(replyId) : null;
+            if (stored == null) {
+                return null;
+            }
+            // Readers may hold the stored reply, so the edit is a copy put in its place
+            Reply reply = new Reply(stored);
+            reply.setContent(content);
+            reply.setLastEditedAt(at);
+            thread.replace(reply);
+            shard.searchIndex.reindexReplies(ticketId, replyContents(thread.all()));
+            journal(TicketEvent.replyEdited(ticketId, replyId, content, at), recorded);
+            publish(TicketChange.Type.REPLY_EDITED, ticket, ticket, reply);
+            return reply;
+        });
+    }
+
     @Override
     public List<Ticket> getAllTickets() {
-        return new ArrayList<>(tickets.values());
+        List<Ticket> result = new ArrayList<>();
+        for (TicketShard shard : shards) {
+            result.addAll(shard.tickets.values());
+        }
+        return result;
+    }
+
+    @Override
+    public TicketPage getAllTickets(String cursor, int limit) {
+        TicketIndexes.TimeKey from = cursor != null ? parseTimeCursor(cursor) : null;
+        List<Ticket> items = new ArrayList<>(Math.max(0, Math.min(limit, 1024)));
+        TicketIndexes.TimeKey last = null;
+        String next = null;
+        for (TicketIndexes.TimeKey key : merged(shard -> shard.indexes.createdAfter(from), Comparator.naturalOrder())) {
+            if (items.size() >= limit) {
+                next = last != null ? last.createdAt() + ":" + last.id() : null;
+                break;
+            }
+            Ticket ticket = ticket(key.id());
+            if (ticket != null) {
+                items.add(ticket);
+                last = key;
+            }
+        }
+        return new TicketPage(items, next);
     }
 
     @Override
     public List<Ticket> getTicketsByStatus(String status) {
-        return tickets.values().stream()
-                .filter(ticket -> status.equals(ticket.getStatus()))
-                .collect(Collectors.toList());
+        return mergeAll(scatter(shard -> shard.lookup(shard.indexes.withStatus(status),
+                ticket -> status.equals(ticket.getStatus()))), BY_ID);
+    }
+
+    @Override
+    public TicketPage getTicketsByStatus(String status, String cursor, int limit) {
+        return page(shard -> shard.indexes.withStatus(status), cursor, limit, ticket -> status.equals(ticket.getStatus()));
     }
 
     @Override
     public List<Ticket> getTicketsByAssignee(String userId) {
-        return tickets.values().stream()
-                .filter(ticket -> userId.equals(ticket.getAssignedTo()))
-                .collect(Collectors.toList());
+        return mergeAll(scatter(shard -> shard.lookup(shard.indexes.assignedTo(userId),
+                ticket -> userId.equals(ticket.getAssignedTo()))), BY_ID);
+    }
+
+    @Override
+    public TicketPage getTicketsByAssignee(String userId, String cursor, int limit) {
+        return page(shard -> shard.indexes.assignedTo(userId), cursor, limit, ticket -> userId.equals(ticket.getAssignedTo()));
     }
 
     @Override
     public Map<String, List<Ticket>> getTicketsByDepartment() {
-        return tickets.values().stream()
-                .filter(ticket -> ticket.getAssignedTo() != null)
-                .collect(Collectors.groupingBy(
-                        ticket -> ticket.getAssignedTo().split("\\.")[0],
-                        Collectors.toList()
-                ));
+        Map<String, List<List<Ticket>>> perShard = new HashMap<>();
+        for (Map<String, List<Ticket>> departments : scatter(this::ticketsByDepartment)) {
+            departments.forEach((department, departmentTickets) ->
+                    perShard.computeIfAbsent(department, k -> new ArrayList<>()).add(departmentTickets));
+        }
+        Map<String, List<Ticket>> result = new HashMap<>();
+        perShard.forEach((department, lists) -> result.put(department, mergeAll(lists, BY_ID)));
+        return result;
+    }
+
+    private Map<String, List<Ticket>> ticketsByDepartment(TicketShard shard) {
+        Map<String, List<Ticket>> result = new HashMap<>();
+        shard.indexes.byDepartment().forEach((department, ids) -> {
+            List<Ticket> departmentTickets = shard.lookup(ids, ticket -> inDepartment(ticket, department));
+            if (!departmentTickets.isEmpty()) {
+                result.put(department, departmentTickets);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public TicketPage getTicketsByDepartment(String department, String cursor, int limit) {
+        return page(shard -> shard.indexes.inDepartment(department), cursor, limit, ticket -> inDepartment(ticket, department));
+    }
+
+    private static boolean inDepartment(Ticket ticket, String department) {
+        return ticket.getAssignedTo() != null && department.equals(TicketIndexes.departmentOf(ticket.getAssignedTo()));
     }
 
     @Override
     public List<Ticket> searchTickets(String searchTerm) {
-        String term = searchTerm.toLowerCase();
-        return tickets.values().stream()
-                .filter(ticket ->
-                        (ticket.getTitle() != null && ticket.getTitle().toLowerCase().contains(term)) ||
-                        (ticket.getDescription() != null && ticket.getDescription().toLowerCase().contains(term)))
-                .collect(Collectors.toList());
+        return searchTickets(searchTerm, false, 0, Integer.MAX_VALUE);
     }
 
     @Override
-    public List<Reply> getTicketRepliesTree(String ticketId) {
-        List<Reply> allReplies = replies.get(ticketId);
-        if (allReplies == null) {
-            throw new IllegalArgumentException("Ticket not found: " + ticketId);
+    public List<Ticket> searchTickets(String searchTerm, boolean includeReplies, int offset, int limit) {
+        String term = searchTerm.toLowerCase();
+        int from = Math.max(offset, 0);
+        // No shard can place more than its first offset + limit hits on the page
+        int wanted = (int) Math.min((long) from + Math.max(limit, 0), Integer.MAX_VALUE);
+        List<List<SearchHit>> perShard = scatter(shard -> search(shard, term, includeReplies, wanted));
+
+        List<Iterator<SearchHit>> sources = new ArrayList<>(perShard.size());
+        for (List<SearchHit> hits : perShard) {
+            sources.add(hits.iterator());
+        }
+        Iterator<SearchHit> hits = new MergingIterator<>(sources, SEARCH_ORDER);
+        for (int skipped = 0; skipped < from && hits.hasNext(); skipped++) {
+            hits.next();
+        }
+        List<Ticket> page = new ArrayList<>(Math.max(0, Math.min(limit, 1024)));
+        while (page.size() < limit && hits.hasNext()) {
+            page.add(hits.next().ticket());
+        }
+        return page;
+    }
+
+    // The shard's best hits, best first
+    private List<SearchHit> search(TicketShard shard, String term, boolean includeReplies, int wanted) {
+        List<SearchHit> hits = new ArrayList<>();
+        for (String id : shard.searchIndex.candidates(term, includeReplies)) {
+            Ticket ticket = shard.tickets.get(id);
+            if (ticket == null) {
+                continue;
+            }
+            // Title matches rank above description and reply matches
+            int score = 3 * occurrences(ticket.getTitle(), term) + occurrences(ticket.getDescription(), term);
+            if (includeReplies) {
+                ReplyThread thread = shard.replies.get(id);
+                for (String content : replyContents(thread != null ? thread.all() : Collections.emptyList())) {
+                    score += occurrences(content, term);
+                }
+            }
+            if (score > 0) {
+                hits.add(new SearchHit(ticket, score));
+            }
         }
+        hits.sort(SEARCH_ORDER);
+        return hits.size() > wanted ? hits.subList(0, wanted) : hits;
+    }
+
+    private record SearchHit(Ticket ticket, int score) {
+    }
+
+    // Highest score first, then newest; the id breaks ties so the order does not depend on the shard count
+    private static final Comparator<SearchHit> SEARCH_ORDER = Comparator.comparingInt(SearchHit::score).reversed()
+            .thenComparing(Comparator.comparingLong((SearchHit hit) -> hit.ticket().createdAtMillis()).reversed())
+            .thenComparing(hit -> hit.ticket().getId());
 
-        Map<String, List<Reply>> replyChildren = new HashMap<>();
-        List<Reply> rootReplies = new ArrayList<>();
+    private static int occurrences(String text, String term) {
+        if (text == null) {
+            return 0;
+        }
+        String normalized = text.toLowerCase();
+        if (term.isEmpty()) {
+            return 1;
+        }
+        int count = 0;
+        for (int index = normalized.indexOf(term); index >= 0; index = normalized.indexOf(term, index + term.length())) {
+            count++;
+        }
+        return count;
+    }
 
-        for (Reply reply : allReplies) {
-            if (reply.getParentId() == null) {
-                rootReplies.add(reply);
-            } else {
-                replyChildren.computeIfAbsent(reply.getParentId(), k -> new ArrayList<>())
-                        .add(reply);
+    private static List<String> replyContents(List<Reply> ticketReplies) {
+        List<String> contents = new ArrayList<>(ticketReplies.size());
+        for (Reply reply : ticketReplies) {
+            if (reply.getContent() != null) {
+                contents.add(reply.getContent());
             }
         }
+        return contents;
+    }
 
-        return buildReplyTree(rootReplies, replyChildren);
+    @Override
+    public List<Reply> getTicketRepliesTree(String ticketId) {
+        ArchiveCache.Entry found = find(ticketId);
+        ReplyThread thread = found != null ? found.thread() : null;
+        if (thread == null) {
+            throw new IllegalArgumentException("Ticket not found: " + ticketId);
+        }
+        return thread.roots();
     }
 
-    private List<Reply> buildReplyTree(List<Reply> replies, Map<String, List<Reply>> children) {
-        for (Reply reply : replies) {
-            List<Reply> childReplies = children.get(reply.getId());
-            if (childReplies != null) {
-                childReplies.sort(Comparator.comparing(Reply::getTimestamp));
-                reply.setChildren(buildReplyTree(childReplies, children));
+    @Override
+    public ReplyTreePage getTicketRepliesTree(String ticketId, String parentReplyId, String cursor, int depth, int limit) {
+        ArchiveCache.Entry found = find(ticketId);
+        ReplyThread thread = found != null ? found.thread() : null;
+        if (thread == null) {
+            throw new IllegalArgumentException("Ticket not found: " + ticketId);
+        }
+        List<Reply> siblings = thread.roots();
+        if (parentReplyId != null) {
+            Reply parent = thread.get(parentReplyId);
+            if (parent == null) {
+                throw new IllegalArgumentException("Reply not found: " + parentReplyId);
             }
+            siblings = parent.getChildren() != null ? parent.getChildren() : List.of();
         }
-        replies.sort(Comparator.comparing(Reply::getTimestamp));
-        return replies;
+        return ReplyTreePager.page(siblings, cursor, depth, limit);
     }
 
+    // Sums the shards' counters directly; a handful of counters per shard is cheaper to read
+    // than to hand out to other threads. Archived tickets count in their status.
     @Override
     public Map<String, Integer> getTicketStatistics() {
-        Map<String, Integer> stats = tickets.values().stream()
-            .filter(ticket -> ticket.getStatus() != null)
-            .collect(Collectors.groupingBy(
-                Ticket::getStatus,
-                Collectors.collectingAndThen(Collectors.counting(), Long::intValue)
-            ));
-        
+        Map<String, Long> counts = new HashMap<>();
+        for (TicketShard shard : shards) {
+            for (String status : shard.indexes.countedStatuses()) {
+                counts.merge(status, shard.indexes.countWithStatus(status), Long::sum);
+            }
+            shard.archivedStatusCounts.forEach((status, count) -> counts.merge(status, count.sum(), Long::sum));
+        }
+        Map<String, Integer> stats = new HashMap<>(2 * (counts.size() + STANDARD_STATUSES.size()));
+        counts.forEach((status, count) -> {
+            if (count > 0) {
+                stats.put(status, count.intValue());
+            }
+        });
+
         // Ensure all standard statuses are present
-        Arrays.asList("OPEN", "IN_PROGRESS", "RESOLVED", "CLOSED")
-            .forEach(status -> stats.putIfAbsent(status, 0));
-            
+        for (String status : STANDARD_STATUSES) {
+            stats.putIfAbsent(status, 0);
+        }
         return stats;
     }
 
+    // k-way merge of the shards' newest-first indexes, reading only as far as the limit
     @Override
     public List<Ticket> getRecentTickets(int limit) {
-        return tickets.values().stream()
-                .sorted(Comparator.comparing(Ticket::getCreatedAt).reversed())
-                .limit(limit)
-                .collect(Collectors.toList());
+        List<Ticket> result = new ArrayList<>(Math.max(0, Math.min(limit, 1024)));
+        for (TicketIndexes.TimeKey key : merged(shard -> shard.indexes.recent(), Comparator.reverseOrder())) {
+            if (result.size() >= limit) {
+                break;
+            }
+            Ticket ticket = ticket(key.id());
+            if (ticket != null) {
+                result.add(ticket);
+            }
+        }
+        return result;
     }
 
     @Override
     public List<Ticket> getUnassignedTickets() {
-        return tickets.values().stream()
-                .filter(ticket -> ticket.getAssignedTo() == null || ticket.getAssignedTo().isEmpty())
-                .collect(Collectors.toList());
+        List<Ticket> result = new ArrayList<>();
+        for (List<Ticket> shardTickets : scatter(shard -> shard.lookup(shard.indexes.unassigned(),
+                ticket -> TicketIndexes.isUnassigned(ticket.getAssignedTo())))) {
+            result.addAll(shardTickets);
+        }
+        return result;
     }
 
     @Override
     public List<Ticket> getOverdueTickets() {
-        return tickets.values().stream()
-            .filter(ticket -> 
-                ticket.getCreatedAt() != null &&
-                !"RESOLVED".equals(ticket.getStatus()) &&
-                !"CLOSED".equals(ticket.getStatus()) &&
-                ticket.getCreatedAt().before(getOverdueThreshold()))
-            .collect(Collectors.toList());
+        long threshold = System.currentTimeMillis() - overdueWindowMillis;
+        return mergeAll(scatter(shard -> {
+            List<Ticket> result = new ArrayList<>();
+            for (TicketIndexes.TimeKey key : shard.indexes.openCreatedBefore(threshold)) {
+                Ticket ticket = shard.tickets.get(key.id());
+                if (ticket != null && isOverdue(ticket, threshold)) {
+                    result.add(ticket);
+                }
+            }
+            return result;
+        }), BY_CREATED_AT);
     }
 
-    private Date getOverdueThreshold() {
-        Calendar cal = Calendar.getInstance();
-        cal.add(Calendar.HOUR, -24);
-        return cal.getTime();
+    // A sum of the shards' counters, which moves whenever any one of them does
+    @Override
+    public long queryVersion(TicketQuery query) {
+        long now = System.currentTimeMillis();
+        long version = 0;
+        for (TicketShard shard : shards) {
+            if (query != TicketQuery.OVERDUE) {
+                version += shard.queryVersions.version(query);
+                continue;
+            }
+            version += shard.queryVersions.overdueVersion(now, at -> {
+                long createdAt = shard.indexes.oldestOpenCreatedSince(at - overdueWindowMillis);
+                return createdAt != Long.MAX_VALUE ? overdueFrom(createdAt) : Long.MAX_VALUE;
+            });
+        }
+        return version;
+    }
+
+    // Runs the query on every shard in parallel on the common ForkJoin pool, the calling thread
+    // taking the first shard itself; results come back in shard order
+    private <R> List<R> scatter(Function<TicketShard, R> query) {
+        List<ForkJoinTask<R>> tasks = new ArrayList<>(shards.length - 1);
+        for (int i = 1; i < shards.length; i++) {
+            TicketShard shard = shards[i];
+            tasks.add(ForkJoinTask.adapt(() -> query.apply(shard)).fork());
+        }
+        List<R> results = new ArrayList<>(shards.length);
+        results.add(query.apply(shards[0]));
+        for (ForkJoinTask<R> task : tasks) {
+            results.add(task.join());
+        }
+        return results;
+    }
+
+    // The shards' index entries as one sequence in the given order, merged lazily
+    private <K> Iterable<K> merged(Function<TicketShard, Iterable<K>> index, Comparator<? super K> order) {
+        List<Iterable<K>> sources = new ArrayList<>(shards.length);
+        for (TicketShard shard : shards) {
+            sources.add(index.apply(shard));
+        }
+        return MergingIterator.merge(sources, order);
+    }
+
+    private static List<Ticket> mergeAll(List<List<Ticket>> sorted, Comparator<Ticket> order) {
+        int size = 0;
+        List<Iterator<Ticket>> sources = new ArrayList<>(sorted.size());
+        for (List<Ticket> tickets : sorted) {
+            size += tickets.size();
+            sources.add(tickets.iterator());
+        }
+        List<Ticket> result = new ArrayList<>(size);
+        new MergingIterator<>(sources, order).forEachRemaining(result::add);
+        return result;
+    }
+
+    // Id sets are sorted, so the last id of a page is the cursor for the next one
+    private TicketPage page(Function<TicketShard, NavigableSet<String>> index, String cursor, int limit,
+                            Predicate<Ticket> stillMatches) {
+        List<Ticket> items = new ArrayList<>(Math.max(0, Math.min(limit, 1024)));
+        String last = null;
+        String next = null;
+        Iterable<String> ids = merged(shard -> {
+            NavigableSet<String> shardIds = index.apply(shard);
+            return cursor != null ? shardIds.tailSet(cursor, false) : shardIds;
+        }, Comparator.naturalOrder());
+        for (String id : ids) {
+            if (items.size() >= limit) {
+                next = last;
+                break;
+            }
+            Ticket ticket = ticket(id);
+            if (ticket != null && stillMatches.test(ticket)) {
+                items.add(ticket);
+                last = id;
+            }
+        }
+        return new TicketPage(items, next);
+    }
+
+    private static TicketIndexes.TimeKey parseTimeCursor(String cursor) {
+        int separator = cursor.indexOf(':');
+        try {
+            return new TicketIndexes.TimeKey(Long.parseLong(cursor.substring(0, separator)), cursor.substring(separator + 1));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    boolean indexesMatchFullScan() {
+        for (TicketShard shard : shards) {
+            if (!shard.indexes.matches(shard.tickets.values())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    boolean statisticsMatchFullScan() {
+        for (TicketShard shard : shards) {
+            if (!shard.indexes.countsMatch(shard.tickets.values())) {
+                return false;
+            }
+        }
+        return true;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,34 @@
+package com.ticketsystem.service.impl;
+
+import com.ticketsystem.model.Ticket;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+// One partition of the store: the tickets whose id hashes here, their reply threads, indexes,
+// search index and query versions, and how many of its tickets are archived in each status. Writers to different shards share no map, index or counter.
+final class TicketShard {
+    final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+    final Map<String, ReplyThread> replies = new ConcurrentHashMap<>();
+    final TicketIndexes indexes = new TicketIndexes();
+    final TicketSearchIndex searchIndex = new TicketSearchIndex();
+    final QueryVersions queryVersions = new QueryVersions();
+    final Map<String, LongAdder> archivedStatusCounts = new ConcurrentHashMap<>();
+
+    // Index reads are not atomic with writes, so each hit is re-checked against the live ticket
+    List<Ticket> lookup(Set<String> ids, Predicate<Ticket> stillMatches) {
+        List<Ticket> result = new ArrayList<>();
+        for (String id : ids) {
+            Ticket ticket = tickets.get(id);
+            if (ticket != null && stillMatches.test(ticket)) {
+                result.add(ticket);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,64 @@
+package com.ticketsystem.service.impl;
+
+import com.ticketsystem.assignment.AutoAssignmentEngine;
+import com.ticketsystem.model.User;
+import com.ticketsystem.service.UserService;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// In-memory user registry. Users with the AGENT role are handed to the auto-assignment engine,
+// which starts counting their open tickets.
+@Service
+public class UserServiceImpl implements UserService {
+    private final Map<String, User> users = new ConcurrentHashMap<>();
+    private final AutoAssignmentEngine assignmentEngine;
+
+    public UserServiceImpl(AutoAssignmentEngine assignmentEngine) {
+        this.assignmentEngine = assignmentEngine;
+    }
+
+    @Override
+    public User saveUser(User user) {
+        if (user.getId() == null || user.getId().isBlank()) {
+            user.setId(UUID.randomUUID().toString());
+        }
+        if (user.getUsername() == null) {
+            user.setUsername(user.getId());
+        }
+        users.put(user.getId(), user);
+        assignmentEngine.addAgent(user);
+        return user;
+    }
+
+    @Override
+    public User getUser(String id) {
+        return users.get(id);
+    }
+
+    @Override
+    public List<User> getUsers(String department) {
+        List<User> result = new ArrayList<>();
+        for (User user : users.values()) {
+            if (department == null || department.equals(user.getDepartment())) {
+                result.add(user);
+            }
+        }
+        result.sort(Comparator.comparing(User::getId));
+        return result;
+    }
+
+    @Override
+    public boolean deleteUser(String id) {
+        if (users.remove(id) == null) {
+            return false;
+        }
+        assignmentEngine.removeAgent(id);
+        return true;
+    }
+}
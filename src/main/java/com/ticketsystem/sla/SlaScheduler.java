@@ -0,0 +1,140 @@
+package com.ticketsystem.sla;
+
+import com.ticketsystem.model.Ticket;
+import com.ticketsystem.service.impl.TicketServiceImpl;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+// Escalates tickets left in a status longer than that status allows. Every ticket change moves
+// the ticket's deadline in a timer wheel, so nothing scans the store: a background thread only
+// takes the deadlines that passed and marks those tickets escalated, which publishes a
+// TICKET_ESCALATED change. A ticket is escalated once per deadline; a status with a later
+// deadline can escalate it again. In a cluster each node escalates the tickets it owns.
+@Component
+public class SlaScheduler {
+    private static final long NO_DEADLINE = Long.MIN_VALUE;
+
+    private final TicketServiceImpl ticketService;
+    private final Map<String, Long> limits;
+    private final long tickMillis;
+    private final TimerWheel<String> deadlines;
+    private volatile boolean running;
+    private Thread ticker;
+
+    // escalateAfter lists STATUS:minutes pairs; a status that is not listed never escalates
+    @Autowired
+    public SlaScheduler(TicketServiceImpl ticketService,
+                        @Value("${ticket.sla.escalate-after-minutes:OPEN:1440,IN_PROGRESS:4320}") String escalateAfter,
+                        @Value("${ticket.sla.tick-ms:1000}") long tickMillis,
+                        @Value("${ticket.sla.wheel-size:65536}") int wheelSize) {
+        this.ticketService = ticketService;
+        this.limits = parseLimits(escalateAfter);
+        this.tickMillis = tickMillis;
+        this.deadlines = new TimerWheel<>(tickMillis, wheelSize, System.currentTimeMillis());
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        if (limits.isEmpty()) {
+            return;
+        }
+        ticketService.trackSla(this::ticketChanged);
+        ticker = Thread.ofVirtual().name("sla-scheduler").start(this::escalateDue);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (ticker != null) {
+            ticker.interrupt();
+        }
+    }
+
+    public int pendingDeadlines() {
+        return deadlines.size();
+    }
+
+    // The time the ticket escalates in its current status, or NO_DEADLINE
+    private long deadline(Ticket ticket) {
+        Long limit = limits.get(ticket.getStatus());
+        if (limit == null || ticket.createdAtMillis() == Ticket.NO_TIME) {
+            return NO_DEADLINE;
+        }
+        return ticket.createdAtMillis() + limit;
+    }
+
+    // Called under the ticket's lock with the ticket before the change, null when it is new
+    private void ticketChanged(Ticket previous, Ticket ticket) {
+        long deadline = deadline(ticket);
+        if (deadline == NO_DEADLINE || ticket.escalatedAtMillis() >= deadline
+                || !ticketService.ownsTicket(ticket.getId())) {
+            deadlines.cancel(ticket.getId());
+            return;
+        }
+        // Assignments, replies and edits that keep the status leave the deadline where it is
+        if (previous != null && Objects.equals(previous.getStatus(), ticket.getStatus())
+                && previous.createdAtMillis() == ticket.createdAtMillis()) {
+            return;
+        }
+        deadlines.schedule(ticket.getId(), deadline);
+    }
+
+    // The ticket is checked again under its lock: it may have changed since its deadline passed,
+    // or its ownership may have moved to another node, which escalates it instead
+    private boolean isDue(Ticket ticket) {
+        long deadline = deadline(ticket);
+        return deadline != NO_DEADLINE
+                && deadline <= System.currentTimeMillis()
+                && ticket.escalatedAtMillis() < deadline
+                && ticketService.ownsTicket(ticket.getId());
+    }
+
+    private void escalateDue() {
+        while (running) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(tickMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            List<String> due = deadlines.expire(now);
+            if (due.isEmpty()) {
+                continue;
+            }
+            try {
+                ticketService.escalateTickets(due, this::isDue);
+            } catch (RuntimeException e) {
+                // Retried on the next tick; tickets escalated before the failure are no longer due
+                for (String ticketId : due) {
+                    deadlines.schedule(ticketId, now);
+                }
+            }
+        }
+    }
+
+    private static Map<String, Long> parseLimits(String escalateAfter) {
+        Map<String, Long> limits = new HashMap<>();
+        for (String entry : escalateAfter.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int colon = entry.indexOf(':');
+            if (colon < 0) {
+                throw new IllegalArgumentException("Expected STATUS:minutes, got " + entry.trim());
+            }
+            long minutes = Long.parseLong(entry.substring(colon + 1).trim());
+            limits.put(entry.substring(0, colon).trim(), TimeUnit.MINUTES.toMillis(minutes));
+        }
+        return limits;
+    }
+}
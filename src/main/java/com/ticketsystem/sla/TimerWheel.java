@@ -0,0 +1,145 @@
+package com.ticketsystem.sla;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Hashed timer wheel: a deadline goes into the bucket of its tick modulo the wheel size, a doubly
+// linked list, and expire walks only the buckets of the ticks that passed since its last call.
+// Deadlines more than one turn of the wheel away stay in their bucket until their own turn comes.
+// Scheduling, rescheduling and cancelling a key are O(1); a key has at most one deadline.
+public final class TimerWheel<K> {
+    private final long tickMillis;
+    private final Node<K>[] buckets;
+    private final int mask;
+    private final Map<K, Node<K>> nodes = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    // Last tick expire has processed
+    private long currentTick;
+
+    private static final class Node<K> {
+        private final K key;
+        private long tick;
+        private int bucket;
+        private Node<K> previous;
+        private Node<K> next;
+
+        private Node(K key) {
+            this.key = key;
+        }
+    }
+
+    // wheelSize is rounded up to a power of two; start is the time the wheel starts turning from
+    @SuppressWarnings("unchecked")
+    public TimerWheel(long tickMillis, int wheelSize, long start) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick and wheel size must be positive");
+        }
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.tickMillis = tickMillis;
+        this.buckets = (Node<K>[]) new Node<?>[size];
+        this.mask = size - 1;
+        this.currentTick = start / tickMillis;
+    }
+
+    // Sets the key's deadline, replacing any it had; a deadline already past expires on the next call
+    public void schedule(K key, long deadline) {
+        // Rounded up, so a key never expires before its deadline
+        long tick = Math.floorDiv(deadline + tickMillis - 1, tickMillis);
+        lock.lock();
+        try {
+            Node<K> node = nodes.get(key);
+            if (node == null) {
+                node = new Node<>(key);
+                nodes.put(key, node);
+            } else {
+                unlink(node);
+            }
+            node.tick = Math.max(tick, currentTick + 1);
+            link(node);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean cancel(K key) {
+        lock.lock();
+        try {
+            Node<K> node = nodes.remove(key);
+            if (node == null) {
+                return false;
+            }
+            unlink(node);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Removes and returns the keys whose deadline tick is at or before now: keys expire at most
+    // one tick after their deadline, never before it
+    public List<K> expire(long now) {
+        long target = now / tickMillis;
+        List<K> expired = new ArrayList<>();
+        lock.lock();
+        try {
+            if (target <= currentTick) {
+                return expired;
+            }
+            // One turn visits every bucket, however many ticks passed
+            long ticks = Math.min(target - currentTick, buckets.length);
+            for (long tick = currentTick + 1; tick <= currentTick + ticks; tick++) {
+                Node<K> node = buckets[(int) (tick & mask)];
+                while (node != null) {
+                    Node<K> next = node.next;
+                    if (node.tick <= target) {
+                        unlink(node);
+                        nodes.remove(node.key);
+                        expired.add(node.key);
+                    }
+                    node = next;
+                }
+            }
+            currentTick = target;
+            return expired;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return nodes.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void link(Node<K> node) {
+        int bucket = (int) (node.tick & mask);
+        Node<K> head = buckets[bucket];
+        node.bucket = bucket;
+        node.previous = null;
+        node.next = head;
+        if (head != null) {
+            head.previous = node;
+        }
+        buckets[bucket] = node;
+    }
+
+    private void unlink(Node<K> node) {
+        if (node.previous != null) {
+            node.previous.next = node.next;
+        } else {
+            buckets[node.bucket] = node.next;
+        }
+        if (node.next != null) {
+            node.next.previous = node.previous;
+        }
+        node.previous = null;
+        node.next = null;
+    }
+}
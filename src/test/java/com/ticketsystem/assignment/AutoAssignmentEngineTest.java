@@ -0,0 +1,74 @@
+package com.ticketsystem.assignment;
+
+import com.ticketsystem.events.TicketChangeBus;
+import com.ticketsystem.model.Ticket;
+import com.ticketsystem.model.User;
+import com.ticketsystem.persistence.TicketEventLog;
+import com.ticketsystem.service.impl.TicketServiceImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AutoAssignmentEngineTest {
+    private final TicketChangeBus changes = new TicketChangeBus(1024);
+    // A change made by hand right after the engine has read the ticket
+    private final AtomicReference<Runnable> afterRead = new AtomicReference<>();
+    private final TicketServiceImpl service = new TicketServiceImpl(24, TicketEventLog.DISABLED, changes) {
+        @Override
+        public Ticket getTicket(String id, boolean includeReplies) {
+            Ticket ticket = super.getTicket(id, includeReplies);
+            Runnable change = afterRead.getAndSet(null);
+            if (change != null) {
+                change.run();
+            }
+            return ticket;
+        }
+    };
+    private final AutoAssignmentEngine engine = new AutoAssignmentEngine(service, changes, false, 16, 100);
+
+    @Test
+    void manualAssignmentBetweenCheckAndBatchIsKept() {
+        engine.addAgent(agent("it.bot"));
+        engine.addAgent(agent("it.human"));
+        Ticket ticket = service.createTicket("Printer", "Out of toner");
+        afterRead.set(() -> service.assignTicket(ticket.getId(), "it.human"));
+
+        assertEquals(0, engine.assign(List.of(new AutoAssignmentEngine.Request(ticket.getId(), "it"))));
+        assertEquals("it.human", service.getTicket(ticket.getId()).getAssignedTo());
+        assertEquals(0, engine.openTickets("it.bot"));
+        assertEquals(1, engine.openTickets("it.human"));
+    }
+
+    @Test
+    void resolvedBetweenCheckAndBatchStaysUnassigned() {
+        engine.addAgent(agent("it.bot"));
+        Ticket ticket = service.createTicket("VPN", "Fixed itself");
+        afterRead.set(() -> service.resolveTicket(ticket.getId()));
+
+        assertEquals(0, engine.assign(List.of(new AutoAssignmentEngine.Request(ticket.getId(), "it"))));
+        assertEquals(null, service.getTicket(ticket.getId()).getAssignedTo());
+        assertEquals(0, engine.openTickets("it.bot"));
+    }
+
+    @Test
+    void untouchedTicketIsAssigned() {
+        engine.addAgent(agent("it.bot"));
+        Ticket ticket = service.createTicket("Laptop", "Will not boot");
+
+        assertEquals(1, engine.assign(List.of(new AutoAssignmentEngine.Request(ticket.getId(), "it"))));
+        assertEquals("it.bot", service.getTicket(ticket.getId()).getAssignedTo());
+        assertEquals(1, engine.openTickets("it.bot"));
+    }
+
+    private static User agent(String id) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(id);
+        user.setRole("AGENT");
+        user.setDepartment("it");
+        return user;
+    }
+}
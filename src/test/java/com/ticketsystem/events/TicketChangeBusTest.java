@@ -0,0 +1,57 @@
+package com.ticketsystem.events;
+
+import com.ticketsystem.model.TicketChange;
+import com.ticketsystem.model.TicketChangeBatch;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class TicketChangeBusTest {
+    private static final int PUBLISHERS = 4;
+    private static final int CHANGES = 20_000;
+
+    // Publishers fill their slots out of order; a reader still sees every change once, in sequence
+    @Test
+    void readerSeesEveryChangeOnceInOrderWhilePublishersRace() throws Exception {
+        TicketChangeBus bus = new TicketChangeBus(1 << 17);
+        TicketChangeBus.Subscription subscription = bus.subscribe(-1, change -> true);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> publishers = new ArrayList<>();
+        for (int i = 0; i < PUBLISHERS; i++) {
+            String ticketId = "ticket-" + i;
+            publishers.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int n = 0; n < CHANGES; n++) {
+                    TicketChange change = new TicketChange();
+                    change.setTicketId(ticketId);
+                    bus.publish(change);
+                }
+            }));
+        }
+        start.countDown();
+
+        long expected = 1;
+        while (expected <= PUBLISHERS * CHANGES) {
+            TicketChangeBatch batch = subscription.poll(1000, 10, TimeUnit.SECONDS);
+            assertFalse(batch.isTruncated());
+            assertFalse(batch.getChanges().isEmpty(), "timed out waiting for change " + expected);
+            for (TicketChange change : batch.getChanges()) {
+                assertEquals(expected++, change.getSequence());
+            }
+        }
+        for (Thread publisher : publishers) {
+            publisher.join();
+        }
+        assertEquals(PUBLISHERS * CHANGES, bus.lastSequence());
+    }
+}
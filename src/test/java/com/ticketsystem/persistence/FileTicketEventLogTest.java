@@ -0,0 +1,150 @@
+package com.ticketsystem.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Each run that appends to the log writes a segment of its own, so a few runs give a few segments
+class FileTicketEventLogTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void tornTailOfTheLastSegmentIsDroppedAndStaysDropped() throws IOException {
+        run("a", "b");
+        Path last = segments().get(0);
+        try (FileChannel channel = FileChannel.open(last, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        assertEquals(List.of("a"), replay());
+        // The run that recovered the torn segment writes a newer one; the torn record must not
+        // make that earlier segment fail the next start
+        run("c");
+        assertEquals(List.of("a", "c"), replay());
+    }
+
+    // A start that dies after opening the log but before replay has cut the torn tail off must not
+    // turn the torn segment into an earlier one
+    @Test
+    void startThatDiesBeforeReplayLeavesTheTornSegmentLast() throws IOException {
+        run("a", "b");
+        Path last = segments().get(0);
+        try (FileChannel channel = FileChannel.open(last, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        open().close();
+        // Older runs created their segment up front, leaving it with a header only
+        Files.write(directory.resolve(String.format("wal-%020d.log", 50)),
+                ByteBuffer.allocate(8).putInt(0x5457414C).putInt(2).array());
+
+        assertEquals(List.of("a"), replay());
+        run("c");
+        assertEquals(List.of("a", "c"), replay());
+    }
+
+    @Test
+    void zerosPastTheLastRecordAreATornTail() throws IOException {
+        run("a");
+        try (FileChannel channel = FileChannel.open(segments().get(0), StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(4096));
+        }
+
+        assertEquals(List.of("a"), replay());
+    }
+
+    @Test
+    void checksumMismatchBeforeTheLastSegmentFailsRecovery() throws IOException {
+        run("a", "b");
+        run("c");
+        flipLastByte(segments().get(0));
+
+        assertThrows(UncheckedIOException.class, this::replay);
+    }
+
+    @Test
+    void checksumMismatchFollowedByRecordsFailsRecovery() throws IOException {
+        run("a", "b");
+        Path segment = segments().get(0);
+        // Damage the first record's payload; the second record after it is intact
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            channel.read(b, 20);
+            b.put(0, (byte) ~b.get(0)).rewind();
+            channel.write(b, 20);
+        }
+
+        assertThrows(UncheckedIOException.class, this::replay);
+    }
+
+    @Test
+    void snapshotReplacesTheSegmentsItCovers() throws IOException {
+        try (FileTicketEventLog log = open()) {
+            log.append(assigned("a"));
+            log.append(assigned("b"));
+            log.snapshot(state -> state.accept(assigned("snapshot")));
+            log.append(assigned("c"));
+        }
+
+        assertEquals(List.of("snapshot", "c"), replay());
+    }
+
+    private void run(String... users) throws IOException {
+        try (FileTicketEventLog log = open()) {
+            log.replay(event -> { });
+            for (String user : users) {
+                log.append(assigned(user));
+            }
+            log.sync();
+        }
+    }
+
+    private List<String> replay() throws IOException {
+        List<String> users = new ArrayList<>();
+        try (FileTicketEventLog log = open()) {
+            log.replay(event -> users.add(event.getUserId()));
+        }
+        return users;
+    }
+
+    private FileTicketEventLog open() throws IOException {
+        return new FileTicketEventLog(directory, FsyncPolicy.ALWAYS, 10, 1 << 20);
+    }
+
+    // Segments holding records, oldest first
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("wal-"))
+                    .filter(file -> file.toFile().length() > 8)
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static void flipLastByte(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            channel.read(b, channel.size() - 1);
+            b.put(0, (byte) ~b.get(0)).rewind();
+            channel.write(b, channel.size() - 1);
+        }
+    }
+
+    private static TicketEvent assigned(String user) {
+        return TicketEvent.assigned("ticket", user, new Date(0), 1);
+    }
+}
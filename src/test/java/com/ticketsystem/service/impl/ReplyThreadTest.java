@@ -0,0 +1,59 @@
+package com.ticketsystem.service.impl;
+
+import com.ticketsystem.model.Reply;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ReplyThreadTest {
+
+    @Test
+    void editReplacesTheReplyEverywhereAndLeavesEarlierSnapshotsAlone() {
+        ReplyThread thread = new ReplyThread();
+        Reply root = reply("root", null, 1);
+        Reply child = reply("child", "root", 2);
+        thread.add(root);
+        thread.add(child);
+        List<Reply> allBefore = thread.all();
+        List<Reply> childrenBefore = thread.get("root").getChildren();
+
+        Reply edited = new Reply(child);
+        edited.setContent("edited");
+        thread.replace(edited);
+
+        assertEquals("child", child.getContent());
+        assertSame(child, allBefore.get(1));
+        assertSame(child, childrenBefore.get(0));
+        assertSame(edited, thread.get("child"));
+        assertSame(edited, thread.all().get(1));
+        assertSame(edited, thread.get("root").getChildren().get(0));
+    }
+
+    @Test
+    void editedReplyKeepsItsChildrenAndGainsNewOnes() {
+        ReplyThread thread = new ReplyThread();
+        thread.add(reply("root", null, 1));
+        thread.add(reply("first", "root", 2));
+
+        Reply edited = new Reply(thread.get("root"));
+        edited.setContent("edited");
+        thread.replace(edited);
+        thread.add(reply("second", "root", 3));
+
+        assertSame(edited, thread.roots().get(0));
+        assertEquals(List.of("first", "second"), thread.roots().get(0).getChildren().stream().map(Reply::getId).toList());
+    }
+
+    private static Reply reply(String id, String parentId, long timestamp) {
+        Reply reply = new Reply();
+        reply.setId(id);
+        reply.setContent(id);
+        reply.setParentId(parentId);
+        reply.setTimestamp(new Date(timestamp));
+        return reply;
+    }
+}
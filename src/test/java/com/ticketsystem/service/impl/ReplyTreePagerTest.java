@@ -0,0 +1,50 @@
+package com.ticketsystem.service.impl;
+
+import com.ticketsystem.model.Reply;
+import com.ticketsystem.model.ReplyTreePage;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReplyTreePagerTest {
+    private final List<Reply> replies = List.of(reply("a", 1), reply("b", 2), reply("c", 3));
+
+    @Test
+    void pagesFollowTheCursorToTheEnd() {
+        ReplyTreePage first = ReplyTreePager.page(replies, null, 1, 2);
+        assertEquals(2, first.getItems().size());
+
+        ReplyTreePage last = ReplyTreePager.page(replies, first.getNextCursor(), 1, 2);
+        assertEquals(1, last.getItems().size());
+        assertNull(last.getNextCursor());
+
+        ReplyTreePage past = ReplyTreePager.page(replies, "3:c", 1, 2);
+        assertEquals(0, past.getItems().size());
+        assertNull(past.getNextCursor());
+    }
+
+    @Test
+    void limitMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> ReplyTreePager.page(replies, null, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> ReplyTreePager.page(replies, "1:a", 1, -5));
+        assertThrows(IllegalArgumentException.class, () -> ReplyTreePager.page(List.of(), null, 1, 0));
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> ReplyTreePager.page(replies, "not-a-cursor", 1, 2));
+    }
+
+    private static Reply reply(String id, long timestamp) {
+        Reply reply = new Reply();
+        reply.setId(id);
+        reply.setContent(id);
+        reply.setTimestamp(new Date(timestamp));
+        return reply;
+    }
+}
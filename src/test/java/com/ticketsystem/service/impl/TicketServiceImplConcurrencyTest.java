@@ -0,0 +1,227 @@
+package com.ticketsystem.service.impl;
+
+import com.ticketsystem.events.TicketChangeBus;
+import com.ticketsystem.model.Reply;
+import com.ticketsystem.model.Ticket;
+import com.ticketsystem.model.TicketPatch;
+import com.ticketsystem.persistence.TicketEventLog;
+import com.ticketsystem.service.TicketService;
+import com.ticketsystem.service.TicketVersionConflictException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Many writers on few tickets, then the derived state is checked against a full scan once they stop
+class TicketServiceImplConcurrencyTest {
+    private static final int WRITERS = 8;
+    private static final int OPERATIONS = 2_000;
+    private static final int TICKETS = 16;
+    // Includes assignees without a department and ones that are nothing but dots
+    private static final String[] ASSIGNEES = {"support.alice", "support.bob", "billing.carol", "dave", ".", "...", ""};
+
+    private final TicketServiceImpl service = new TicketServiceImpl(24, TicketEventLog.DISABLED, new TicketChangeBus(1024), 4);
+
+    @Test
+    void indexesMatchFullScanAfterConcurrentWriters() throws Exception {
+        List<String> ids = createTickets();
+        runWriters(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            String id = ids.get(random.nextInt(ids.size()));
+            String assignee = ASSIGNEES[random.nextInt(ASSIGNEES.length)];
+            switch (random.nextInt(5)) {
+                case 0 -> service.assignTicket(id, assignee);
+                case 1 -> service.resolveTicket(id);
+                case 2 -> {
+                    TicketPatch patch = new TicketPatch();
+                    patch.setStatus(random.nextBoolean() ? "OPEN" : "IN_PROGRESS");
+                    patch.setAssignedTo(assignee);
+                    service.patchTicket(id, patch, TicketService.ANY_VERSION);
+                }
+                case 3 -> {
+                    Ticket ticket = new Ticket(service.getTicket(id, false));
+                    ticket.setAssignedTo(assignee.isEmpty() ? null : assignee);
+                    ticket.setStatus("CLOSED");
+                    service.updateTicket(ticket, TicketService.ANY_VERSION);
+                }
+                default -> ids.add(service.createTicket("Added", "while writing").getId());
+            }
+        });
+
+        assertTrue(service.indexesMatchFullScan(), "indexes differ from a full scan");
+        for (String id : ids) {
+            Ticket ticket = service.getTicket(id, false);
+            if (ticket.getAssignedTo() != null) {
+                String department = TicketIndexes.departmentOf(ticket.getAssignedTo());
+                assertTrue(service.getTicketsByDepartment().get(department).stream().anyMatch(t -> t.getId().equals(id)),
+                        id + " missing from department " + department);
+            }
+        }
+    }
+
+    @Test
+    void statisticsMatchFullScanAfterConcurrentStatusTransitions() throws Exception {
+        List<String> ids = createTickets();
+        String[] statuses = {"OPEN", "IN_PROGRESS", "RESOLVED", "CLOSED", "WAITING"};
+        runWriters(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            String id = ids.get(random.nextInt(ids.size()));
+            if (random.nextInt(4) == 0) {
+                service.resolveTicket(id);
+            } else {
+                TicketPatch patch = new TicketPatch();
+                patch.setStatus(statuses[random.nextInt(statuses.length)]);
+                service.patchTicket(id, patch, TicketService.ANY_VERSION);
+            }
+        });
+
+        assertTrue(service.statisticsMatchFullScan(), "status counters differ from a full scan");
+        Map<String, Integer> expected = new HashMap<>();
+        for (String id : ids) {
+            expected.merge(service.getTicket(id, false).getStatus(), 1, Integer::sum);
+        }
+        Map<String, Integer> statistics = service.getTicketStatistics();
+        for (String status : statuses) {
+            assertEquals(expected.getOrDefault(status, 0), statistics.getOrDefault(status, 0), status);
+        }
+    }
+
+    // Conditional updates retried on conflict, as an If-Match client does, racing with replies on
+    // the same tickets: every success moves the ticket exactly one version forward
+    @Test
+    void conditionalUpdatesAndRepliesOnSharedTicketsLoseNothing() throws Exception {
+        List<String> ids = createTickets().subList(0, 4);
+        Map<String, LongAdder> updates = new ConcurrentHashMap<>();
+        Map<String, LongAdder> replies = new ConcurrentHashMap<>();
+        runWriters(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            String id = ids.get(random.nextInt(ids.size()));
+            if (random.nextBoolean()) {
+                List<Reply> existing = service.getTicket(id).getReplies();
+                String parentId = existing.isEmpty() || random.nextBoolean() ? null
+                        : existing.get(random.nextInt(existing.size())).getId();
+                service.addReply(id, "Reply from " + Thread.currentThread().getName(), parentId);
+                replies.computeIfAbsent(id, k -> new LongAdder()).increment();
+                return;
+            }
+            while (true) {
+                Ticket current = service.getTicket(id, false);
+                Ticket changed = new Ticket(current);
+                changed.setAssignedTo(Thread.currentThread().getName() + ".agent");
+                changed.setDescription(current.getDescription().length() > 200 ? "Reset" : current.getDescription() + ".");
+                try {
+                    service.updateTicket(changed, current.getVersion());
+                    updates.computeIfAbsent(id, k -> new LongAdder()).increment();
+                    return;
+                } catch (TicketVersionConflictException e) {
+                    // Someone else changed it first; read again and retry
+                }
+            }
+        });
+
+        for (String id : ids) {
+            Ticket ticket = service.getTicket(id);
+            long changes = count(updates, id) + count(replies, id);
+            assertEquals(1 + changes, ticket.getVersion(), "version of " + id);
+            assertEquals(count(replies, id), ticket.getReplies().size(), "replies of " + id);
+            assertEquals(count(replies, id), service.getTicketRepliesTree(id).stream().mapToLong(this::treeSize).sum(),
+                    "replies in the tree of " + id);
+            if (count(updates, id) > 0) {
+                String assignee = ticket.getAssignedTo();
+                assertTrue(service.getTicketsByAssignee(assignee).stream().anyMatch(t -> t.getId().equals(id)),
+                        id + " missing from assignee " + assignee);
+                for (int i = 0; i < WRITERS; i++) {
+                    String other = "writer-" + i + ".agent";
+                    if (!other.equals(assignee)) {
+                        assertTrue(service.getTicketsByAssignee(other).stream().noneMatch(t -> t.getId().equals(id)),
+                                id + " still indexed under " + other);
+                    }
+                }
+            }
+        }
+        assertTrue(service.indexesMatchFullScan(), "indexes differ from a full scan");
+    }
+
+    // Assignees and statuses a ticket moves away from leave no empty sets behind
+    @Test
+    void keysWhoseLastTicketLeavesAreDropped() {
+        Ticket ticket = service.createTicket("Printer", "Out of toner");
+        service.assignTicket(ticket.getId(), "temp.alice");
+        service.assignTicket(ticket.getId(), "support.bob");
+        TicketPatch patch = new TicketPatch();
+        patch.setStatus("WAITING_ON_VENDOR");
+        service.patchTicket(ticket.getId(), patch, TicketService.ANY_VERSION);
+        service.resolveTicket(ticket.getId());
+
+        assertTrue(service.indexesMatchFullScan(), "indexes differ from a full scan");
+        assertTrue(service.getTicketsByDepartment().keySet().stream().noneMatch("temp"::equals));
+    }
+
+    @Test
+    void departmentIsThePartBeforeTheFirstDot() {
+        assertEquals("support", TicketIndexes.departmentOf("support.alice"));
+        assertEquals("support", TicketIndexes.departmentOf("support.alice.smith"));
+        assertEquals("dave", TicketIndexes.departmentOf("dave"));
+        assertEquals("", TicketIndexes.departmentOf("."));
+        assertEquals("", TicketIndexes.departmentOf("..."));
+    }
+
+    private static long count(Map<String, LongAdder> counts, String id) {
+        LongAdder count = counts.get(id);
+        return count != null ? count.sum() : 0;
+    }
+
+    private long treeSize(Reply reply) {
+        return 1 + reply.getChildren().stream().mapToLong(this::treeSize).sum();
+    }
+
+    private List<String> createTickets() {
+        List<String> ids = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < TICKETS; i++) {
+            ids.add(service.createTicket("Ticket " + i, "Description " + i).getId());
+        }
+        return ids;
+    }
+
+    // Runs the operation OPERATIONS times on each of WRITERS threads started together, and rethrows
+    // the first failure
+    private static void runWriters(ThrowingRunnable operation) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < WRITERS; i++) {
+            threads.add(Thread.ofPlatform().name("writer-" + i).start(() -> {
+                try {
+                    start.await();
+                    for (int n = 0; n < OPERATIONS; n++) {
+                        operation.run();
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }));
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError("writer failed", failure.get());
+        }
+    }
+
+    private interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+}
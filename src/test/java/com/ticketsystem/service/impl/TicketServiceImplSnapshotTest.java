@@ -0,0 +1,95 @@
+package com.ticketsystem.service.impl;
+
+import com.ticketsystem.events.TicketChangeBus;
+import com.ticketsystem.model.Ticket;
+import com.ticketsystem.persistence.SegmentTicketArchive;
+import com.ticketsystem.persistence.TicketEvent;
+import com.ticketsystem.persistence.TicketEventLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TicketServiceImplSnapshotTest {
+    @TempDir
+    Path directory;
+
+    // A write that brings a ticket back from the archive does not wait for a snapshot being
+    // written, and the snapshot still holds the ticket as the write left it
+    @Test
+    void archivedTicketWrittenDuringASnapshotIsRestoredAndWritten() throws Exception {
+        PausingLog log = new PausingLog();
+        try (SegmentTicketArchive archive = new SegmentTicketArchive(directory, 1 << 20)) {
+            TicketServiceImpl service = new TicketServiceImpl(24, log, new TicketChangeBus(1024), 1, archive, 0, 16);
+            Ticket archived = service.createTicket("VPN", "Fixed itself");
+            service.resolveTicket(archived.getId());
+            Thread.sleep(5);
+            assertEquals(1, service.archiveResolved());
+            service.createTicket("Printer", "Out of toner");
+
+            Thread snapshot = Thread.ofPlatform().start(service::snapshot);
+            assertTrue(log.paused.await(10, TimeUnit.SECONDS));
+            Thread writer = Thread.ofPlatform().start(() -> service.assignTicket(archived.getId(), "support.alice"));
+            writer.join(5_000);
+            boolean written = !writer.isAlive();
+            log.resume.countDown();
+            snapshot.join();
+            writer.join();
+
+            assertTrue(written, "the write waited for the snapshot");
+            Ticket last = null;
+            for (TicketEvent event : log.snapshot) {
+                if (event.getType() == TicketEvent.Type.CREATE_TICKET && event.getTicketId().equals(archived.getId())) {
+                    last = event.getTicket();
+                }
+            }
+            assertEquals("support.alice", last != null ? last.getAssignedTo() : null);
+        }
+    }
+
+    // Pauses every snapshot after its first event until resumed
+    private static final class PausingLog implements TicketEventLog {
+        final List<TicketEvent> snapshot = new CopyOnWriteArrayList<>();
+        final CountDownLatch paused = new CountDownLatch(1);
+        final CountDownLatch resume = new CountDownLatch(1);
+
+        @Override
+        public void append(TicketEvent event) {
+        }
+
+        @Override
+        public void sync() {
+        }
+
+        @Override
+        public void replay(Consumer<TicketEvent> handler) {
+        }
+
+        @Override
+        public void snapshot(Consumer<Consumer<TicketEvent>> state) {
+            state.accept(event -> {
+                snapshot.add(event);
+                if (snapshot.size() == 1) {
+                    paused.countDown();
+                    try {
+                        resume.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
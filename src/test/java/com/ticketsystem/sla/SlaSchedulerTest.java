@@ -0,0 +1,50 @@
+package com.ticketsystem.sla;
+
+import com.ticketsystem.model.Ticket;
+import com.ticketsystem.service.impl.TicketServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SlaSchedulerTest {
+    private static final long TICK_MILLIS = 200;
+
+    private final Set<String> movedAway = ConcurrentHashMap.newKeySet();
+    private final TicketServiceImpl service = new TicketServiceImpl();
+    private SlaScheduler scheduler;
+
+    @AfterEach
+    void stop() {
+        if (scheduler != null) {
+            scheduler.stop();
+        }
+    }
+
+    // Ownership is checked again when the deadline passes: a ticket that moved to another node
+    // after its deadline was scheduled is left for that node to escalate
+    @Test
+    void ticketOwnedElsewhereByItsDeadlineIsNotEscalated() throws InterruptedException {
+        service.joinCluster(ticketId -> !movedAway.contains(ticketId), event -> { });
+        scheduler = new SlaScheduler(service, "OPEN:0", TICK_MILLIS, 64);
+        scheduler.start();
+        Ticket stays = service.createTicket("Stays", "Owned here");
+        Ticket moves = service.createTicket("Moves", "Owned elsewhere by its deadline");
+        movedAway.add(moves.getId());
+
+        long deadline = System.currentTimeMillis() + 50 * TICK_MILLIS;
+        while (service.getTicket(stays.getId()).getEscalatedAt() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(TICK_MILLIS / 4);
+        }
+        Thread.sleep(2 * TICK_MILLIS);
+
+        assertNotNull(service.getTicket(stays.getId()).getEscalatedAt());
+        assertNull(service.getTicket(moves.getId()).getEscalatedAt());
+        assertEquals(0, scheduler.pendingDeadlines());
+    }
+}